@@ -0,0 +1,309 @@
+package org.json.bench;
+
+import java.util.Random;
+
+import org.json.CDL;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.XML;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+/**
+ * Corpus makes the texts that JSONBenchmark measures. Each text is generated
+ * from a fixed seed, so every run measures exactly the same input:
+ * <ul>
+ * <li><code>envelope</code> is a small transaction envelope of the kind the
+ * reader sends for each request, about 300 characters.</li>
+ * <li><code>catalog</code> is a big book catalog, an array of 2000 objects
+ * with strings, numbers, booleans, nulls, and short arrays.</li>
+ * <li><code>nested</code> is a tree of objects and arrays nested 64 deep.</li>
+ * <li><code>escapes</code> is an array of strings full of quotes,
+ * backslashes, control characters, and non-ASCII characters.</li>
+ * <li><code>catalogXML</code> is the catalog written as XML, for XML and
+ * JSONML.</li>
+ * <li><code>catalogCDL</code> is the catalog written as comma delimited
+ * text, for CDL.</li>
+ * <li><code>books</code> is the catalog as an array of Book beans, for
+ * converting beans to JSONObjects.</li>
+ * <li><code>header</code> is the HTTP header of a request, and
+ * <code>cookies</code> is the cookie list that it carries.</li>
+ * </ul>
+ * @author JSON.org
+ * @version 2026-10-18
+ */
+public class Corpus {
+
+    /**
+     * A Book is a bean with a getter for each member of a book in the
+     * catalog.
+     */
+    public static class Book {
+        private final JSONObject book;
+
+        Book(JSONObject book) {
+            this.book = book;
+        }
+
+        public String getAuthor() {
+            return this.book.optString("author");
+        }
+
+        public int getId() {
+            return this.book.optInt("id");
+        }
+
+        public String getIsbn() {
+            return this.book.optString("isbn");
+        }
+
+        public int getPages() {
+            return this.book.optInt("pages");
+        }
+
+        public double getPrice() {
+            return this.book.optDouble("price");
+        }
+
+        public double getRating() {
+            return this.book.optDouble("rating");
+        }
+
+        public String getSeries() {
+            return this.book.isNull("series")
+                ? null
+                : this.book.optString("series");
+        }
+
+        public String[] getTags() {
+            JSONArray tags = this.book.optJSONArray("tags");
+            String[] strings = new String[tags.length()];
+            for (int i = 0; i < strings.length; i += 1) {
+                strings[i] = tags.optString(i);
+            }
+            return strings;
+        }
+
+        public String getTitle() {
+            return this.book.optString("title");
+        }
+
+        public int getYear() {
+            return this.book.optInt("year");
+        }
+
+        public boolean isInPrint() {
+            return this.book.optBoolean("inPrint");
+        }
+    }
+
+    private static final String[] WORDS = {
+        "the", "reader", "page", "chapter", "of", "and", "a", "book",
+        "night", "river", "winter", "letters", "garden", "city", "last",
+        "house", "light", "sea", "stone", "song"
+    };
+
+    /**
+     * The envelope text.
+     */
+    public final String envelope;
+
+    /**
+     * The catalog as beans.
+     */
+    public final Book[] books;
+
+    /**
+     * The catalog text.
+     */
+    public final String catalog;
+
+    /**
+     * The catalog written as XML.
+     */
+    public final String catalogXML;
+
+    /**
+     * The catalog written as comma delimited text.
+     */
+    public final String catalogCDL;
+
+    /**
+     * The cookie list of the header.
+     */
+    public final String cookies;
+
+    /**
+     * The escape-heavy text.
+     */
+    public final String escapes;
+
+    /**
+     * The HTTP request header.
+     */
+    public final String header;
+
+    /**
+     * The deeply nested text.
+     */
+    public final String nested;
+
+    private final Random random;
+
+
+    /**
+     * Make the corpus.
+     * @throws JSONException If a text cannot be made, which would be a bug.
+     */
+    public Corpus() throws JSONException {
+        this.random = new Random(20261018L);
+        this.envelope = this.envelope().toString();
+        JSONArray books = this.catalog(2000);
+        this.catalog = books.toString();
+        this.catalogXML = XML.toString(new JSONObject().put("book", books),
+                "catalog");
+        this.catalogCDL = CDL.toString(books);
+        this.books = new Book[books.length()];
+        for (int i = 0; i < this.books.length; i += 1) {
+            this.books[i] = new Book(books.getJSONObject(i));
+        }
+        this.escapes = this.escapes(500).toString();
+        this.nested = this.nested(64).toString();
+        this.cookies = "JSESSIONID=d41d8cd98f00b204e9800998ecf8427e; " +
+                "theme=night; lang=en-US; last=book%2fchapter%2fpage; " +
+                "recent=1024+88+17; consent=yes";
+        this.header = "GET /book/1024/page/88?zoom=1.5 HTTP/1.1\n" +
+                "Host: library.example.org\n" +
+                "User-Agent: Mozilla/5.0 (X11; Linux x86_64)\n" +
+                "Accept: application/json, text/plain, */*\n" +
+                "Accept-Language: en-US,en;q=0.5\n" +
+                "Accept-Encoding: gzip, deflate\n" +
+                "Connection: keep-alive\n" +
+                "Cookie: " + this.cookies + "\n" +
+                "Cache-Control: no-cache\n";
+    }
+
+
+    private JSONArray catalog(int length) throws JSONException {
+        JSONArray books = new JSONArray();
+        for (int i = 0; i < length; i += 1) {
+            JSONObject book = new JSONObject();
+            book.put("id", i);
+            book.put("isbn", "978-" + (1000000000L + this.random.nextInt(
+                    1000000000)));
+            book.put("title", this.words(2 + this.random.nextInt(5)));
+            book.put("author", this.words(2));
+            book.put("year", 1800 + this.random.nextInt(226));
+            book.put("pages", 80 + this.random.nextInt(900));
+            book.put("price", this.random.nextInt(10000) / 100.0);
+            book.put("rating", this.random.nextDouble() * 5);
+            book.put("inPrint", this.random.nextBoolean());
+            book.put("series", this.random.nextInt(4) == 0
+                    ? (Object)this.words(2) : JSONObject.NULL);
+            JSONArray tags = new JSONArray();
+            for (int j = this.random.nextInt(4); j >= 0; j -= 1) {
+                tags.put(this.words(1));
+            }
+            book.put("tags", tags);
+            books.put(book);
+        }
+        return books;
+    }
+
+
+    private JSONObject envelope() throws JSONException {
+        JSONObject envelope = new JSONObject();
+        envelope.put("v", 3);
+        envelope.put("id", 1234567890123L);
+        envelope.put("path", "book/chapter/page");
+        envelope.put("session", "d41d8cd98f00b204e9800998ecf8427e");
+        envelope.put("ok", true);
+        JSONObject args = new JSONObject();
+        args.put("book", 1024);
+        args.put("page", 88);
+        args.put("zoom", 1.5);
+        args.put("query", JSONObject.NULL);
+        args.put("tags", new JSONArray().put("night").put("river"));
+        envelope.put("args", args);
+        JSONArray tx = new JSONArray();
+        for (int i = 0; i < 3; i += 1) {
+            JSONObject item = new JSONObject();
+            item.put("op", i == 0 ? "get" : "put");
+            item.put("key", "page:" + (88 + i));
+            item.put("time", 1792972800000L + i);
+            tx.put(item);
+        }
+        envelope.put("tx", tx);
+        return envelope;
+    }
+
+
+    private JSONArray escapes(int length) {
+        String special = "\"\\/\b\f\n\r\t\u0001\u001f\u00e9\u2028\u4e2d <>&";
+        JSONArray strings = new JSONArray();
+        StringBuffer sb = new StringBuffer();
+        for (int i = 0; i < length; i += 1) {
+            sb.setLength(0);
+            for (int j = 0; j < 40; j += 1) {
+                if (this.random.nextInt(3) == 0) {
+                    sb.append(special.charAt(
+                            this.random.nextInt(special.length())));
+                } else {
+                    sb.append((char)('a' + this.random.nextInt(26)));
+                }
+            }
+            strings.put(sb.toString());
+        }
+        return strings;
+    }
+
+
+    private Object nested(int depth) throws JSONException {
+        if (depth == 0) {
+            return this.words(1);
+        }
+        if (depth % 2 == 0) {
+            JSONObject jo = new JSONObject();
+            jo.put("depth", depth);
+            jo.put("child", this.nested(depth - 1));
+            return jo;
+        }
+        return new JSONArray().put(depth).put(this.nested(depth - 1))
+                .put(this.words(1));
+    }
+
+
+    private String words(int count) {
+        StringBuffer sb = new StringBuffer();
+        for (int i = 0; i < count; i += 1) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[this.random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+}
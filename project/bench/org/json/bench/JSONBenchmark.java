@@ -0,0 +1,490 @@
+package org.json.bench;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.json.CDL;
+import org.json.CDLReader;
+import org.json.CookieList;
+import org.json.HTTP;
+import org.json.HTTPReader;
+import org.json.JSONArray;
+import org.json.JSONBinary;
+import org.json.JSONML;
+import org.json.JSONObject;
+import org.json.JSONReader;
+import org.json.JSONTokener;
+import org.json.XML;
+import org.json.XMLReader;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+/**
+ * JSONBenchmark measures how fast the org.json classes read and write the
+ * texts of a Corpus, and how many bytes they allocate doing it. For each
+ * benchmark it reports operations per second and bytes allocated per
+ * operation. It is run as <pre>
+ * java org.json.bench.JSONBenchmark [-time ms] [-baseline file]
+ *     [-write file] [-tolerance percent] [name...]</pre>
+ * Each benchmark is warmed up for two rounds and then timed in five rounds
+ * of <code>-time</code> milliseconds (default 1000); the median round is
+ * reported. Only benchmarks whose names begin with one of the given names
+ * are run.
+ * <p>
+ * With <code>-baseline</code>, each result is compared with the same
+ * benchmark in a file written earlier with <code>-write</code>. A benchmark
+ * that is slower, or that allocates more, than the baseline by more than the
+ * tolerance (default 20 percent) is marked as a regression, and the program
+ * exits with status 1. The baseline for this tree is checked in as
+ * <code>baseline.txt</code>. Operations per second can only be compared
+ * between runs on the same machine, so a new baseline should be written
+ * there first; bytes per operation do not depend on the machine, and are
+ * the steadier signal. Allocation is counted with HotSpot's
+ * per-thread counter; on other virtual machines it is reported as -1 and
+ * not compared.
+ * <p>
+ * A change to code that a benchmark measures should rewrite
+ * <code>baseline.txt</code> in the same change. Write it from a run of
+ * every benchmark, not of a few: what the compiler has seen earlier in the
+ * run can move a benchmark's bytes per operation.
+ * @author JSON.org
+ * @version 2026-10-18
+ */
+public class JSONBenchmark {
+
+    /**
+     * A Benchmark is one operation to be timed.
+     */
+    static abstract class Benchmark {
+        final String name;
+
+        Benchmark(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Do the operation once.
+         * @return A result, which is kept so that the work cannot be skipped.
+         */
+        abstract Object run() throws Exception;
+    }
+
+    private static Object sink;
+
+    private final ArrayList benchmarks = new ArrayList();
+
+    private final ThreadMXBean threads;
+
+
+    JSONBenchmark(final Corpus corpus) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        this.threads = threads instanceof com.sun.management.ThreadMXBean &&
+                ((com.sun.management.ThreadMXBean)threads)
+                        .isThreadAllocatedMemorySupported()
+                ? threads : null;
+
+        final JSONObject envelope = new JSONObject(corpus.envelope);
+        final JSONArray catalog = new JSONArray(corpus.catalog);
+        final JSONArray escapes = new JSONArray(corpus.escapes);
+        final String escaped = escapes.join("");
+        final JSONArray nested = new JSONArray("[" + corpus.nested + "]");
+        final JSONArray jsonml = JSONML.toJSONArray(corpus.catalogXML);
+        final byte[] binary = JSONBinary.toBytes(catalog, true);
+
+        this.add(new Benchmark("envelope.parse") {
+            Object run() throws Exception {
+                return new JSONObject(corpus.envelope);
+            }
+        });
+        this.add(new Benchmark("envelope.write") {
+            Object run() throws Exception {
+                return envelope.toString();
+            }
+        });
+        this.add(new Benchmark("catalog.parse") {
+            Object run() throws Exception {
+                return new JSONArray(corpus.catalog);
+            }
+        });
+        this.add(new Benchmark("catalog.parseLazy") {
+            Object run() throws Exception {
+                JSONTokener x = new JSONTokener(corpus.catalog);
+                x.setLazy(true);
+                JSONArray books = new JSONArray(x);
+                int sum = 0;
+                for (int i = 0; i < books.length(); i += 1) {
+                    sum += books.getJSONObject(i).getInt("year");
+                }
+                return new Integer(sum);
+            }
+        });
+        this.add(new Benchmark("catalog.read") {
+            Object run() throws Exception {
+                JSONReader reader = new JSONReader(corpus.catalog);
+                int count = 0;
+                while (reader.next() != JSONReader.END_DOCUMENT) {
+                    count += 1;
+                }
+                return new Integer(count);
+            }
+        });
+        this.add(new Benchmark("catalog.write") {
+            Object run() throws Exception {
+                return catalog.toString();
+            }
+        });
+        this.add(new Benchmark("catalog.writeIndented") {
+            Object run() throws Exception {
+                return catalog.toString(2);
+            }
+        });
+        this.add(new Benchmark("catalog.fromBeans") {
+            Object run() throws Exception {
+                return new JSONArray(corpus.books);
+            }
+        });
+        this.add(new Benchmark("catalog.fromBeanAfterGC") {
+            Object run() throws Exception {
+                System.gc();
+                return new JSONObject(corpus.books[0]);
+            }
+        });
+        this.add(new Benchmark("catalog.toBinary") {
+            Object run() throws Exception {
+                return JSONBinary.toBytes(catalog, true);
+            }
+        });
+        this.add(new Benchmark("catalog.fromBinary") {
+            Object run() throws Exception {
+                return JSONBinary.toValue(binary);
+            }
+        });
+        this.add(new Benchmark("nested.parse") {
+            Object run() throws Exception {
+                return new JSONObject(corpus.nested);
+            }
+        });
+        this.add(new Benchmark("nested.write") {
+            Object run() throws Exception {
+                return nested.toString();
+            }
+        });
+        this.add(new Benchmark("escapes.parse") {
+            Object run() throws Exception {
+                return new JSONArray(corpus.escapes);
+            }
+        });
+        this.add(new Benchmark("escapes.quote") {
+            Object run() throws Exception {
+                return JSONObject.quote(escaped);
+            }
+        });
+        this.add(new Benchmark("escapes.write") {
+            Object run() throws Exception {
+                return escapes.toString();
+            }
+        });
+        this.add(new Benchmark("xml.toJSONObject") {
+            Object run() throws Exception {
+                return XML.toJSONObject(corpus.catalogXML);
+            }
+        });
+        this.add(new Benchmark("xml.toString") {
+            Object run() throws Exception {
+                return XML.toString(catalog, "book");
+            }
+        });
+        this.add(new Benchmark("jsonml.toJSONArray") {
+            Object run() throws Exception {
+                return JSONML.toJSONArray(corpus.catalogXML);
+            }
+        });
+        this.add(new Benchmark("xml.read") {
+            Object run() throws Exception {
+                XMLReader reader = new XMLReader(corpus.catalogXML);
+                int count = 0;
+                while (reader.next() != XMLReader.END_DOCUMENT) {
+                    count += 1;
+                }
+                return new Integer(count);
+            }
+        });
+        this.add(new Benchmark("xml.writeJSONML") {
+            Object run() throws Exception {
+                return new XMLReader(corpus.catalogXML)
+                        .write(new StringWriter()).toString();
+            }
+        });
+        this.add(new Benchmark("jsonml.toString") {
+            Object run() throws Exception {
+                return JSONML.toString(jsonml);
+            }
+        });
+        this.add(new Benchmark("cdl.toJSONArray") {
+            Object run() throws Exception {
+                return CDL.toJSONArray(corpus.catalogCDL);
+            }
+        });
+        this.add(new Benchmark("cdl.read") {
+            Object run() throws Exception {
+                CDLReader reader = new CDLReader(corpus.catalogCDL);
+                int count = 0;
+                while (reader.next()) {
+                    count += reader.getJSONObject().length();
+                }
+                return new Integer(count);
+            }
+        });
+        final HTTPReader cookieReader = new HTTPReader(HTTPReader.COOKIES);
+        final HTTPReader headerReader = new HTTPReader(HTTPReader.HEADER);
+        this.add(new Benchmark("http.toJSONObject") {
+            Object run() throws Exception {
+                return HTTP.toJSONObject(corpus.header);
+            }
+        });
+        this.add(new Benchmark("http.read") {
+            Object run() throws Exception {
+                int count = 0;
+                headerReader.reset(corpus.header);
+                while (headerReader.next()) {
+                    if (headerReader.isName("host")) {
+                        count += headerReader.getValue().length();
+                    }
+                }
+                return Integer.valueOf(count);
+            }
+        });
+        this.add(new Benchmark("cookie.toJSONObject") {
+            Object run() throws Exception {
+                return CookieList.toJSONObject(corpus.cookies);
+            }
+        });
+        this.add(new Benchmark("cookie.read") {
+            Object run() throws Exception {
+                int count = 0;
+                cookieReader.reset(corpus.cookies);
+                while (cookieReader.next()) {
+                    if (cookieReader.isName("JSESSIONID")) {
+                        count += cookieReader.getValue().length();
+                    }
+                }
+                return Integer.valueOf(count);
+            }
+        });
+    }
+
+
+    private void add(Benchmark benchmark) {
+        this.benchmarks.add(benchmark);
+    }
+
+
+    /**
+     * Get the number of bytes the current thread has allocated.
+     * @return The number of bytes, or -1 if it is not known.
+     */
+    private long allocated() {
+        if (this.threads == null) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean)this.threads)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+
+    /**
+     * Time a benchmark.
+     * @param benchmark The benchmark.
+     * @param time The length of each round in milliseconds.
+     * @return The operations per second and the bytes allocated per
+     *  operation.
+     */
+    private double[] measure(Benchmark benchmark, long time) throws Exception {
+        long end = System.currentTimeMillis() + time * 2;
+        do {
+            sink = benchmark.run();
+        } while (System.currentTimeMillis() < end);
+
+        double[] rates = new double[5];
+        double[] bytes = new double[5];
+        for (int round = 0; round < rates.length; round += 1) {
+            long ops = 0;
+            long before = this.allocated();
+            long start = System.nanoTime();
+            long stop = start + time * 1000000L;
+            long now;
+            do {
+                sink = benchmark.run();
+                ops += 1;
+                now = System.nanoTime();
+            } while (now < stop);
+            long after = this.allocated();
+            rates[round] = ops * 1e9 / (now - start);
+            bytes[round] = before < 0 ? -1 : (double)(after - before) / ops;
+        }
+        java.util.Arrays.sort(rates);
+        java.util.Arrays.sort(bytes);
+        return new double[] {rates[2], bytes[2]};
+    }
+
+
+    /**
+     * Read a file written with -write.
+     * @return A map from benchmark names to double[] {ops/s, bytes/op}.
+     */
+    private static HashMap readResults(String file) throws IOException {
+        HashMap results = new HashMap();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() == 0 || line.charAt(0) == '#') {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                if (fields.length >= 3) {
+                    results.put(fields[0], new double[] {
+                        Double.parseDouble(fields[1]),
+                        Double.parseDouble(fields[2])
+                    });
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return results;
+    }
+
+
+    private static String format(double value, int width) {
+        String s = String.valueOf(Math.round(value));
+        while (s.length() < width) {
+            s = " " + s;
+        }
+        return s;
+    }
+
+
+    private static String pad(String s, int width) {
+        while (s.length() < width) {
+            s += " ";
+        }
+        return s;
+    }
+
+
+    /**
+     * Run the benchmarks.
+     * @param args See the class comment.
+     */
+    public static void main(String[] args) throws Exception {
+        long time = 1000;
+        double tolerance = 20;
+        String baselineFile = null;
+        String writeFile = null;
+        ArrayList names = new ArrayList();
+        for (int i = 0; i < args.length; i += 1) {
+            if (args[i].equals("-time")) {
+                i += 1;
+                time = Long.parseLong(args[i]);
+            } else if (args[i].equals("-baseline")) {
+                i += 1;
+                baselineFile = args[i];
+            } else if (args[i].equals("-write")) {
+                i += 1;
+                writeFile = args[i];
+            } else if (args[i].equals("-tolerance")) {
+                i += 1;
+                tolerance = Double.parseDouble(args[i]);
+            } else {
+                names.add(args[i]);
+            }
+        }
+        HashMap baseline = baselineFile == null
+                ? new HashMap() : readResults(baselineFile);
+        PrintWriter out = writeFile == null
+                ? null : new PrintWriter(new FileWriter(writeFile));
+        if (out != null) {
+            out.println("# JSONBenchmark " + System.getProperty("java.vm.name")
+                    + " " + System.getProperty("java.version")
+                    + ", -time " + time);
+            out.println("# name                     ops/s    bytes/op");
+        }
+
+        JSONBenchmark bench = new JSONBenchmark(new Corpus());
+        int regressions = 0;
+        System.out.println(pad("benchmark", 24) + "       ops/s    bytes/op");
+        for (int i = 0; i < bench.benchmarks.size(); i += 1) {
+            Benchmark benchmark = (Benchmark)bench.benchmarks.get(i);
+            boolean wanted = names.isEmpty();
+            for (int j = 0; j < names.size(); j += 1) {
+                if (benchmark.name.startsWith((String)names.get(j))) {
+                    wanted = true;
+                }
+            }
+            if (!wanted) {
+                continue;
+            }
+            double[] result = bench.measure(benchmark, time);
+            String line = pad(benchmark.name, 24) + format(result[0], 12) +
+                    format(result[1], 12);
+            double[] base = (double[])baseline.get(benchmark.name);
+            if (base != null) {
+                double speed = (result[0] / base[0] - 1) * 100;
+                line += "  " + (speed >= 0 ? "+" : "") + Math.round(speed) +
+                        "% ops/s";
+                boolean slower = speed < -tolerance;
+                boolean bigger = base[1] >= 0 && result[1] >= 0 &&
+                        result[1] > base[1] * (1 + tolerance / 100) + 16;
+                if (slower || bigger) {
+                    line += "  REGRESSION";
+                    regressions += 1;
+                }
+            }
+            System.out.println(line);
+            if (out != null) {
+                out.println(pad(benchmark.name, 24) + format(result[0], 12) +
+                        format(result[1], 12));
+            }
+        }
+        if (out != null) {
+            out.close();
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " regression(s) against " +
+                    baselineFile);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package org.json;
+
+import java.io.Reader;
+
+import java.io.Reader;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+/**
+ * CDLReader reads comma delimited text one row at a time, for tables too
+ * large to hold as a JSONArray of JSONObjects. The first row gives the names
+ * of the columns, unless the names are supplied. Each call to
+ * <code>next</code> reads the next row. For example, <pre>
+ * CDLReader reader = new CDLReader(new FileReader("catalog.csv"));
+ * while (reader.next()) {
+ *     store(reader.getString(0), reader.getJSONObject());
+ * }</pre>
+ * reads a catalog of any length in constant memory.
+ * <p>
+ * The characters of a row are collected in a buffer that is reused for every
+ * row, and a value is only made into a String when it is asked for. The
+ * JSONObject that getJSONObject returns is also reused: it is the same
+ * object for every row, keyed by the same name Strings, so it must be copied
+ * if it is to be kept after the next row is read.
+ * <p>
+ * The reader accepts the same texts as CDL, and in addition a "\r\n" line
+ * ending and a doubled double quote inside a double quoted value, which
+ * stands for one double quote. As in CDL, the table ends at the end of the
+ * text or at an empty row.
+ * @author JSON.org
+ * @version 2026-10-18
+ */
+public class CDLReader {
+
+    /**
+     * The characters of the values of the current row.
+     */
+    private final StringBuilder chars;
+
+    /**
+     * The number of values in the current row.
+     */
+    private int count;
+
+    /**
+     * True after the end of the table.
+     */
+    private boolean done;
+
+    /**
+     * The index in chars of the end of each value of the current row.
+     */
+    private int[] ends;
+
+    /**
+     * The names of the columns, shared by every row.
+     */
+    private final String[] keys;
+
+    /**
+     * The names of the columns.
+     */
+    private final JSONArray names;
+
+    /**
+     * The JSONObject that holds the current row, or null until it is asked
+     * for.
+     */
+    private JSONObject row;
+
+    /**
+     * The tokener that supplies the text.
+     */
+    private final JSONTokener x;
+
+
+    /**
+     * Make a CDLReader that reads the names of the columns from the first
+     * row of the text.
+     * @param x A JSONTokener of the comma delimited text.
+     * @throws JSONException If the first row is badly formed.
+     */
+    public CDLReader(JSONTokener x) throws JSONException {
+        this(null, x);
+    }
+
+
+    /**
+     * Make a CDLReader that reads every row of the text as data, using
+     * supplied names for the columns.
+     * @param names A JSONArray of strings, or null to read the names from
+     *  the first row of the text.
+     * @param x A JSONTokener of the comma delimited text.
+     * @throws JSONException If a name is not a string, or if the first row
+     *  is badly formed.
+     */
+    public CDLReader(JSONArray names, JSONTokener x) throws JSONException {
+        this.chars = new StringBuilder();
+        this.count = 0;
+        this.done = false;
+        this.ends = new int[16];
+        this.x = x;
+        if (names == null && this.next()) {
+            names = new JSONArray();
+            for (int i = 0; i < this.count; i += 1) {
+                names.put(this.getString(i));
+            }
+        }
+        if (names == null || names.length() == 0) {
+            this.done = true;
+            this.keys = new String[0];
+        } else {
+            this.keys = new String[names.length()];
+            for (int i = 0; i < this.keys.length; i += 1) {
+                this.keys[i] = names.getString(i);
+            }
+        }
+        this.names = names;
+        this.count = 0;
+    }
+
+
+    /**
+     * Make a CDLReader that reads comma delimited text from a Reader, with
+     * the names of the columns in the first row.
+     * @param reader A reader.
+     * @throws JSONException If the first row is badly formed.
+     */
+    public CDLReader(Reader reader) throws JSONException {
+        this(new JSONTokener(reader));
+    }
+
+
+    /**
+     * Make a CDLReader that reads comma delimited text from a string, with
+     * the names of the columns in the first row.
+     * @param string The comma delimited text.
+     * @throws JSONException If the first row is badly formed.
+     */
+    public CDLReader(String string) throws JSONException {
+        this(new JSONTokener(string));
+    }
+
+
+    /**
+     * Get the names of the columns.
+     * @return A JSONArray of strings, or null if there are none.
+     */
+    public JSONArray getNames() {
+        return this.names;
+    }
+
+
+    /**
+     * Get the current row as a JSONObject, in which each value is named by
+     * the name of its column, as CDL.rowToJSONObject would make it. Values
+     * past the last name are left out. The same JSONObject is returned for
+     * every row.
+     * @return A JSONObject, or null if there is no current row.
+     * @throws JSONException If the row cannot be put into the JSONObject.
+     */
+    public JSONObject getJSONObject() throws JSONException {
+        if (this.count == 0) {
+            return null;
+        }
+        if (this.row == null) {
+            this.row = new JSONObject();
+        }
+        for (int i = 0; i < this.keys.length; i += 1) {
+            String value = this.getString(i);
+            if (value != null) {
+                this.row.put(this.keys[i], value);
+            } else {
+                this.row.remove(this.keys[i]);
+            }
+        }
+        return this.row;
+    }
+
+
+    /**
+     * Get a value of the current row.
+     * @param index The index of the value, which is the index of its column.
+     * @return A string, or null if the row has no such value.
+     */
+    public String getString(int index) {
+        if (index < 0 || index >= this.count) {
+            return null;
+        }
+        return this.chars.substring(index == 0 ? 0 : this.ends[index - 1],
+                this.ends[index]);
+    }
+
+
+    /**
+     * Get the number of values in the current row.
+     * @return The number of values, or 0 if there is no current row.
+     */
+    public int length() {
+        return this.count;
+    }
+
+
+    /**
+     * Read the next row.
+     * @return true if a row was read, or false at the end of the table.
+     * @throws JSONException If the row is badly formed.
+     */
+    public boolean next() throws JSONException {
+        char c;
+        this.chars.setLength(0);
+        this.count = 0;
+        if (this.done) {
+            return false;
+        }
+        for (;;) {
+            int start = this.chars.length();
+            do {
+                c = this.x.next();
+            } while (c == ' ' || c == '\t');
+            switch (c) {
+            case 0:
+                return this.end();
+            case '"':
+            case '\'':
+                this.quoted(c);
+                break;
+            case ',':
+                this.x.back();
+                break;
+            default:
+                this.x.back();
+
+// An unquoted value ends at a 0, which is consumed, as in JSONTokener.nextTo.
+// It is trimmed, as String.trim would.
+
+                if (this.x.copyTo(",\n\r", this.chars) == 0) {
+                    this.x.next();
+                }
+
+                int end = this.chars.length();
+                while (end > start && this.chars.charAt(end - 1) <= ' ') {
+                    end -= 1;
+                }
+                this.chars.setLength(end);
+                int first = start;
+                while (first < end && this.chars.charAt(first) <= ' ') {
+                    first += 1;
+                }
+                this.chars.delete(start, first);
+            }
+            c = this.x.next();
+
+// A row that begins with an empty value and nothing else ends the table.
+
+            if (this.count == 0 && this.chars.length() == 0 && c != ',') {
+                return this.end();
+            }
+            if (this.count == this.ends.length) {
+                int[] grown = new int[this.count * 2];
+                System.arraycopy(this.ends, 0, grown, 0, this.count);
+                this.ends = grown;
+            }
+            this.ends[this.count] = this.chars.length();
+            this.count += 1;
+            for (;;) {
+                if (c == ',') {
+                    break;
+                }
+                if (c != ' ') {
+                    if (c == '\r') {
+                        if (this.x.next() != '\n') {
+                            this.x.back();
+                        }
+                        return true;
+                    }
+                    if (c == '\n' || c == 0) {
+                        return true;
+                    }
+                    throw this.x.syntaxError("Bad character '" + c + "' (" +
+                            (int)c + ").");
+                }
+                c = this.x.next();
+            }
+        }
+    }
+
+
+    /**
+     * End the table.
+     */
+    private boolean end() {
+        this.chars.setLength(0);
+        this.count = 0;
+        this.done = true;
+        return false;
+    }
+
+
+    /**
+     * Read the rest of a quoted value into chars.
+     * @param q The quote character.
+     */
+    private void quoted(char q) throws JSONException {
+        String stops = q == '"' ? "\"\n\r" : "'\n\r";
+        for (;;) {
+            this.x.copyTo(stops, this.chars);
+            char c = this.x.next();
+            if (c != q) {
+                throw this.x.syntaxError("Missing close quote '" + q + "'.");
+            }
+            if (q != '"') {
+                return;
+            }
+            if (this.x.next() != '"') {
+                this.x.back();
+                return;
+            }
+            this.chars.append('"');
+        }
+    }
+}
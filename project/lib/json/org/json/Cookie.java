@@ -28,7 +28,7 @@ SOFTWARE.
  * Convert a web browser cookie specification to a JSONObject and back.
  * JSON and Cookies are both notations for name/value pairs.
  * @author JSON.org
- * @version 2010-12-24
+ * @version 2026-10-18
  */
 public class Cookie {
 
@@ -45,11 +45,27 @@ public class Cookie {
      * @return       The escaped result.
      */
     public static String escape(String string) {
-        char         c;
-        String       s = string.trim();
-        StringBuffer sb = new StringBuffer();
-        int          length = s.length();
-        for (int i = 0; i < length; i += 1) {
+        char          c;
+        String        s = string.trim();
+        StringBuilder sb;
+        int           length = s.length();
+        int           i = 0;
+
+// If nothing needs escaping, the trimmed string is returned as it is.
+
+        while (i < length) {
+            c = s.charAt(i);
+            if (c < ' ' || c == '+' || c == '%' || c == '=' || c == ';') {
+                break;
+            }
+            i += 1;
+        }
+        if (i == length) {
+            return s;
+        }
+        sb = new StringBuilder(length + 16);
+        sb.append(s, 0, i);
+        for (; i < length; i += 1) {
             c = s.charAt(i);
             if (c < ' ' || c == '+' || c == '%' || c == '=' || c == ';') {
                 sb.append('%');
@@ -149,12 +165,48 @@ public class Cookie {
      */
     public static String unescape(String string) {
         int length = string.length();
-        StringBuffer sb = new StringBuffer();
-        for (int i = 0; i < length; ++i) {
+        if (!isEscaped(string, 0, length)) {
+            return string;
+        }
+        StringBuilder sb = new StringBuilder(length);
+        unescape(string, 0, length, sb);
+        return sb.toString();
+    }
+
+
+    /**
+     * Tell if a range of a string has a '+' or '%' in it, so that unescaping
+     * it might change it.
+     * @param string A string.
+     * @param start The index of the first character of the range.
+     * @param end The index after the last character of the range.
+     * @return true if the range has a '+' or '%'.
+     */
+    static boolean isEscaped(String string, int start, int end) {
+        for (int i = start; i < end; i += 1) {
+            char c = string.charAt(i);
+            if (c == '+' || c == '%') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Unescape a range of a string, as unescape would, appending the result
+     * to a StringBuilder.
+     * @param string A string.
+     * @param start The index of the first character of the range.
+     * @param end The index after the last character of the range.
+     * @param sb The StringBuilder to append the unescaped characters to.
+     */
+    static void unescape(String string, int start, int end, StringBuilder sb) {
+        for (int i = start; i < end; ++i) {
             char c = string.charAt(i);
             if (c == '+') {
                 c = ' ';
-            } else if (c == '%' && i + 2 < length) {
+            } else if (c == '%' && i + 2 < end) {
                 int d = JSONTokener.dehexchar(string.charAt(i + 1));
                 int e = JSONTokener.dehexchar(string.charAt(i + 2));
                 if (d >= 0 && e >= 0) {
@@ -164,6 +216,5 @@ public class Cookie {
             }
             sb.append(c);
         }
-        return sb.toString();
     }
 }
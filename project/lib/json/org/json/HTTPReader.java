@@ -0,0 +1,446 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+/**
+ * HTTPReader reads the fields of an HTTP header, or the pairs of a cookie
+ * list, one at a time, without making a JSONObject or any Strings for them.
+ * It is the reading counterpart of HTTP and CookieList, for code that looks
+ * at a header or a cookie on every request. For example, <pre>
+ * HTTPReader reader = new HTTPReader(cookieHeader, HTTPReader.COOKIES);
+ * while (reader.next()) {
+ *     if (reader.isName("session")) {
+ *         session = lookup(reader.getValue().toString());
+ *     }
+ * }</pre>
+ * finds a session cookie.
+ * <p>
+ * getName, getValue, and getStartLine return CharSequence views of the text
+ * instead of Strings. The views belong to the reader, and are changed by the
+ * next call to next or reset, so toString must be called on a view that is
+ * to be kept. A name or value that has no escapes is viewed where it lies in
+ * the text. One that has escapes is unescaped into a buffer that the reader
+ * reuses. So reading a text with no escapes allocates nothing, and a reader
+ * can be reset to read any number of texts.
+ * <p>
+ * In a <code>HEADER</code>, the first line is the start line, whose three
+ * parts are got with getStartLine. Each following line, up to an empty line
+ * or the end of the text, is a field "name: value". Lines may end with
+ * "\r\n", "\n", or "\r". Names and values are trimmed, and nothing is
+ * unescaped.
+ * <p>
+ * In <code>COOKIES</code>, the pairs are separated by ';' and each name is
+ * separated from its value by '='. A pair without '=', such as the secure
+ * attribute of a cookie, has a null value. Names and values are trimmed and
+ * unescaped as Cookie.unescape would. A cookie specification can be read
+ * too: its first pair is the cookie, and the rest are its attributes.
+ * @author JSON.org
+ * @version 2026-10-18
+ */
+public class HTTPReader {
+
+    /**
+     * The kind of text that is a list of cookies, or a cookie specification.
+     */
+    public static final int COOKIES = 2;
+
+    /**
+     * The kind of text that is an HTTP request or response header.
+     */
+    public static final int HEADER = 1;
+
+    /**
+     * True if next has read a field or pair, and has not yet returned false.
+     */
+    private boolean current;
+
+    /**
+     * The length of the text.
+     */
+    private int end;
+
+    /**
+     * Either HEADER or COOKIES.
+     */
+    private final int kind;
+
+    /**
+     * The view of the name of the current field or pair.
+     */
+    private final View name;
+
+    /**
+     * The view of a part of the start line.
+     */
+    private final View part;
+
+    /**
+     * The start and end indexes of the three parts of the start line.
+     */
+    private final int[] parts;
+
+    /**
+     * The index of the next character to read.
+     */
+    private int position;
+
+    /**
+     * The text.
+     */
+    private String string;
+
+    /**
+     * The view of the value of the current field or pair, if it has one.
+     */
+    private final View value;
+
+    /**
+     * True if the current pair has a value.
+     */
+    private boolean valued;
+
+
+    /**
+     * A View is a CharSequence of a range of the text, or of a buffer that
+     * holds an unescaped range of the text.
+     */
+    private static final class View implements CharSequence {
+        private StringBuilder buffer;
+        private CharSequence chars;
+        private int end;
+        private int start;
+
+        public char charAt(int index) {
+            return this.chars.charAt(this.start + index);
+        }
+
+        public int length() {
+            return this.end - this.start;
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            return this.chars.subSequence(this.start + start,
+                    this.start + end);
+        }
+
+        public String toString() {
+            return this.chars.subSequence(this.start, this.end).toString();
+        }
+
+        /**
+         * Tell if the view holds the same characters as a string.
+         */
+        boolean is(String string, boolean ignoreCase) {
+            int length = this.end - this.start;
+            if (string.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i += 1) {
+                char c = this.chars.charAt(this.start + i);
+                char d = string.charAt(i);
+                if (c != d && (!ignoreCase ||
+                        Character.toLowerCase(c) != Character.toLowerCase(d))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * View a range of a string, trimmed, and unescaped if asked.
+         */
+        void set(String string, int start, int end, boolean unescape) {
+            while (start < end && string.charAt(start) <= ' ') {
+                start += 1;
+            }
+            while (end > start && string.charAt(end - 1) <= ' ') {
+                end -= 1;
+            }
+            if (unescape && Cookie.isEscaped(string, start, end)) {
+                if (this.buffer == null) {
+                    this.buffer = new StringBuilder();
+                }
+                this.buffer.setLength(0);
+                Cookie.unescape(string, start, end, this.buffer);
+                this.chars = this.buffer;
+                this.start = 0;
+                this.end = this.buffer.length();
+            } else {
+                this.chars = string;
+                this.start = start;
+                this.end = end;
+            }
+        }
+    }
+
+
+    /**
+     * Make an HTTPReader that has no text yet. reset gives it one.
+     * @param kind HEADER or COOKIES.
+     */
+    public HTTPReader(int kind) {
+        this.kind = kind;
+        this.name = new View();
+        this.part = new View();
+        this.parts = new int[6];
+        this.value = new View();
+        this.string = "";
+    }
+
+
+    /**
+     * Make an HTTPReader for a text.
+     * @param string An HTTP header, or a cookie list.
+     * @param kind HEADER or COOKIES.
+     * @throws JSONException If a header's start line is badly formed.
+     */
+    public HTTPReader(String string, int kind) throws JSONException {
+        this(kind);
+        this.reset(string);
+    }
+
+
+    /**
+     * Get the name of the current field or pair.
+     * @return A view of the name, or null if there is no current field or
+     *  pair.
+     */
+    public CharSequence getName() {
+        return this.current ? this.name : null;
+    }
+
+
+    /**
+     * Get a part of the start line of a header. A request's parts are the
+     * method, the request URI, and the HTTP version. A response's parts are
+     * the HTTP version, the status code, and the reason phrase. The first two
+     * parts end at white space, unless they are quoted. The third part is
+     * the rest of the line.
+     * @param index 0, 1, or 2.
+     * @return A view of the part, which may be empty, or null if the text is
+     *  not a header or the index is out of range.
+     */
+    public CharSequence getStartLine(int index) {
+        if (this.kind != HEADER || index < 0 || index > 2) {
+            return null;
+        }
+        this.part.set(this.string, this.parts[index * 2],
+                this.parts[index * 2 + 1], false);
+        return this.part;
+    }
+
+
+    /**
+     * Get the value of the current field or pair.
+     * @return A view of the value, or null if there is no current field or
+     *  pair, or if the pair has no '='.
+     */
+    public CharSequence getValue() {
+        return this.current && this.valued ? this.value : null;
+    }
+
+
+    /**
+     * Tell if the name of the current field or pair is a string. The names of
+     * header fields are compared ignoring case, and cookie names are
+     * compared exactly.
+     * @param string A name.
+     * @return true if there is a current field or pair with that name.
+     */
+    public boolean isName(String string) {
+        return this.current && this.name.is(string, this.kind == HEADER);
+    }
+
+
+    /**
+     * Read the next field of a header, or the next pair of a cookie list.
+     * @return true if a field or pair was read, or false at the end of the
+     *  text.
+     * @throws JSONException If a header field has no ':'.
+     */
+    public boolean next() throws JSONException {
+        return this.kind == HEADER ? this.nextField() : this.nextPair();
+    }
+
+
+    /**
+     * Start reading another text. For a header, the start line is read.
+     * @param string An HTTP header, or a cookie list.
+     * @throws JSONException If a header's start line is badly formed.
+     */
+    public void reset(String string) throws JSONException {
+        this.current = false;
+        this.end = string.length();
+        this.position = 0;
+        this.string = string;
+        if (this.kind == HEADER) {
+            this.startLine();
+        }
+    }
+
+
+    /**
+     * Get the index of the end of the line that holds a position.
+     */
+    private int lineEnd(int position) {
+        while (position < this.end) {
+            char c = this.string.charAt(position);
+            if (c == '\n' || c == '\r') {
+                break;
+            }
+            position += 1;
+        }
+        return position;
+    }
+
+
+    /**
+     * Read the next field of a header. The position is at the end of the
+     * line before it.
+     */
+    private boolean nextField() throws JSONException {
+        if (this.position < this.end) {
+            char c = this.string.charAt(this.position);
+            this.position += 1;
+            if (c == '\r' && this.position < this.end &&
+                    this.string.charAt(this.position) == '\n') {
+                this.position += 1;
+            }
+        }
+        int eol = this.lineEnd(this.position);
+        int colon = this.position;
+        while (colon < eol && this.string.charAt(colon) != ':') {
+            colon += 1;
+        }
+        if (colon == eol) {
+
+// An empty line ends the header.
+
+            int i = this.position;
+            while (i < eol && this.string.charAt(i) <= ' ') {
+                i += 1;
+            }
+            if (i == eol) {
+                this.current = false;
+                this.position = this.end;
+                return false;
+            }
+            throw this.syntaxError("Expected a ':' after a field name", eol);
+        }
+        this.name.set(this.string, this.position, colon, false);
+        this.value.set(this.string, colon + 1, eol, false);
+        this.current = true;
+        this.valued = true;
+        this.position = eol;
+        return true;
+    }
+
+
+    /**
+     * Read the next pair of a cookie list, skipping empty pairs.
+     */
+    private boolean nextPair() {
+        char c;
+        for (;;) {
+            if (this.position >= this.end) {
+                this.current = false;
+                return false;
+            }
+            c = this.string.charAt(this.position);
+            if (c != ';' && c > ' ') {
+                break;
+            }
+            this.position += 1;
+        }
+        int equals = -1;
+        int semicolon = this.position;
+        while (semicolon < this.end) {
+            c = this.string.charAt(semicolon);
+            if (c == ';') {
+                break;
+            }
+            if (c == '=' && equals < 0) {
+                equals = semicolon;
+            }
+            semicolon += 1;
+        }
+        if (equals >= 0) {
+            this.name.set(this.string, this.position, equals, true);
+            this.value.set(this.string, equals + 1, semicolon, true);
+        } else {
+            this.name.set(this.string, this.position, semicolon, true);
+        }
+        this.current = true;
+        this.valued = equals >= 0;
+        this.position = semicolon;
+        return true;
+    }
+
+
+    /**
+     * Read the start line of a header, leaving the position at its end.
+     */
+    private void startLine() throws JSONException {
+        int eol = this.lineEnd(0);
+        int i = 0;
+        for (int p = 0; p < 4; p += 2) {
+            while (i < eol && this.string.charAt(i) <= ' ') {
+                i += 1;
+            }
+            int start = i;
+            char q = i < eol ? this.string.charAt(i) : 0;
+            if (q == '"' || q == '\'') {
+                start += 1;
+                i = start;
+                while (i < eol && this.string.charAt(i) != q) {
+                    i += 1;
+                }
+                if (i == eol) {
+                    throw this.syntaxError("Unterminated string", eol);
+                }
+                this.parts[p] = start;
+                this.parts[p + 1] = i;
+                i += 1;
+            } else {
+                while (i < eol && this.string.charAt(i) > ' ') {
+                    i += 1;
+                }
+                this.parts[p] = start;
+                this.parts[p + 1] = i;
+            }
+        }
+        this.parts[4] = i;
+        this.parts[5] = eol;
+        this.position = eol;
+    }
+
+
+    /**
+     * Make a JSONException to signal a syntax error.
+     */
+    private JSONException syntaxError(String message, int index) {
+        return new JSONException(message + " at " + index);
+    }
+}
@@ -24,8 +24,6 @@ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
 SOFTWARE.
 */
 
-import java.io.IOException;
-import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
@@ -44,7 +42,14 @@ import java.util.Map;
  * <code>JSONObject.NULL object</code>.
  * <p>
  * The constructor can convert a JSON text into a Java object. The
- * <code>toString</code> method converts to JSON text.
+ * <code>toString</code> method converts to JSON text. When every element of
+ * an array text is an Integer, every element a Long, or every element a
+ * Double, the constructor keeps them in an array of ints, longs, or doubles
+ * rather than as objects. <code>get</code> and <code>opt</code> still return
+ * Integer, Long, or Double objects, while <code>getInt</code>,
+ * <code>getDouble</code>, <code>toIntArray</code>, <code>toDoubleArray</code>
+ * and the like read the numbers directly. Putting any other kind of value into
+ * such a JSONArray makes it keep its elements as objects from then on.
  * <p>
  * A <code>get</code> method returns a value if one can be found, and throws an
  * exception if one cannot be found. An <code>opt</code> method returns a
@@ -77,43 +82,93 @@ import java.util.Map;
  * </ul>
  *
  * @author JSON.org
- * @version 2012-04-20
+ * @version 2026-10-18
  */
 public class JSONArray {
 
 
     /**
-     * The arrayList where the JSONArray's properties are kept.
+     * The number of elements in ints, longs, or doubles.
      */
-    private final ArrayList myArrayList;
+    private int count;
+
+    /**
+     * The elements, when all of them are Doubles. Otherwise null.
+     */
+    private double[] doubles;
+
+    /**
+     * The elements, when all of them are Integers. Otherwise null.
+     */
+    private int[] ints;
+
+    /**
+     * How the elements are kept. Values:
+     * 'd' (in doubles),
+     * 'i' (in ints),
+     * 'l' (in longs),
+     * 'o' (in myArrayList).
+     */
+    private char kind;
+
+    /**
+     * The elements, when all of them are Longs. Otherwise null.
+     */
+    private long[] longs;
+
+    /**
+     * The arrayList where the JSONArray's properties are kept, when they are
+     * kept as objects. Otherwise null.
+     */
+    private ArrayList myArrayList;
 
 
     /**
      * Construct an empty JSONArray.
      */
     public JSONArray() {
+        this.kind = 'o';
         this.myArrayList = new ArrayList();
     }
 
     /**
      * Construct a JSONArray from a JSONTokener.
      * @param x A JSONTokener
-     * @throws JSONException If there is a syntax error.
+     * @throws JSONException If there is a syntax error, or nesting deeper
+     *  than x.getMaxDepth().
      */
     public JSONArray(JSONTokener x) throws JSONException {
         this();
         if (x.nextClean() != '[') {
             throw x.syntaxError("A JSONArray text must start with '['");
         }
+        x.enter();
+        try {
+            this.readElements(x);
+        } finally {
+            x.leave();
+        }
+    }
+
+
+    /**
+     * Read the elements of an array from a JSONTokener, through the closing
+     * ']'.
+     */
+    private void readElements(JSONTokener x) throws JSONException {
         if (x.nextClean() != ']') {
             x.back();
             for (;;) {
                 if (x.nextClean() == ',') {
                     x.back();
-                    this.myArrayList.add(JSONObject.NULL);
+                    this.add(JSONObject.NULL);
                 } else {
                     x.back();
-                    this.myArrayList.add(x.nextValue());
+                    Object value = x.nextValue();
+                    if (this.length() == 0) {
+                        this.specialize(value);
+                    }
+                    this.add(value);
                 }
                 switch (x.nextClean()) {
                 case ';':
@@ -150,7 +205,7 @@ public class JSONArray {
      * @param collection     A Collection.
      */
     public JSONArray(Collection collection) {
-        this.myArrayList = new ArrayList();
+        this();
         if (collection != null) {
             Iterator iter = collection.iterator();
             while (iter.hasNext()) {
@@ -178,6 +233,27 @@ public class JSONArray {
     }
 
 
+    /**
+     * Construct a JSONArray that keeps its elements in an array of ints,
+     * longs, or doubles, which it takes over.
+     * @param elements An int[], long[], or double[].
+     * @param count The number of elements in use.
+     */
+    JSONArray(Object elements, int count) {
+        if (elements instanceof int[]) {
+            this.ints = (int[]) elements;
+            this.kind = 'i';
+        } else if (elements instanceof long[]) {
+            this.longs = (long[]) elements;
+            this.kind = 'l';
+        } else {
+            this.doubles = (double[]) elements;
+            this.kind = 'd';
+        }
+        this.count = count;
+    }
+
+
     /**
      * Get the object value associated with an index.
      * @param index
@@ -227,6 +303,9 @@ public class JSONArray {
      *  be converted to a number.
      */
     public double getDouble(int index) throws JSONException {
+        if (this.kind != 'o' && index >= 0 && index < this.count) {
+            return this.doubleAt(index);
+        }
         Object object = this.get(index);
         try {
             return object instanceof Number
@@ -247,6 +326,9 @@ public class JSONArray {
      * @throws   JSONException If the key is not found or if the value is not a number.
      */
     public int getInt(int index) throws JSONException {
+        if (this.kind != 'o' && index >= 0 && index < this.count) {
+            return this.intAt(index);
+        }
         Object object = this.get(index);
         try {
             return object instanceof Number
@@ -302,6 +384,9 @@ public class JSONArray {
      *  be converted to a number.
      */
     public long getLong(int index) throws JSONException {
+        if (this.kind != 'o' && index >= 0 && index < this.count) {
+            return this.longAt(index);
+        }
         Object object = this.get(index);
         try {
             return object instanceof Number
@@ -355,7 +440,7 @@ public class JSONArray {
             if (i > 0) {
                 sb.append(separator);
             }
-            sb.append(JSONObject.valueToString(this.myArrayList.get(i)));
+            sb.append(JSONObject.valueToString(this.opt(i)));
         }
         return sb.toString();
     }
@@ -367,7 +452,7 @@ public class JSONArray {
      * @return The length (or size).
      */
     public int length() {
-        return this.myArrayList.size();
+        return this.kind == 'o' ? this.myArrayList.size() : this.count;
     }
 
 
@@ -378,9 +463,19 @@ public class JSONArray {
      *              object at that index.
      */
     public Object opt(int index) {
-        return (index < 0 || index >= this.length())
-            ? null
-            : this.myArrayList.get(index);
+        if (index < 0 || index >= this.length()) {
+            return null;
+        }
+        switch (this.kind) {
+        case 'd':
+            return Double.valueOf(this.doubles[index]);
+        case 'i':
+            return Integer.valueOf(this.ints[index]);
+        case 'l':
+            return Long.valueOf(this.longs[index]);
+        default:
+            return this.myArrayList.get(index);
+        }
     }
 
 
@@ -644,7 +739,7 @@ public class JSONArray {
      * @return this.
      */
     public JSONArray put(Object value) {
-        this.myArrayList.add(value);
+        this.add(value);
         return this;
     }
 
@@ -758,7 +853,10 @@ public class JSONArray {
             throw new JSONException("JSONArray[" + index + "] not found.");
         }
         if (index < this.length()) {
-            this.myArrayList.set(index, value);
+            if (!this.set(index, value)) {
+                this.box();
+                this.myArrayList.set(index, value);
+            }
         } else {
             while (index != this.length()) {
                 this.put(JSONObject.NULL);
@@ -774,14 +872,67 @@ public class JSONArray {
      * @param index The index of the element to be removed.
      * @return The value that was associated with the index,
      * or null if there was no value.
+     * @throws IndexOutOfBoundsException If the index is not between 0 and
+     *  length() - 1. An array of numbers is left as it was.
      */
     public Object remove(int index) {
         Object o = this.opt(index);
+        if (this.kind != 'o') {
+            if (o == null) {
+                throw new IndexOutOfBoundsException("Index: " + index +
+                        ", Size: " + this.count);
+            }
+            this.count -= 1;
+            Object array = this.kind == 'd'
+                ? (Object) this.doubles
+                : this.kind == 'i' ? (Object) this.ints : this.longs;
+            System.arraycopy(array, index + 1, array, index,
+                    this.count - index);
+            return o;
+        }
         this.myArrayList.remove(index);
         return o;
     }
 
 
+    /**
+     * Get all of the elements as doubles, as getDouble would.
+     * @return A new array of doubles.
+     * @throws JSONException If an element is not a number.
+     */
+    public double[] toDoubleArray() throws JSONException {
+        int length = this.length();
+        double[] doubles = new double[length];
+        if (this.kind == 'd') {
+            System.arraycopy(this.doubles, 0, doubles, 0, length);
+        } else {
+            for (int i = 0; i < length; i += 1) {
+                doubles[i] = this.getDouble(i);
+            }
+        }
+        return doubles;
+    }
+
+
+    /**
+     * Get all of the elements as ints, as getInt would.
+     * @return A new array of ints.
+     * @throws JSONException If an element is not a number.
+     */
+    public int[] toIntArray() throws JSONException {
+        int length = this.length();
+        int[] ints = new int[length];
+        if (this.kind == 'i') {
+            System.arraycopy(this.ints, 0, ints, 0, length);
+        } else {
+            for (int i = 0; i < length; i += 1) {
+                ints[i] = this.getInt(i);
+            }
+        }
+        return ints;
+    }
+
+
     /**
      * Produce a JSONObject by combining a JSONArray of names with the values
      * of this JSONArray.
@@ -803,11 +954,31 @@ public class JSONArray {
     }
 
 
+    /**
+     * Get all of the elements as longs, as getLong would.
+     * @return A new array of longs.
+     * @throws JSONException If an element is not a number.
+     */
+    public long[] toLongArray() throws JSONException {
+        int length = this.length();
+        long[] longs = new long[length];
+        if (this.kind == 'l') {
+            System.arraycopy(this.longs, 0, longs, 0, length);
+        } else {
+            for (int i = 0; i < length; i += 1) {
+                longs[i] = this.getLong(i);
+            }
+        }
+        return longs;
+    }
+
+
     /**
      * Make a JSON text of this JSONArray. For compactness, no
      * unnecessary whitespace is added. If it is not possible to produce a
      * syntactically correct JSON text then null will be returned instead. This
-     * could occur if the array contains an invalid number.
+     * could occur if the array contains an invalid number, or if it is nested
+     * deeper than the 1000 levels that JSONSerializer writes.
      * <p>
      * Warning: This method assumes that the data structure is acyclical.
      *
@@ -816,7 +987,7 @@ public class JSONArray {
      */
     public String toString() {
         try {
-            return '[' + this.join(",") + ']';
+            return this.toString(0);
         } catch (Exception e) {
             return null;
         }
@@ -832,13 +1003,11 @@ public class JSONArray {
      *  representation of the object, beginning
      *  with <code>[</code>&nbsp;<small>(left bracket)</small> and ending
      *  with <code>]</code>&nbsp;<small>(right bracket)</small>.
-     * @throws JSONException
+     * @throws JSONException If the array contains an invalid number, or is
+     *  nested deeper than 1000 levels.
      */
     public String toString(int indentFactor) throws JSONException {
-        StringWriter sw = new StringWriter();
-        synchronized (sw.getBuffer()) {
-            return this.write(sw, indentFactor, 0).toString();
-        }
+        return JSONSerializer.toString(this, indentFactor);
     }
 
     /**
@@ -869,38 +1038,185 @@ public class JSONArray {
      */
     Writer write(Writer writer, int indentFactor, int indent)
             throws JSONException {
-        try {
-            boolean commanate = false;
-            int length = this.length();
-            writer.write('[');
-
-            if (length == 1) {
-                JSONObject.writeValue(writer, this.myArrayList.get(0),
-                        indentFactor, indent);
-            } else if (length != 0) {
-                final int newindent = indent + indentFactor;
-
-                for (int i = 0; i < length; i += 1) {
-                    if (commanate) {
-                        writer.write(',');
-                    }
-                    if (indentFactor > 0) {
-                        writer.write('\n');
-                    }
-                    JSONObject.indent(writer, newindent);
-                    JSONObject.writeValue(writer, this.myArrayList.get(i),
-                            indentFactor, newindent);
-                    commanate = true;
-                }
-                if (indentFactor > 0) {
-                    writer.write('\n');
-                }
-                JSONObject.indent(writer, indent);
+        return JSONSerializer.write(writer, this, indentFactor, indent);
+    }
+
+
+    /**
+     * Get how the elements are kept: 'd', 'i', 'l', or 'o'.
+     */
+    char kind() {
+        return this.kind;
+    }
+
+
+    /**
+     * Get an element kept in doubles, ints, or longs, as a double.
+     */
+    double doubleAt(int index) {
+        switch (this.kind) {
+        case 'd':
+            return this.doubles[index];
+        case 'i':
+            return this.ints[index];
+        default:
+            return this.longs[index];
+        }
+    }
+
+
+    /**
+     * Get an element kept in doubles, ints, or longs, as an int.
+     */
+    int intAt(int index) {
+        switch (this.kind) {
+        case 'd':
+            return (int) this.doubles[index];
+        case 'i':
+            return this.ints[index];
+        default:
+            return (int) this.longs[index];
+        }
+    }
+
+
+    /**
+     * Get an element kept in doubles, ints, or longs, as a long.
+     */
+    long longAt(int index) {
+        switch (this.kind) {
+        case 'd':
+            return (long) this.doubles[index];
+        case 'i':
+            return this.ints[index];
+        default:
+            return this.longs[index];
+        }
+    }
+
+
+    /**
+     * Append a value, keeping it in doubles, ints, or longs if it is of
+     * their kind.
+     */
+    private void add(Object value) {
+        if (this.kind != 'o') {
+            if (this.count == this.capacity()) {
+                this.grow();
             }
-            writer.write(']');
-            return writer;
-        } catch (IOException e) {
-           throw new JSONException(e);
+            if (this.set(this.count, value)) {
+                this.count += 1;
+                return;
+            }
+            this.box();
+        }
+        this.myArrayList.add(value);
+    }
+
+
+    /**
+     * Move the elements kept in doubles, ints, or longs into myArrayList,
+     * where they are kept from then on.
+     */
+    private void box() {
+        if (this.kind == 'o') {
+            return;
+        }
+        ArrayList list = new ArrayList(Math.max(this.count * 2, 10));
+        for (int i = 0; i < this.count; i += 1) {
+            list.add(this.opt(i));
+        }
+        this.count = 0;
+        this.doubles = null;
+        this.ints = null;
+        this.longs = null;
+        this.kind = 'o';
+        this.myArrayList = list;
+    }
+
+
+    private int capacity() {
+        switch (this.kind) {
+        case 'd':
+            return this.doubles.length;
+        case 'i':
+            return this.ints.length;
+        default:
+            return this.longs.length;
+        }
+    }
+
+
+    /**
+     * Double the size of doubles, ints, or longs.
+     */
+    private void grow() {
+        switch (this.kind) {
+        case 'd':
+            double[] doubles = new double[this.count * 2];
+            System.arraycopy(this.doubles, 0, doubles, 0, this.count);
+            this.doubles = doubles;
+            break;
+        case 'i':
+            int[] ints = new int[this.count * 2];
+            System.arraycopy(this.ints, 0, ints, 0, this.count);
+            this.ints = ints;
+            break;
+        default:
+            long[] longs = new long[this.count * 2];
+            System.arraycopy(this.longs, 0, longs, 0, this.count);
+            this.longs = longs;
+        }
+    }
+
+
+    /**
+     * Store a value in doubles, ints, or longs if it is of their kind.
+     * @return false if the value can't be kept there.
+     */
+    private boolean set(int index, Object value) {
+        switch (this.kind) {
+        case 'd':
+            if (value instanceof Double) {
+                this.doubles[index] = ((Double) value).doubleValue();
+                return true;
+            }
+            return false;
+        case 'i':
+            if (value instanceof Integer) {
+                this.ints[index] = ((Integer) value).intValue();
+                return true;
+            }
+            return false;
+        case 'l':
+            if (value instanceof Long) {
+                this.longs[index] = ((Long) value).longValue();
+                return true;
+            }
+            return false;
+        default:
+            return false;
+        }
+    }
+
+
+    /**
+     * Choose how to keep the elements of a parsed array by its first value.
+     */
+    private void specialize(Object value) {
+        if (value instanceof Double) {
+            this.doubles = new double[8];
+            this.kind = 'd';
+        } else if (value instanceof Integer) {
+            this.ints = new int[8];
+            this.kind = 'i';
+        } else if (value instanceof Long) {
+            this.longs = new long[8];
+            this.kind = 'l';
+        } else {
+            return;
         }
+        this.count = 0;
+        this.myArrayList = null;
     }
 }
@@ -0,0 +1,657 @@
+package org.json;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+/**
+ * This provides static methods to convert a JSONObject, JSONArray, or other
+ * value into a compact binary form and back. The binary form is meant for
+ * values that a program stores and reads back itself, such as cache and
+ * datastore entries, where the cost of writing and parsing JSON text buys
+ * nothing.
+ * <p>
+ * The form starts with the byte 'J' and a byte of flags. Then comes the value,
+ * which is a tag byte followed by:
+ * <ul>
+ * <li>null, false, true: nothing.</li>
+ * <li>Integer, Long: a zigzag varint.</li>
+ * <li>Double: eight bytes, high byte first.</li>
+ * <li>Other numbers: their text as a string, converted back as
+ * JSONObject.stringToValue would.</li>
+ * <li>String: a varint byte count, then each char as one to three bytes, as
+ * in UTF-8 but with each half of a surrogate pair encoded on its own, so
+ * that any Java string comes back unchanged.</li>
+ * <li>JSONObject: a varint count of members, then each key and value.</li>
+ * <li>JSONArray: a varint count of elements, then each value. An array kept
+ * as ints, longs, or doubles is written with its own tag as packed numbers,
+ * and comes back kept the same way.</li>
+ * </ul>
+ * When the key dictionary flag is set, as it is by default, the first
+ * occurrence of each key is written in full and later ones as its number in
+ * order of first occurrence, so an array of many similar objects spells each
+ * key out once. Otherwise each key is written as a string without its tag.
+ * <p>
+ * Values are converted as the toString methods would convert them: a Map,
+ * Collection, or array becomes a JSONObject or JSONArray, a JSONString
+ * becomes the value of its JSON text, and any other object becomes its
+ * string. Unlike JSON text, Integer, Long, and Double values keep their class.
+ * <p>
+ * Both ways recurse once per level of nesting, so objects and arrays nested
+ * deeper than 1000 levels are refused with a JSONException rather than
+ * overflowing the thread's stack. Packed number arrays hold no values that
+ * nest, so they do not count as a level.
+ * @author JSON.org
+ * @version 2026-10-18
+ */
+public class JSONBinary {
+
+    /**
+     * The first byte of the binary form.
+     */
+    private static final byte MAGIC = 'J';
+
+    /**
+     * The flag for keys written through the dictionary.
+     */
+    private static final int SHARE_KEYS = 1;
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte NUMBER = 6;
+    private static final byte STRING = 7;
+    private static final byte OBJECT = 8;
+    private static final byte ARRAY = 9;
+    private static final byte INT_ARRAY = 10;
+    private static final byte LONG_ARRAY = 11;
+    private static final byte DOUBLE_ARRAY = 12;
+
+    private byte[] bytes;
+
+    /**
+     * The chars of the string being decoded.
+     */
+    private char[] chars;
+
+    /**
+     * The number of objects and arrays being encoded or decoded that the
+     * current value is inside of.
+     */
+    private int depth;
+
+    /**
+     * For encoding, the number of each key seen so far.
+     */
+    private HashMap keyNumbers;
+
+    /**
+     * For decoding, the keys seen so far, in order.
+     */
+    private ArrayList keys;
+
+    /**
+     * The number of bytes written, or the end of the bytes being read.
+     */
+    private int limit;
+
+    /**
+     * The index of the next byte to read.
+     */
+    private int position;
+
+    private boolean shareKeys;
+
+
+    private JSONBinary(byte[] bytes, int limit) {
+        this.bytes = bytes;
+        this.chars = new char[64];
+        this.depth = 0;
+        this.limit = limit;
+        this.position = 0;
+    }
+
+
+    /**
+     * Convert a value into its binary form, with a key dictionary.
+     * @param value A JSONObject, JSONArray, or any value that a JSONObject
+     *  can hold.
+     * @return The binary form.
+     * @throws JSONException If the value is or contains a non-finite number.
+     */
+    public static byte[] toBytes(Object value) throws JSONException {
+        return toBytes(value, true);
+    }
+
+
+    /**
+     * Convert a value into its binary form.
+     * @param value A JSONObject, JSONArray, or any value that a JSONObject
+     *  can hold.
+     * @param shareKeys true to write each key in full only once.
+     * @return The binary form.
+     * @throws JSONException If the value is or contains a non-finite number.
+     */
+    public static byte[] toBytes(Object value, boolean shareKeys)
+            throws JSONException {
+        JSONBinary b = new JSONBinary(new byte[256], 0);
+        b.shareKeys = shareKeys;
+        if (shareKeys) {
+            b.keyNumbers = new HashMap();
+        }
+        b.write(MAGIC);
+        b.write(shareKeys ? SHARE_KEYS : 0);
+        b.value(value);
+        byte[] result = new byte[b.limit];
+        System.arraycopy(b.bytes, 0, result, 0, b.limit);
+        return result;
+    }
+
+
+    /**
+     * Convert a binary form back into a JSONArray.
+     * @param bytes The binary form of a JSONArray.
+     * @return A JSONArray.
+     * @throws JSONException If the bytes are not the binary form of a
+     *  JSONArray.
+     */
+    public static JSONArray toJSONArray(byte[] bytes) throws JSONException {
+        Object value = toValue(bytes);
+        if (value instanceof JSONArray) {
+            return (JSONArray) value;
+        }
+        throw new JSONException("Binary JSON is not a JSONArray.");
+    }
+
+
+    /**
+     * Convert a binary form back into a JSONObject.
+     * @param bytes The binary form of a JSONObject.
+     * @return A JSONObject.
+     * @throws JSONException If the bytes are not the binary form of a
+     *  JSONObject.
+     */
+    public static JSONObject toJSONObject(byte[] bytes) throws JSONException {
+        Object value = toValue(bytes);
+        if (value instanceof JSONObject) {
+            return (JSONObject) value;
+        }
+        throw new JSONException("Binary JSON is not a JSONObject.");
+    }
+
+
+    /**
+     * Convert a binary form back into a value.
+     * @param bytes The binary form.
+     * @return A JSONObject, JSONArray, Boolean, Double, Integer, Long, String,
+     *  or the JSONObject.NULL object.
+     * @throws JSONException If the bytes are not a binary form.
+     */
+    public static Object toValue(byte[] bytes) throws JSONException {
+        JSONBinary b = new JSONBinary(bytes, bytes.length);
+        if (b.limit < 2 || b.read() != MAGIC) {
+            throw new JSONException("Not binary JSON.");
+        }
+        int flags = b.read();
+        if ((flags & ~SHARE_KEYS) != 0) {
+            throw new JSONException("Unknown binary JSON flags " + flags +
+                    ".");
+        }
+        b.shareKeys = (flags & SHARE_KEYS) != 0;
+        if (b.shareKeys) {
+            b.keys = new ArrayList();
+        }
+        Object value = b.readValue();
+        if (b.position != b.limit) {
+            throw b.error("Expected the end of binary JSON");
+        }
+        return value;
+    }
+
+
+// Encoding.
+
+    private void value(Object value) throws JSONException {
+        if (value == null || value.equals(null)) {
+            this.write(NULL);
+        } else if (value instanceof JSONObject) {
+            this.object((JSONObject) value);
+        } else if (value instanceof JSONArray) {
+            this.array((JSONArray) value);
+        } else if (value instanceof Map) {
+            this.object(new JSONObject((Map) value));
+        } else if (value instanceof Collection) {
+            this.array(new JSONArray((Collection) value));
+        } else if (value.getClass().isArray()) {
+            this.array(new JSONArray(value));
+        } else if (value instanceof Integer || value instanceof Short ||
+                value instanceof Byte) {
+            this.write(INT);
+            this.writeVarLong(zigzag(((Number) value).intValue()));
+        } else if (value instanceof Long) {
+            this.write(LONG);
+            this.writeVarLong(zigzag(((Long) value).longValue()));
+        } else if (value instanceof Double) {
+            JSONObject.testValidity(value);
+            this.write(DOUBLE);
+            this.writeDouble(((Double) value).doubleValue());
+        } else if (value instanceof Number) {
+            this.write(NUMBER);
+            this.writeString(JSONObject.numberToString((Number) value));
+        } else if (value instanceof Boolean) {
+            this.write(((Boolean) value).booleanValue() ? TRUE : FALSE);
+        } else if (value instanceof JSONString) {
+            Object o;
+            try {
+                o = ((JSONString) value).toJSONString();
+            } catch (Exception e) {
+                throw new JSONException(e);
+            }
+            if (o != null) {
+                this.value(new JSONTokener(o.toString()).nextValue());
+            } else {
+                this.write(STRING);
+                this.writeString(value.toString());
+            }
+        } else {
+            this.write(STRING);
+            this.writeString(value.toString());
+        }
+    }
+
+
+    private void object(JSONObject jo) throws JSONException {
+        int length = jo.length();
+        this.enter(false);
+        this.write(OBJECT);
+        this.writeVarLong(length);
+        for (int i = 0; i < length; i += 1) {
+            this.key(jo.keyAt(i).toString());
+            this.value(jo.valueAt(i));
+        }
+        this.depth -= 1;
+    }
+
+
+    private void array(JSONArray ja) throws JSONException {
+        int length = ja.length();
+        switch (ja.kind()) {
+        case 'd':
+            this.write(DOUBLE_ARRAY);
+            this.writeVarLong(length);
+            for (int i = 0; i < length; i += 1) {
+                this.writeDouble(ja.doubleAt(i));
+            }
+            break;
+        case 'i':
+            this.write(INT_ARRAY);
+            this.writeVarLong(length);
+            for (int i = 0; i < length; i += 1) {
+                this.writeVarLong(zigzag(ja.intAt(i)));
+            }
+            break;
+        case 'l':
+            this.write(LONG_ARRAY);
+            this.writeVarLong(length);
+            for (int i = 0; i < length; i += 1) {
+                this.writeVarLong(zigzag(ja.longAt(i)));
+            }
+            break;
+        default:
+            this.enter(false);
+            this.write(ARRAY);
+            this.writeVarLong(length);
+            for (int i = 0; i < length; i += 1) {
+                this.value(ja.opt(i));
+            }
+            this.depth -= 1;
+        }
+    }
+
+
+    /**
+     * Go one level deeper into objects and arrays.
+     * @param decoding true if decoding, so that the error can say where in
+     *  the bytes it is.
+     * @throws JSONException If that is deeper than 1000 levels.
+     */
+    private void enter(boolean decoding) throws JSONException {
+        if (this.depth >= JSONSerializer.MAX_DEPTH) {
+            if (decoding) {
+                this.position -= 1;
+                throw this.error("Nesting too deep");
+            }
+            throw new JSONException("Nesting too deep.");
+        }
+        this.depth += 1;
+    }
+
+
+    /**
+     * Write a key. Through the dictionary, a varint whose low bit is 1 is
+     * the number of a key already written, and one whose low bit is 0 is
+     * followed by a new key whose byte count is the rest of the varint.
+     */
+    private void key(String key) throws JSONException {
+        if (!this.shareKeys) {
+            this.writeString(key);
+            return;
+        }
+        Integer number = (Integer) this.keyNumbers.get(key);
+        if (number != null) {
+            this.writeVarLong(((long) number.intValue() << 1) | 1);
+            return;
+        }
+        this.keyNumbers.put(key, Integer.valueOf(this.keyNumbers.size()));
+        this.writeChars(key, 1);
+    }
+
+
+    private void writeString(String string) {
+        this.writeChars(string, 0);
+    }
+
+
+    /**
+     * Write the byte count of a string shifted left by a number of bits,
+     * then its chars.
+     */
+    private void writeChars(String string, int shift) {
+        int length = string.length();
+        int count = 0;
+        for (int i = 0; i < length; i += 1) {
+            char c = string.charAt(i);
+            count += c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+        }
+        this.writeVarLong((long) count << shift);
+        this.require(count);
+        byte[] bytes = this.bytes;
+        int n = this.limit;
+        for (int i = 0; i < length; i += 1) {
+            char c = string.charAt(i);
+            if (c < 0x80) {
+                bytes[n] = (byte) c;
+                n += 1;
+            } else if (c < 0x800) {
+                bytes[n] = (byte) (0xc0 | (c >> 6));
+                bytes[n + 1] = (byte) (0x80 | (c & 0x3f));
+                n += 2;
+            } else {
+                bytes[n] = (byte) (0xe0 | (c >> 12));
+                bytes[n + 1] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                bytes[n + 2] = (byte) (0x80 | (c & 0x3f));
+                n += 3;
+            }
+        }
+        this.limit = n;
+    }
+
+
+    private void writeDouble(double d) {
+        long bits = Double.doubleToLongBits(d);
+        this.require(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            this.bytes[this.limit] = (byte) (bits >>> shift);
+            this.limit += 1;
+        }
+    }
+
+
+    /**
+     * Write an unsigned varint, seven bits at a time, low bits first, with
+     * the high bit of each byte set if more bytes follow.
+     */
+    private void writeVarLong(long l) {
+        this.require(10);
+        while ((l & ~0x7fL) != 0) {
+            this.bytes[this.limit] = (byte) ((l & 0x7f) | 0x80);
+            this.limit += 1;
+            l >>>= 7;
+        }
+        this.bytes[this.limit] = (byte) l;
+        this.limit += 1;
+    }
+
+
+    private void write(int b) {
+        this.require(1);
+        this.bytes[this.limit] = (byte) b;
+        this.limit += 1;
+    }
+
+
+    private void require(int n) {
+        if (this.limit + n > this.bytes.length) {
+            byte[] grown = new byte[Math.max(this.bytes.length * 2,
+                    this.limit + n)];
+            System.arraycopy(this.bytes, 0, grown, 0, this.limit);
+            this.bytes = grown;
+        }
+    }
+
+
+    private static long zigzag(long l) {
+        return (l << 1) ^ (l >> 63);
+    }
+
+
+// Decoding.
+
+    private Object readValue() throws JSONException {
+        int tag = this.read();
+        int length;
+        switch (tag) {
+        case NULL:
+            return JSONObject.NULL;
+        case FALSE:
+            return Boolean.FALSE;
+        case TRUE:
+            return Boolean.TRUE;
+        case INT:
+            return Integer.valueOf((int) unzigzag(this.readVarLong()));
+        case LONG:
+            return Long.valueOf(unzigzag(this.readVarLong()));
+        case DOUBLE:
+            return new Double(this.readDouble());
+        case NUMBER:
+            return JSONObject.stringToValue(
+                    this.readString(this.readCount(), false));
+        case STRING:
+            return this.readString(this.readCount(), false);
+        case OBJECT:
+            this.enter(true);
+            length = this.readCount();
+            JSONObject jo = new JSONObject();
+            for (int i = 0; i < length; i += 1) {
+                String key = this.readKey();
+                jo.put(key, this.readValue());
+            }
+            this.depth -= 1;
+            return jo;
+        case ARRAY:
+            this.enter(true);
+            length = this.readCount();
+            JSONArray ja = new JSONArray();
+            for (int i = 0; i < length; i += 1) {
+                ja.put(this.readValue());
+            }
+            this.depth -= 1;
+            return ja;
+        case INT_ARRAY:
+            length = this.readCount();
+            int[] ints = new int[length];
+            for (int i = 0; i < length; i += 1) {
+                ints[i] = (int) unzigzag(this.readVarLong());
+            }
+            return new JSONArray(ints, length);
+        case LONG_ARRAY:
+            length = this.readCount();
+            long[] longs = new long[length];
+            for (int i = 0; i < length; i += 1) {
+                longs[i] = unzigzag(this.readVarLong());
+            }
+            return new JSONArray(longs, length);
+        case DOUBLE_ARRAY:
+            length = this.readCount();
+            double[] doubles = new double[length];
+            for (int i = 0; i < length; i += 1) {
+                doubles[i] = this.readDouble();
+            }
+            return new JSONArray(doubles, length);
+        default:
+            this.position -= 1;
+            throw this.error("Unknown binary JSON tag " + tag);
+        }
+    }
+
+
+    private String readKey() throws JSONException {
+        if (!this.shareKeys) {
+            return this.readString(this.readCount(), true);
+        }
+        long l = this.readVarLong();
+        if ((l & 1) != 0) {
+            long number = l >>> 1;
+            if (number >= this.keys.size()) {
+                throw this.error("Unknown binary JSON key " + number);
+            }
+            return (String) this.keys.get((int) number);
+        }
+        String key = this.readString(this.count(l >>> 1), true);
+        this.keys.add(key);
+        return key;
+    }
+
+
+    /**
+     * Read a string of a number of bytes.
+     * @param key true if the string is a key, which is got from the symbol
+     *  table that JSONTokeners share.
+     */
+    private String readString(int count, boolean key) throws JSONException {
+        if (count > this.limit - this.position) {
+            throw this.error("Truncated binary JSON");
+        }
+        if (this.chars.length < count) {
+            this.chars = new char[count];
+        }
+        byte[] bytes = this.bytes;
+        char[] chars = this.chars;
+        int end = this.position + count;
+        int n = 0;
+        int i = this.position;
+        while (i < end) {
+            int b = bytes[i];
+            if (b >= 0) {
+                chars[n] = (char) b;
+                i += 1;
+            } else if ((b & 0xe0) == 0xc0 && i + 1 < end) {
+                chars[n] = (char) (((b & 0x1f) << 6) | (bytes[i + 1] & 0x3f));
+                i += 2;
+            } else if ((b & 0xf0) == 0xe0 && i + 2 < end) {
+                chars[n] = (char) (((b & 0x0f) << 12) |
+                        ((bytes[i + 1] & 0x3f) << 6) | (bytes[i + 2] & 0x3f));
+                i += 3;
+            } else {
+                this.position = i;
+                throw this.error("Bad char in binary JSON");
+            }
+            n += 1;
+        }
+        this.position = end;
+        return key
+            ? JSONSymbolTable.SHARED.intern(chars, 0, n)
+            : new String(chars, 0, n);
+    }
+
+
+    private double readDouble() throws JSONException {
+        if (this.limit - this.position < 8) {
+            throw this.error("Truncated binary JSON");
+        }
+        long bits = 0;
+        for (int i = 0; i < 8; i += 1) {
+            bits = (bits << 8) | (this.bytes[this.position] & 0xff);
+            this.position += 1;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+
+    /**
+     * Read a varint count of bytes or elements, which can't be more than the
+     * bytes that are left.
+     */
+    private int readCount() throws JSONException {
+        return this.count(this.readVarLong());
+    }
+
+
+    private int count(long l) throws JSONException {
+        if (l < 0 || l > this.limit - this.position) {
+            throw this.error("Truncated binary JSON");
+        }
+        return (int) l;
+    }
+
+
+    private long readVarLong() throws JSONException {
+        long l = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = this.read();
+            l |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return l;
+            }
+        }
+        throw this.error("Bad varint in binary JSON");
+    }
+
+
+    private int read() throws JSONException {
+        if (this.position >= this.limit) {
+            throw this.error("Truncated binary JSON");
+        }
+        int b = this.bytes[this.position] & 0xff;
+        this.position += 1;
+        return b;
+    }
+
+
+    private static long unzigzag(long l) {
+        return (l >>> 1) ^ -(l & 1);
+    }
+
+
+    private JSONException error(String message) {
+        return new JSONException(message + " at byte " + this.position + ".");
+    }
+}
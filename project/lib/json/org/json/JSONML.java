@@ -33,32 +33,36 @@ import java.util.Iterator;
  * the JsonML transform.
  * 
  * @author JSON.org
- * @version 2012-03-28
+ * @version 2026-10-18
  */
 public class JSONML {
 
     /**
-     * Parse XML values and store them in a JSONArray.
+     * Parse XML values and store them in a JSONArray. The elements that are
+     * open are kept on an explicit stack rather than parsed by recursion, so
+     * the depth of the XML is limited only by the XMLTokener's maximum depth.
      * @param x       The XMLTokener containing the source string.
      * @param arrayForm true if array form, false if object form.
-     * @param ja      The JSONArray that is containing the current tag or null
-     *     if we are at the outermost level.
-     * @return A JSONArray if the value is the outermost tag, otherwise null.
+     * @return A JSONArray or JSONObject for the outermost tag, or the name
+     *     of a close tag found before it.
      * @throws JSONException
      */
     private static Object parse(
         XMLTokener x,
-        boolean    arrayForm,
-        JSONArray  ja
+        boolean    arrayForm
     ) throws JSONException {
-        String     attribute;
-        char       c;
-        String       closeTag = null;
-        int        i;
-        JSONArray  newja = null;
-        JSONObject newjo = null;
-        Object     token;
+        String       attribute;
+        char         c;
+        int          i;
+        JSONArray    ja = null;
+        JSONArray    newja = null;
+        JSONObject   newjo = null;
+        Object       token;
         String       tagName = null;
+        int          top = 0;
+        String[]     names = new String[16];
+        JSONArray[]  arrays = new JSONArray[16];
+        JSONObject[] objects = new JSONObject[16];
 
 // Test for and skip past these forms:
 //      <!-- ... -->
@@ -67,6 +71,11 @@ public class JSONML {
 //      <?   ...  ?>
 
         while (true) {
+
+// ja is the JSONArray that is containing the current tag, or null if we are
+// at the outermost level.
+
+            ja = top == 0 ? null : arrays[top - 1];
             if (!x.more()) {
                 throw x.syntaxError("Bad XML");
             }
@@ -87,7 +96,30 @@ public class JSONML {
                         if (x.nextToken() != XML.GT) {
                             throw x.syntaxError("Misshaped close tag");
                         }
-                        return token;
+                        if (top == 0) {
+                            return token;
+                        }
+                        top -= 1;
+                        tagName = names[top];
+                        newja = arrays[top];
+                        newjo = objects[top];
+                        names[top] = null;
+                        arrays[top] = null;
+                        objects[top] = null;
+                        if (!token.equals(tagName)) {
+                            throw x.syntaxError("Mismatched '" + tagName +
+                                    "' and '" + token + "'");
+                        }
+                        if (!arrayForm && newja.length() > 0) {
+                            newjo.put("childNodes", newja);
+                        }
+                        if (top == 0) {
+                            if (arrayForm) {
+                                return newja;
+                            } else {
+                                return newjo;
+                            }
+                        }
                     } else if (token == XML.BANG) {
 
 // <!
@@ -198,30 +230,34 @@ public class JSONML {
                             }
                         }
 
-// Content, between <...> and </...>
+// Content, between <...> and </...>. The tag is pushed, and its content
+// becomes the current level until its close tag.
 
                     } else {
                         if (token != XML.GT) {
                             throw x.syntaxError("Misshaped tag");
                         }
-                        closeTag = (String)parse(x, arrayForm, newja);
-                        if (closeTag != null) {
-                            if (!closeTag.equals(tagName)) {
-                                throw x.syntaxError("Mismatched '" + tagName +
-                                        "' and '" + closeTag + "'");
-                            }
-                            tagName = null;
-                            if (!arrayForm && newja.length() > 0) {
-                                newjo.put("childNodes", newja);
-                            }
-                            if (ja == null) {
-                                if (arrayForm) {
-                                    return newja;
-                                } else {
-                                    return newjo;
-                                }
-                            }
+                        if (top >= x.getMaxDepth()) {
+                            throw x.syntaxError("Nesting too deep");
+                        }
+                        if (top == names.length) {
+                            String[] grownNames = new String[top * 2];
+                            JSONArray[] grownArrays = new JSONArray[top * 2];
+                            JSONObject[] grownObjects = new JSONObject[top * 2];
+                            System.arraycopy(names, 0, grownNames, 0, top);
+                            System.arraycopy(arrays, 0, grownArrays, 0, top);
+                            System.arraycopy(objects, 0, grownObjects, 0, top);
+                            names = grownNames;
+                            arrays = grownArrays;
+                            objects = grownObjects;
                         }
+
+// In array form the attributes are already in newja, so newjo is not kept.
+
+                        names[top] = tagName;
+                        arrays[top] = newja;
+                        objects[top] = arrayForm ? null : newjo;
+                        top += 1;
                     }
                 }
             } else {
@@ -265,7 +301,7 @@ public class JSONML {
      * @throws JSONException
      */
     public static JSONArray toJSONArray(XMLTokener x) throws JSONException {
-        return (JSONArray)parse(x, true, null);
+        return (JSONArray)parse(x, true);
     }
 
 
@@ -283,7 +319,7 @@ public class JSONML {
      * @throws JSONException
      */
     public static JSONObject toJSONObject(XMLTokener x) throws JSONException {
-           return (JSONObject)parse(x, false, null);
+           return (JSONObject)parse(x, false);
     }
 
 
@@ -25,18 +25,19 @@ SOFTWARE.
 */
 
 import java.io.IOException;
-import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.ResourceBundle;
+import java.util.WeakHashMap;
 
 /**
  * A JSONObject is an unordered collection of name/value pairs. Its external
@@ -55,6 +56,16 @@ import java.util.ResourceBundle;
  * found. An <code>opt</code> method returns a default value instead of throwing
  * an exception, and so is useful for obtaining optional values.
  * <p>
+ * A JSONObject keeps its keys in the order in which they were first put, and
+ * the <code>keys</code> and <code>toString</code> methods follow that order.
+ * The keys of a small object are kept in an array and compared one at a
+ * time; a hash table is built for them once there are more than a few.
+ * <p>
+ * A JSONObject read from a lazy JSONTokener (see
+ * <code>JSONTokener.setLazy</code>) parses each value only when it is first
+ * got. For such an object an <code>opt</code> method treats a value with a
+ * syntax error as missing, while a <code>get</code> method throws the error.
+ * <p>
  * The generic <code>get()</code> and <code>opt()</code> methods return an
  * object, which you can cast or query for type. There are also typed
  * <code>get</code> and <code>opt</code> methods that do type checking and type
@@ -90,7 +101,7 @@ import java.util.ResourceBundle;
  * </ul>
  *
  * @author JSON.org
- * @version 2012-05-29
+ * @version 2026-10-18
  */
 public class JSONObject {
 
@@ -131,9 +142,165 @@ public class JSONObject {
 
 
     /**
-     * The map where the JSONObject's properties are kept.
+     * The getters of a class, found by reflection once and then kept, so that
+     * converting many beans of the same class does not look through its
+     * methods again. The getters themselves are kept only if the class cannot
+     * be unloaded before JSONObject is. Otherwise only their names are kept,
+     * and each is looked up by name when it is called.
+     */
+    private static final class Accessors {
+
+        /**
+         * The keys, at the same indexes as their getters.
+         */
+        final String[] keys;
+
+        /**
+         * The getters, or null if only their names are kept.
+         */
+        final Method[] methods;
+
+        /**
+         * The names of the getters.
+         */
+        final String[] names;
+
+        /**
+         * True if wrap turns an object of the class into a string, because
+         * the class is a system class or is in a java or javax package.
+         */
+        final boolean string;
+
+        Accessors(Class klass) {
+            ArrayList keys = new ArrayList();
+            ArrayList methods = new ArrayList();
+
+// If klass is a System class then set includeSuperClass to false.
+
+            boolean includeSuperClass = klass.getClassLoader() != null;
+
+            Method[] candidates = includeSuperClass
+                    ? klass.getMethods()
+                    : klass.getDeclaredMethods();
+            for (int i = 0; i < candidates.length; i += 1) {
+                Method method = candidates[i];
+                if (Modifier.isPublic(method.getModifiers())) {
+                    String name = method.getName();
+                    String key = "";
+                    if (name.startsWith("get")) {
+                        if ("getClass".equals(name) ||
+                                "getDeclaringClass".equals(name)) {
+                            key = "";
+                        } else {
+                            key = name.substring(3);
+                        }
+                    } else if (name.startsWith("is")) {
+                        key = name.substring(2);
+                    }
+                    if (key.length() > 0 &&
+                            Character.isUpperCase(key.charAt(0)) &&
+                            method.getParameterTypes().length == 0) {
+                        if (key.length() == 1) {
+                            key = key.toLowerCase();
+                        } else if (!Character.isUpperCase(key.charAt(1))) {
+                            key = key.substring(0, 1).toLowerCase() +
+                                key.substring(1);
+                        }
+                        keys.add(key);
+                        methods.add(method);
+                    }
+                }
+            }
+            this.keys = (String[])keys.toArray(new String[keys.size()]);
+            this.names = new String[methods.size()];
+            for (int i = 0; i < this.names.length; i += 1) {
+                this.names[i] = ((Method)methods.get(i)).getName();
+            }
+            this.methods = isKept(klass.getClassLoader())
+                ? (Method[])methods.toArray(new Method[methods.size()])
+                : null;
+            Package objectPackage = klass.getPackage();
+            String objectPackageName = objectPackage != null
+                ? objectPackage.getName()
+                : "";
+            this.string = objectPackageName.startsWith("java.") ||
+                objectPackageName.startsWith("javax.") ||
+                !includeSuperClass;
+        }
+    }
+
+
+    /**
+     * The Accessors of each class that has been converted, kept until the
+     * class is unloaded. The classes are held weakly and the Accessors
+     * strongly. Accessors hold Methods, which hold their class, only for a
+     * class loaded by JSONObject's class loader or one of its parents, which
+     * cannot be unloaded before JSONObject is anyway. The Accessors of a class
+     * from any other class loader hold only names, so nothing in the cache
+     * keeps the class, or its class loader, from being unloaded. A class that
+     * is loaded again by another class loader is another key.
+     */
+    private static final Map ACCESSORS = new WeakHashMap();
+
+
+    /**
+     * The number of keys above which keys are found through the hash table
+     * rather than by comparing them one at a time.
+     */
+    private static final int HASH_THRESHOLD = 8;
+
+    /**
+     * The keys and values of an empty JSONObject.
+     */
+    private static final Object[] EMPTY = new Object[0];
+
+    /**
+     * Marks the slot of a key that was removed from the middle of keys, so
+     * that removing does not have to move the keys after it.
+     */
+    private static final Object REMOVED = new Object();
+
+    /**
+     * The keys, in the order in which they were first put, with REMOVED in
+     * the slots of removed keys.
+     */
+    private Object[] keys;
+
+    /**
+     * The number of slots in use in keys and values, including those marked
+     * REMOVED.
+     */
+    private int length;
+
+    /**
+     * The number of slots marked REMOVED. They are reclaimed all at once,
+     * when keys is next reallocated.
+     */
+    private int removed;
+
+    /**
+     * For a lazy JSONObject, the buffer position in the source's text of each
+     * value that has not been parsed yet. Otherwise null.
+     */
+    private int[] offsets;
+
+    /**
+     * For a lazy JSONObject, the JSONTokener whose text holds the values that
+     * have not been parsed yet. Otherwise null.
+     */
+    private JSONTokener source;
+
+    /**
+     * When there are more than HASH_THRESHOLD keys, an open addressing hash
+     * table holding the index of each key plus one, with 0 for an empty slot.
+     * Otherwise null.
+     */
+    private int[] table;
+
+    /**
+     * The values, at the same indexes as their keys.
      */
-    private final Map map;
+    private Object[] values;
 
 
     /**
@@ -149,7 +316,9 @@ public class JSONObject {
      * Construct an empty JSONObject.
      */
     public JSONObject() {
-        this.map = new HashMap();
+        this.keys = EMPTY;
+        this.length = 0;
+        this.values = EMPTY;
     }
 
 
@@ -176,17 +345,31 @@ public class JSONObject {
     /**
      * Construct a JSONObject from a JSONTokener.
      * @param x A JSONTokener object containing the source string.
-     * @throws JSONException If there is a syntax error in the source string
-     *  or a duplicated key.
+     * @throws JSONException If there is a syntax error in the source string,
+     *  a duplicated key, or nesting deeper than x.getMaxDepth().
      */
     public JSONObject(JSONTokener x) throws JSONException {
         this();
-        char c;
-        String key;
-
         if (x.nextClean() != '{') {
             throw x.syntaxError("A JSONObject text must begin with '{'");
         }
+        x.enter();
+        try {
+            this.readMembers(x);
+        } finally {
+            x.leave();
+        }
+    }
+
+
+    /**
+     * Read the members of an object from a JSONTokener, through the closing
+     * '}'.
+     */
+    private void readMembers(JSONTokener x) throws JSONException {
+        char c;
+        String key;
+
         for (;;) {
             c = x.nextClean();
             switch (c) {
@@ -196,7 +379,7 @@ public class JSONObject {
                 return;
             default:
                 x.back();
-                key = x.nextValue().toString();
+                key = x.nextKey();
             }
 
 // The key is followed by ':'. We will also tolerate '=' or '=>'.
@@ -209,7 +392,11 @@ public class JSONObject {
             } else if (c != ':') {
                 throw x.syntaxError("Expected a ':' after a key");
             }
-            this.putOnce(key, x.nextValue());
+            if (x.isLazy()) {
+                this.putLazy(key, x);
+            } else {
+                this.putOnce(key, x.nextValue());
+            }
 
 // Pairs are separated by ','. We will also tolerate ';'.
 
@@ -238,14 +425,14 @@ public class JSONObject {
      * @throws JSONException
      */
     public JSONObject(Map map) {
-        this.map = new HashMap();
+        this();
         if (map != null) {
             Iterator i = map.entrySet().iterator();
             while (i.hasNext()) {
                 Map.Entry e = (Map.Entry)i.next();
                 Object value = e.getValue();
                 if (value != null) {
-                    this.map.put(e.getKey(), wrap(value));
+                    this.set(e.getKey(), wrap(value));
                 }
             }
         }
@@ -268,12 +455,15 @@ public class JSONObject {
      * if the result of calling <code>object.getName()</code> is <code>"Larry Fine"</code>,
      * then the JSONObject will contain <code>"name": "Larry Fine"</code>.
      *
+     * The getters of each class are found once, and kept for later beans of
+     * the same class.
+     *
      * @param bean An object that has getter methods that should be used
      * to make a JSONObject.
      */
     public JSONObject(Object bean) {
         this();
-        this.populateMap(bean);
+        this.populateMap(bean, accessors(bean.getClass()));
     }
 
 
@@ -454,7 +644,8 @@ public class JSONObject {
         if (key == null) {
             throw new JSONException("Null key.");
         }
-        Object object = this.opt(key);
+        int i = this.indexOf(key);
+        Object object = i < 0 ? null : this.parsedValue(i);
         if (object == null) {
             throw new JSONException("JSONObject[" + quote(key) +
                     "] not found.");
@@ -652,7 +843,7 @@ public class JSONObject {
      * @return      true if the key exists in the JSONObject.
      */
     public boolean has(String key) {
-        return this.map.containsKey(key);
+        return this.indexOf(key) >= 0;
     }
 
 
@@ -697,12 +888,64 @@ public class JSONObject {
 
 
     /**
-     * Get an enumeration of the keys of the JSONObject.
+     * Get an enumeration of the keys of the JSONObject, in the order in which
+     * they were first put.
      *
      * @return An iterator of the keys.
      */
     public Iterator keys() {
-        return this.map.keySet().iterator();
+        return new Iterator() {
+
+// The slot after the last key returned, and the number of REMOVED slots
+// before it. When keys is reallocated, those slots are reclaimed and the
+// ones after move down.
+
+            private int index = 0;
+            private Object[] keys = JSONObject.this.keys;
+            private boolean removable = false;
+            private int skipped = 0;
+
+            public boolean hasNext() {
+                this.sync();
+                while (this.index < JSONObject.this.length &&
+                        this.keys[this.index] == REMOVED) {
+                    this.index += 1;
+                    this.skipped += 1;
+                }
+                return this.index < JSONObject.this.length;
+            }
+
+            public Object next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                this.index += 1;
+                this.removable = true;
+                return this.keys[this.index - 1];
+            }
+
+            public void remove() {
+                if (!this.removable) {
+                    throw new IllegalStateException();
+                }
+                this.sync();
+                this.removable = false;
+                JSONObject.this.removeAt(this.index - 1);
+                if (this.index > JSONObject.this.length) {
+                    this.index -= 1;
+                } else {
+                    this.skipped += 1;
+                }
+            }
+
+            private void sync() {
+                if (this.keys != JSONObject.this.keys) {
+                    this.index -= this.skipped;
+                    this.skipped = 0;
+                    this.keys = JSONObject.this.keys;
+                }
+            }
+        };
     }
 
 
@@ -712,7 +955,7 @@ public class JSONObject {
      * @return The number of keys in the JSONObject.
      */
     public int length() {
-        return this.map.size();
+        return this.length - this.removed;
     }
 
 
@@ -766,7 +1009,18 @@ public class JSONObject {
      * @return      An object which is the value, or null if there is no value.
      */
     public Object opt(String key) {
-        return key == null ? null : this.map.get(key);
+        if (key == null) {
+            return null;
+        }
+        int i = this.indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        try {
+            return this.parsedValue(i);
+        } catch (JSONException e) {
+            return null;
+        }
     }
 
 
@@ -955,47 +1209,60 @@ public class JSONObject {
     }
 
 
-    private void populateMap(Object bean) {
-        Class klass = bean.getClass();
+    /**
+     * Get the Accessors of a class, finding them if they are not in the
+     * cache. The lock is not held while they are found.
+     */
+    private static Accessors accessors(Class klass) {
+        Accessors accessors;
+        synchronized (ACCESSORS) {
+            accessors = (Accessors)ACCESSORS.get(klass);
+        }
+        if (accessors == null) {
+            accessors = new Accessors(klass);
+            synchronized (ACCESSORS) {
+                ACCESSORS.put(klass, accessors);
+            }
+        }
+        return accessors;
+    }
 
-// If klass is a System class then set includeSuperClass to false.
 
-        boolean includeSuperClass = klass.getClassLoader() != null;
+    /**
+     * Determine if a class loader is JSONObject's or one of its parents, so
+     * that the classes it loads cannot be unloaded before JSONObject is.
+     * @param loader A class loader, or null for the bootstrap class loader.
+     */
+    private static boolean isKept(ClassLoader loader) {
+        if (loader == null) {
+            return true;
+        }
+        try {
+            ClassLoader parent = JSONObject.class.getClassLoader();
+            while (parent != null) {
+                if (parent == loader) {
+                    return true;
+                }
+                parent = parent.getParent();
+            }
+        } catch (SecurityException ignore) {
+        }
+        return false;
+    }
 
-        Method[] methods = includeSuperClass
-                ? klass.getMethods()
-                : klass.getDeclaredMethods();
-        for (int i = 0; i < methods.length; i += 1) {
-            try {
-                Method method = methods[i];
-                if (Modifier.isPublic(method.getModifiers())) {
-                    String name = method.getName();
-                    String key = "";
-                    if (name.startsWith("get")) {
-                        if ("getClass".equals(name) ||
-                                "getDeclaringClass".equals(name)) {
-                            key = "";
-                        } else {
-                            key = name.substring(3);
-                        }
-                    } else if (name.startsWith("is")) {
-                        key = name.substring(2);
-                    }
-                    if (key.length() > 0 &&
-                            Character.isUpperCase(key.charAt(0)) &&
-                            method.getParameterTypes().length == 0) {
-                        if (key.length() == 1) {
-                            key = key.toLowerCase();
-                        } else if (!Character.isUpperCase(key.charAt(1))) {
-                            key = key.substring(0, 1).toLowerCase() +
-                                key.substring(1);
-                        }
 
-                        Object result = method.invoke(bean, (Object[])null);
-                        if (result != null) {
-                            this.map.put(key, wrap(result));
-                        }
-                    }
+    private void populateMap(Object bean, Accessors accessors) {
+        String[] keys = accessors.keys;
+        Method[] methods = accessors.methods;
+        for (int i = 0; i < keys.length; i += 1) {
+            try {
+                Method method = methods != null
+                    ? methods[i]
+                    : bean.getClass().getMethod(accessors.names[i],
+                            (Class[])null);
+                Object result = method.invoke(bean, (Object[])null);
+                if (result != null) {
+                    this.set(keys[i], wrap(result));
                 }
             } catch (Exception ignore) {
             }
@@ -1104,7 +1371,7 @@ public class JSONObject {
         }
         if (value != null) {
             testValidity(value);
-            this.map.put(key, value);
+            this.set(key, value);
         } else {
             this.remove(key);
         }
@@ -1159,15 +1426,10 @@ public class JSONObject {
      * @return  A String correctly formatted for insertion in a JSON text.
      */
     public static String quote(String string) {
-        StringWriter sw = new StringWriter();
-        synchronized (sw.getBuffer()) {
-            try {
-                return quote(string, sw).toString();
-            } catch (IOException ignored) {
-                // will never happen - we are writing to a string writer
-                return "";
-            }
+        if (string == null || string.length() == 0) {
+            return "\"\"";
         }
+        return JSONSerializer.quote(string);
     }
 
     public static Writer quote(String string, Writer w) throws IOException {
@@ -1175,66 +1437,273 @@ public class JSONObject {
             w.write("\"\"");
             return w;
         }
+        JSONSerializer.quote(string, w);
+        return w;
+    }
 
-        char b;
-        char c = 0;
-        String hhhh;
-        int i;
-        int len = string.length();
+    /**
+     * Remove a name and its value, if present. A value that was left
+     * unparsed is parsed first so that it can be returned, and as with opt,
+     * null is returned if it has a syntax error.
+     * @param key The name to be removed.
+     * @return The value that was associated with the name,
+     * or null if there was no value.
+     */
+    public Object remove(String key) {
+        int i = this.indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        Object value;
+        try {
+            value = this.parsedValue(i);
+        } catch (JSONException e) {
+            value = null;
+        }
+        this.removeAt(i);
+        return value;
+    }
 
-        w.write('"');
-        for (i = 0; i < len; i += 1) {
-            b = c;
-            c = string.charAt(i);
-            switch (c) {
-            case '\\':
-            case '"':
-                w.write('\\');
-                w.write(c);
-                break;
-            case '/':
-                if (b == '<') {
-                    w.write('\\');
+
+    /**
+     * Get the key at an index, in the order of keys().
+     */
+    Object keyAt(int index) {
+        if (this.removed > 0) {
+            this.reallocate(this.keys.length);
+        }
+        return this.keys[index];
+    }
+
+
+    /**
+     * Get the value of the key at an index, in the order of keys(), parsing
+     * it first if it was left unparsed.
+     * @throws JSONException If the value has a syntax error.
+     */
+    Object valueAt(int index) throws JSONException {
+        if (this.removed > 0) {
+            this.reallocate(this.keys.length);
+        }
+        return this.parsedValue(index);
+    }
+
+
+    /**
+     * Get the value in a slot, parsing it first if it was left unparsed.
+     * @throws JSONException If the value has a syntax error.
+     */
+    private Object parsedValue(int index) throws JSONException {
+        Object value = this.values[index];
+        if (value == null && this.source != null) {
+            value = new JSONTokener(this.source, this.offsets[index])
+                .nextValue();
+            this.values[index] = value;
+        }
+        return value;
+    }
+
+
+    /**
+     * Put a key whose value is left unparsed in the text of a lazy
+     * JSONTokener, to be parsed when it is first got.
+     * @throws JSONException If the value is unterminated or the key is a
+     *  duplicate.
+     */
+    private void putLazy(String key, JSONTokener x) throws JSONException {
+        int offset = x.skipValue();
+        if (this.indexOf(key) >= 0) {
+            throw new JSONException("Duplicate key \"" + key + "\"");
+        }
+        this.set(key, null);
+        if (this.offsets == null || this.offsets.length < this.keys.length) {
+            int[] grown = new int[this.keys.length];
+            if (this.offsets != null) {
+                System.arraycopy(this.offsets, 0, grown, 0, this.length - 1);
+            }
+            this.offsets = grown;
+        }
+        this.offsets[this.length - 1] = offset;
+        this.source = x;
+    }
+
+
+    /**
+     * Find a key.
+     * @param key A key, which may be null only if it came from a Map.
+     * @return The index of the key, or -1 if it is not present.
+     */
+    private int indexOf(Object key) {
+        if (this.table == null) {
+            for (int i = 0; i < this.length; i += 1) {
+                Object k = this.keys[i];
+                if (k == key || (key != null && key.equals(k))) {
+                    return i;
                 }
-                w.write(c);
-                break;
-            case '\b':
-                w.write("\\b");
-                break;
-            case '\t':
-                w.write("\\t");
-                break;
-            case '\n':
-                w.write("\\n");
-                break;
-            case '\f':
-                w.write("\\f");
-                break;
-            case '\r':
-                w.write("\\r");
-                break;
-            default:
-                if (c < ' ' || (c >= '\u0080' && c < '\u00a0')
-                        || (c >= '\u2000' && c < '\u2100')) {
-                    hhhh = "000" + Integer.toHexString(c);
-                    w.write("\\u" + hhhh.substring(hhhh.length() - 4));
-                } else {
-                    w.write(c);
+            }
+            return -1;
+        }
+        int mask = this.table.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int i = this.table[slot] - 1;
+            if (i < 0) {
+                return -1;
+            }
+            Object k = this.keys[i];
+            if (k == key || (key != null && key.equals(k))) {
+                return i;
+            }
+        }
+    }
+
+
+    /**
+     * Replace the value of a key, or add the key after the others.
+     */
+    private void set(Object key, Object value) {
+        int i = this.indexOf(key);
+        if (i >= 0) {
+            this.values[i] = value;
+            return;
+        }
+        if (this.length == this.keys.length) {
+            int live = this.length - this.removed;
+            this.reallocate(live < 4 ? 4 : live * 2);
+        }
+        this.keys[this.length] = key;
+        this.values[this.length] = value;
+        this.length += 1;
+        if (this.table != null && this.length * 2 <= this.table.length) {
+            this.insert(this.length - 1);
+        } else if (this.length > HASH_THRESHOLD) {
+            this.rehash();
+        }
+    }
+
+
+    /**
+     * Remove the key in a slot. The value is dropped as it is, without being
+     * parsed. The keys after it are not moved; the slot is marked REMOVED
+     * unless it is the last one, and once half of the slots are marked,
+     * keys is reallocated without them.
+     */
+    private void removeAt(int index) {
+        if (this.table != null) {
+            this.unindex(index);
+        }
+        this.values[index] = null;
+        if (index == this.length - 1) {
+            this.keys[index] = null;
+            this.length -= 1;
+        } else {
+            this.keys[index] = REMOVED;
+            this.removed += 1;
+            if (this.removed * 2 > this.length) {
+                this.reallocate(this.keys.length);
+            }
+        }
+    }
+
+
+    /**
+     * Take the key in a slot out of the hash table. Later members of its
+     * cluster are shifted back into the hole, unless that would put one
+     * before the table slot its probe sequence starts at.
+     */
+    private void unindex(int index) {
+        int[] table = this.table;
+        int mask = table.length - 1;
+        int hole = hash(this.keys[index]) & mask;
+        while (table[hole] != index + 1) {
+            hole = (hole + 1) & mask;
+        }
+        for (int slot = (hole + 1) & mask; table[slot] != 0;
+                slot = (slot + 1) & mask) {
+            int home = hash(this.keys[table[slot] - 1]) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                table[hole] = table[slot];
+                hole = slot;
+            }
+        }
+        table[hole] = 0;
+    }
+
+
+    /**
+     * Copy the keys and values into new arrays, leaving out the slots marked
+     * REMOVED, and index them again. The arrays are always new, which is how
+     * an iterator of keys() knows that the slots have moved.
+     */
+    private void reallocate(int capacity) {
+        Object[] keys = new Object[capacity];
+        Object[] values = new Object[capacity];
+        int[] offsets = this.offsets == null ? null : new int[capacity];
+        int length = 0;
+        for (int i = 0; i < this.length; i += 1) {
+            if (this.keys[i] != REMOVED) {
+                keys[length] = this.keys[i];
+                values[length] = this.values[i];
+
+// Keys put after the object was read may have no offsets.
+
+                if (offsets != null && i < this.offsets.length) {
+                    offsets[length] = this.offsets[i];
                 }
+                length += 1;
+            }
+        }
+        this.keys = keys;
+        this.values = values;
+        this.offsets = offsets;
+        this.length = length;
+        if (this.removed > 0) {
+            this.removed = 0;
+            if (length > HASH_THRESHOLD) {
+                this.rehash();
+            } else {
+                this.table = null;
             }
         }
-        w.write('"');
-        return w;
     }
 
+
     /**
-     * Remove a name and its value, if present.
-     * @param key The name to be removed.
-     * @return The value that was associated with the name,
-     * or null if there was no value.
+     * Build the hash table for the current keys, with at least twice as many
+     * slots as keys.
      */
-    public Object remove(String key) {
-        return this.map.remove(key);
+    private void rehash() {
+        int capacity = 32;
+        while (capacity < this.length * 2) {
+            capacity *= 2;
+        }
+        this.table = new int[capacity];
+        for (int i = 0; i < this.length; i += 1) {
+            if (this.keys[i] != REMOVED) {
+                this.insert(i);
+            }
+        }
+    }
+
+
+    /**
+     * Put the index of a key into the first free slot of its probe sequence.
+     */
+    private void insert(int index) {
+        int mask = this.table.length - 1;
+        int slot = hash(this.keys[index]) & mask;
+        while (this.table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        this.table[slot] = index + 1;
+    }
+
+
+    private static int hash(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
     }
 
     /**
@@ -1276,9 +1745,9 @@ public class JSONObject {
                         return d;
                     }
                 } else {
-                    Long myLong = new Long(string);
+                    Long myLong = Long.valueOf(string);
                     if (myLong.longValue() == myLong.intValue()) {
-                        return new Integer(myLong.intValue());
+                        return Integer.valueOf(myLong.intValue());
                     } else {
                         return myLong;
                     }
@@ -1290,6 +1759,155 @@ public class JSONObject {
     }
 
 
+    /**
+     * Convert the trimmed text chars[start..end) the same way stringToValue
+     * does. The common forms (true, false, null, integers that fit in a long
+     * and short decimals) are recognized in place, so no String is made for
+     * them. Anything else is handed to stringToValue.
+     * @param chars The characters.
+     * @param start The index of the first character.
+     * @param end The index after the last character.
+     * @return A simple JSON value.
+     */
+    static Object stringToValue(char[] chars, int start, int end) {
+        int length = end - start;
+        if (length == 4) {
+            if (matchesIgnoreCase(chars, start, "true")) {
+                return Boolean.TRUE;
+            }
+            if (matchesIgnoreCase(chars, start, "null")) {
+                return JSONObject.NULL;
+            }
+        } else if (length == 5 && matchesIgnoreCase(chars, start, "false")) {
+            return Boolean.FALSE;
+        }
+        if (length > 0) {
+            Object number = scanNumber(chars, start, end);
+            if (number != null) {
+                return number;
+            }
+        }
+        return stringToValue(new String(chars, start, length));
+    }
+
+
+    /**
+     * Compare chars against a lower case ASCII word, ignoring the case of
+     * ASCII letters. Other characters that String.equalsIgnoreCase would
+     * match are left for stringToValue.
+     */
+    private static boolean matchesIgnoreCase(char[] chars, int start,
+            String word) {
+        for (int i = 0; i < word.length(); i += 1) {
+            if ((chars[start + i] | 0x20) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Exact powers of ten that can be represented in a double.
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+
+    /**
+     * Scan a number of the form -digits.digitsE-digits in place. Integers
+     * that fit in a long become an Integer or a Long, as in stringToValue.
+     * A decimal is converted only when it has at most 15 significant digits
+     * and an exponent of at most 22, where a single multiply or divide by an
+     * exact power of ten gives the correctly rounded result that
+     * Double.valueOf would.
+     * @return The number, or null if the text is not in this form.
+     */
+    private static Object scanNumber(char[] chars, int start, int end) {
+        int i = start;
+        boolean negative = chars[i] == '-';
+        if (negative) {
+            i += 1;
+        }
+        long significand = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean decimal = false;
+        boolean fraction = false;
+        boolean seenDigit = false;
+        for (; i < end; i += 1) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                seenDigit = true;
+                if (significand != 0 || c != '0') {
+                    if (digits == 18) {
+                        return null;
+                    }
+                    significand = significand * 10 + (c - '0');
+                    digits += 1;
+                }
+                if (fraction) {
+                    exponent -= 1;
+                }
+            } else if (c == '.' && !fraction) {
+                decimal = true;
+                fraction = true;
+            } else if ((c == 'e' || c == 'E') && seenDigit) {
+                decimal = true;
+                break;
+            } else {
+                return null;
+            }
+        }
+        if (!seenDigit) {
+            return null;
+        }
+        if (i < end) {
+
+// Scan the exponent after the 'e'.
+
+            i += 1;
+            boolean negativeExponent = false;
+            if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+                negativeExponent = chars[i] == '-';
+                i += 1;
+            }
+            if (i == end || end - i > 4) {
+                return null;
+            }
+            int e = 0;
+            for (; i < end; i += 1) {
+                char c = chars[i];
+                if (c < '0' || c > '9') {
+                    return null;
+                }
+                e = e * 10 + (c - '0');
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        if (!decimal) {
+            long value = negative ? -significand : significand;
+            if (value == (int) value) {
+                return Integer.valueOf((int) value);
+            }
+            return Long.valueOf(value);
+        }
+        double d;
+        if (significand == 0) {
+            d = 0;
+        } else if (digits > 15 || exponent < -22 || exponent > 22) {
+            return null;
+        } else if (exponent < 0) {
+            d = significand / POWERS_OF_TEN[-exponent];
+        } else {
+            d = significand * POWERS_OF_TEN[exponent];
+        }
+        return Double.valueOf(negative ? -d : d);
+    }
+
+
     /**
      * Throw an exception if the object is a NaN or infinite number.
      * @param o The object to test.
@@ -1334,7 +1952,9 @@ public class JSONObject {
     /**
      * Make a JSON text of this JSONObject. For compactness, no whitespace
      * is added. If this would not result in a syntactically correct JSON text,
-     * then null will be returned instead.
+     * then null will be returned instead. This could occur if it holds an
+     * invalid number, or if it is nested deeper than the 1000 levels that
+     * JSONSerializer writes.
      * <p>
      * Warning: This method assumes that the data structure is acyclical.
      *
@@ -1362,13 +1982,11 @@ public class JSONObject {
      *  representation of the object, beginning
      *  with <code>{</code>&nbsp;<small>(left brace)</small> and ending
      *  with <code>}</code>&nbsp;<small>(right brace)</small>.
-     * @throws JSONException If the object contains an invalid number.
+     * @throws JSONException If the object contains an invalid number, or is
+     *  nested deeper than 1000 levels.
      */
     public String toString(int indentFactor) throws JSONException {
-        StringWriter w = new StringWriter();
-        synchronized (w.getBuffer()) {
-            return this.write(w, indentFactor, 0).toString();
-        }
+        return JSONSerializer.toString(this, indentFactor);
     }
 
     /**
@@ -1463,18 +2081,13 @@ public class JSONObject {
              if (object instanceof Map) {
                  return new JSONObject((Map)object);
              }
-             Package objectPackage = object.getClass().getPackage();
-             String objectPackageName = objectPackage != null
-                 ? objectPackage.getName()
-                 : "";
-             if (
-                 objectPackageName.startsWith("java.") ||
-                 objectPackageName.startsWith("javax.") ||
-                 object.getClass().getClassLoader() == null
-             ) {
+             Accessors accessors = accessors(object.getClass());
+             if (accessors.string) {
                  return object.toString();
              }
-             return new JSONObject(object);
+             JSONObject jo = new JSONObject();
+             jo.populateMap(object, accessors);
+             return jo;
          } catch(Exception exception) {
              return null;
          }
@@ -1495,45 +2108,6 @@ public class JSONObject {
     }
 
 
-    static final Writer writeValue(Writer writer, Object value,
-            int indentFactor, int indent) throws JSONException, IOException {
-        if (value == null || value.equals(null)) {
-            writer.write("null");
-        } else if (value instanceof JSONObject) {
-            ((JSONObject) value).write(writer, indentFactor, indent);
-        } else if (value instanceof JSONArray) {
-            ((JSONArray) value).write(writer, indentFactor, indent);
-        } else if (value instanceof Map) {
-            new JSONObject((Map) value).write(writer, indentFactor, indent);
-        } else if (value instanceof Collection) {
-            new JSONArray((Collection) value).write(writer, indentFactor,
-                    indent);
-        } else if (value.getClass().isArray()) {
-            new JSONArray(value).write(writer, indentFactor, indent);
-        } else if (value instanceof Number) {
-            writer.write(numberToString((Number) value));
-        } else if (value instanceof Boolean) {
-            writer.write(value.toString());
-        } else if (value instanceof JSONString) {
-            Object o;
-            try {
-                o = ((JSONString) value).toJSONString();
-            } catch (Exception e) {
-                throw new JSONException(e);
-            }
-            writer.write(o != null ? o.toString() : quote(value.toString()));
-        } else {
-            quote(value.toString(), writer);
-        }
-        return writer;
-    }
-
-    static final void indent(Writer writer, int indent) throws IOException {
-        for (int i = 0; i < indent; i += 1) {
-            writer.write(' ');
-        }
-    }
-
     /**
      * Write the contents of the JSONObject as JSON text to a writer. For
      * compactness, no whitespace is added.
@@ -1545,49 +2119,6 @@ public class JSONObject {
      */
     Writer write(Writer writer, int indentFactor, int indent)
             throws JSONException {
-        try {
-            boolean commanate = false;
-            final int length = this.length();
-            Iterator keys = this.keys();
-            writer.write('{');
-
-            if (length == 1) {
-                Object key = keys.next();
-                writer.write(quote(key.toString()));
-                writer.write(':');
-                if (indentFactor > 0) {
-                    writer.write(' ');
-                }
-                writeValue(writer, this.map.get(key), indentFactor, indent);
-            } else if (length != 0) {
-                final int newindent = indent + indentFactor;
-                while (keys.hasNext()) {
-                    Object key = keys.next();
-                    if (commanate) {
-                        writer.write(',');
-                    }
-                    if (indentFactor > 0) {
-                        writer.write('\n');
-                    }
-                    indent(writer, newindent);
-                    writer.write(quote(key.toString()));
-                    writer.write(':');
-                    if (indentFactor > 0) {
-                        writer.write(' ');
-                    }
-                    writeValue(writer, this.map.get(key), indentFactor,
-                            newindent);
-                    commanate = true;
-                }
-                if (indentFactor > 0) {
-                    writer.write('\n');
-                }
-                indent(writer, indent);
-            }
-            writer.write('}');
-            return writer;
-        } catch (IOException exception) {
-            throw new JSONException(exception);
-        }
-     }
+        return JSONSerializer.write(writer, this, indentFactor, indent);
+    }
 }
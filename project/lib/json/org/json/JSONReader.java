@@ -0,0 +1,480 @@
+package org.json;
+
+import java.io.Reader;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+/**
+ * JSONReader reads a JSON text one event at a time, without building
+ * JSONObjects or JSONArrays for it. It is the reading counterpart of
+ * JSONWriter. Each call to <code>next</code> returns the next event:
+ * <code>START_OBJECT</code>, <code>KEY</code>, <code>VALUE</code>,
+ * <code>END_OBJECT</code>, <code>START_ARRAY</code>, <code>END_ARRAY</code>,
+ * and finally <code>END_DOCUMENT</code>. For example, <pre>
+ * JSONReader reader = new JSONReader(myReader);
+ * reader.next();                               // START_ARRAY
+ * while (reader.next() == JSONReader.START_OBJECT) {
+ *     while (reader.next() == JSONReader.KEY) {
+ *         if (reader.getKey().equals("name")) {
+ *             reader.next();                   // VALUE
+ *             names.add(reader.getValue());
+ *         } else {
+ *             reader.skip();
+ *         }
+ *     }
+ * }</pre>
+ * reads the name of every object in an array, holding only one value at a
+ * time.
+ * <p>
+ * The reader accepts the same texts as the JSONObject and JSONArray
+ * constructors, including their non-standard forms, except that duplicate
+ * keys are not detected. Unlike those constructors, the outermost value can
+ * be any value. The reader holds one character per level of nesting, so a
+ * large text can be read in constant memory.
+ * @author JSON.org
+ * @version 2026-10-18
+ */
+public class JSONReader {
+
+    /**
+     * The event for a '{' that begins an object.
+     */
+    public static final int START_OBJECT = 1;
+
+    /**
+     * The event for a '}' that ends an object.
+     */
+    public static final int END_OBJECT = 2;
+
+    /**
+     * The event for a '[' that begins an array.
+     */
+    public static final int START_ARRAY = 3;
+
+    /**
+     * The event for a ']' that ends an array.
+     */
+    public static final int END_ARRAY = 4;
+
+    /**
+     * The event for a key in an object. getKey returns the key.
+     */
+    public static final int KEY = 5;
+
+    /**
+     * The event for a value that is not an object or array. getValue returns
+     * the value, which is a Boolean, Double, Integer, Long, String, or the
+     * JSONObject.NULL object.
+     */
+    public static final int VALUE = 6;
+
+    /**
+     * The event after the outermost value has ended. Every later call to
+     * next returns it again.
+     */
+    public static final int END_DOCUMENT = 7;
+
+    /**
+     * The last event returned by next, or 0 before the first call.
+     */
+    private int event;
+
+    /**
+     * The key of the last KEY event.
+     */
+    private String key;
+
+    /**
+     * The current mode. Values:
+     * 'a' (array, next is an element or ']'),
+     * 'A' (array, after an element),
+     * 'd' (done),
+     * 'i' (initial),
+     * 'k' (object, after a key),
+     * 'o' (object, next is a key or '}'),
+     * 'O' (object, after a value).
+     */
+    private char mode;
+
+    /**
+     * The modes to return to when the open objects and arrays end.
+     */
+    private char stack[];
+
+    /**
+     * The stack top index. A value of 0 indicates that the stack is empty.
+     */
+    private int top;
+
+    /**
+     * The value of the last VALUE event.
+     */
+    private Object value;
+
+    /**
+     * The tokener that supplies the text.
+     */
+    private final JSONTokener x;
+
+
+    /**
+     * Make a JSONReader that reads one JSON text from a JSONTokener.
+     * @param x A JSONTokener.
+     */
+    public JSONReader(JSONTokener x) {
+        this.event = 0;
+        this.mode = 'i';
+        this.stack = new char[16];
+        this.top = 0;
+        this.x = x;
+    }
+
+
+    /**
+     * Make a JSONReader that reads one JSON text from a Reader.
+     * @param reader A reader.
+     */
+    public JSONReader(Reader reader) {
+        this(new JSONTokener(reader));
+    }
+
+
+    /**
+     * Make a JSONReader that reads one JSON text from a string.
+     * @param source A JSON text.
+     */
+    public JSONReader(String source) {
+        this(new JSONTokener(source));
+    }
+
+
+    /**
+     * Get the number of objects and arrays that are open. It is 1 after the
+     * START_OBJECT of the outermost object, and 0 again after its END_OBJECT.
+     * @return The nesting depth.
+     */
+    public int getDepth() {
+        return this.top;
+    }
+
+
+    /**
+     * Get the last event returned by next.
+     * @return An event, or 0 if next has not been called.
+     */
+    public int getEvent() {
+        return this.event;
+    }
+
+
+    /**
+     * Get the key of the last KEY event.
+     * @return The key, or null if the last event was not KEY.
+     */
+    public String getKey() {
+        return this.event == KEY ? this.key : null;
+    }
+
+
+    /**
+     * Get the value of the last VALUE event.
+     * @return The value, or null if the last event was not VALUE.
+     */
+    public Object getValue() {
+        return this.event == VALUE ? this.value : null;
+    }
+
+
+    /**
+     * Read the next event.
+     * @return One of START_OBJECT, END_OBJECT, START_ARRAY, END_ARRAY, KEY,
+     * VALUE, or END_DOCUMENT.
+     * @throws JSONException If there is a syntax error.
+     */
+    public int next() throws JSONException {
+        char c;
+        switch (this.mode) {
+        case 'i':
+        case 'k':
+        case 'a':
+            return this.value();
+        case 'o':
+            c = this.x.nextClean();
+            switch (c) {
+            case 0:
+                throw this.x.syntaxError("A JSONObject text must end with '}'");
+            case '}':
+                return this.end(END_OBJECT);
+            default:
+                this.x.back();
+                this.key = this.x.nextKey();
+            }
+
+// The key is followed by ':'. We will also tolerate '=' or '=>'.
+
+            c = this.x.nextClean();
+            if (c == '=') {
+                if (this.x.next() != '>') {
+                    this.x.back();
+                }
+            } else if (c != ':') {
+                throw this.x.syntaxError("Expected a ':' after a key");
+            }
+            this.mode = 'k';
+            this.event = KEY;
+            return KEY;
+        case 'O':
+
+// Pairs are separated by ','. We will also tolerate ';'.
+
+            switch (this.x.nextClean()) {
+            case ';':
+            case ',':
+                this.mode = 'o';
+                return this.next();
+            case '}':
+                return this.end(END_OBJECT);
+            default:
+                throw this.x.syntaxError("Expected a ',' or '}'");
+            }
+        case 'A':
+            switch (this.x.nextClean()) {
+            case ';':
+            case ',':
+                this.mode = 'a';
+                return this.next();
+            case ']':
+                return this.end(END_ARRAY);
+            default:
+                throw this.x.syntaxError("Expected a ',' or ']'");
+            }
+        default:
+            this.event = END_DOCUMENT;
+            return END_DOCUMENT;
+        }
+    }
+
+
+    /**
+     * Read the next value whole. This is for use where next would return
+     * START_OBJECT, START_ARRAY, or VALUE, for example after a KEY event. An
+     * object or array is read into a JSONObject or JSONArray, and the reader
+     * moves past its end.
+     * @return A JSONObject, JSONArray, Boolean, Double, Integer, Long, String,
+     * or the JSONObject.NULL object.
+     * @throws JSONException If there is a syntax error, or if the next event
+     * is not the start of a value.
+     */
+    public Object nextValue() throws JSONException {
+        switch (this.next()) {
+        case START_OBJECT:
+            this.x.back();
+            this.value = new JSONObject(this.x);
+            break;
+        case START_ARRAY:
+            this.x.back();
+            this.value = new JSONArray(this.x);
+            break;
+        case VALUE:
+            return this.value;
+        default:
+            throw new JSONException("Misplaced value.");
+        }
+        this.pop();
+        this.event = VALUE;
+        return this.value;
+    }
+
+
+    /**
+     * Skip over the rest of a value without reading it. After START_OBJECT
+     * or START_ARRAY, the text up to the balancing '}' or ']' is skipped and
+     * the last event becomes END_OBJECT or END_ARRAY. After KEY, the key's
+     * value is skipped. After any other event nothing is skipped.
+     * <p>
+     * Skipped text is only checked for balanced brackets and terminated
+     * strings. No strings or numbers are made from it.
+     * @throws JSONException If the text ends inside the skipped value.
+     */
+    public void skip() throws JSONException {
+        switch (this.event) {
+        case START_OBJECT:
+        case START_ARRAY:
+            this.skipNested();
+            this.end(this.event == START_OBJECT ? END_OBJECT : END_ARRAY);
+            break;
+        case KEY:
+            switch (this.next()) {
+            case START_OBJECT:
+            case START_ARRAY:
+                this.skip();
+                break;
+            }
+            break;
+        }
+    }
+
+
+    /**
+     * Skip to the bracket that balances the one just read.
+     * @throws JSONException If the text ends first.
+     */
+    private void skipNested() throws JSONException {
+        int depth = 1;
+        boolean unquoted = false;
+        for (;;) {
+            char c = this.x.next();
+
+// Inside an unquoted value, quotes and spaces are part of the value, as in
+// JSONTokener.nextValue.
+
+            if (unquoted && JSONTokener.isUnquoted(c)) {
+                continue;
+            }
+            unquoted = false;
+            switch (c) {
+            case 0:
+                throw this.x.syntaxError(this.event == START_OBJECT
+                    ? "A JSONObject text must end with '}'"
+                    : "A JSONArray text must end with ']'");
+            case '"':
+            case '\'':
+                for (;;) {
+                    char s = this.x.next();
+                    if (s == 0 || s == '\n' || s == '\r') {
+                        throw this.x.syntaxError("Unterminated string");
+                    }
+                    if (s == '\\') {
+                        this.x.next();
+                    } else if (s == c) {
+                        break;
+                    }
+                }
+                break;
+            case '{':
+            case '[':
+                depth += 1;
+                break;
+            case '}':
+            case ']':
+                depth -= 1;
+                if (depth == 0) {
+                    return;
+                }
+                break;
+            case '=':
+                if (this.x.next() != '>') {
+                    this.x.back();
+                }
+                break;
+            default:
+                unquoted = c > ' ' && JSONTokener.isUnquoted(c);
+            }
+        }
+    }
+
+
+    /**
+     * Read a value where one is expected, either the start of an object or
+     * array or a simple value.
+     */
+    private int value() throws JSONException {
+        char c = this.x.nextClean();
+        if (c == '{') {
+            this.push('o');
+            this.event = START_OBJECT;
+            return START_OBJECT;
+        }
+        if (c == '[') {
+            this.push('a');
+            this.event = START_ARRAY;
+            return START_ARRAY;
+        }
+        if (c == ']' && this.mode == 'a') {
+            return this.end(END_ARRAY);
+        }
+        this.x.back();
+
+// An empty element in an array is null, as in the JSONArray constructor.
+
+        this.value = c == ',' && this.mode == 'a'
+            ? JSONObject.NULL
+            : this.x.nextValue();
+        this.mode = this.after(this.mode);
+        this.event = VALUE;
+        return VALUE;
+    }
+
+
+    /**
+     * End an object or array.
+     * @param event END_OBJECT or END_ARRAY.
+     */
+    private int end(int event) {
+        this.pop();
+        this.event = event;
+        return event;
+    }
+
+
+    /**
+     * Get the mode that follows a complete value read in a mode.
+     */
+    private char after(char mode) {
+        switch (mode) {
+        case 'a':
+            return 'A';
+        case 'k':
+            return 'O';
+        default:
+            return 'd';
+        }
+    }
+
+
+    /**
+     * Leave an object or array, returning to the mode of its parent.
+     */
+    private void pop() {
+        this.top -= 1;
+        this.mode = this.stack[this.top];
+    }
+
+
+    /**
+     * Enter an object or array.
+     * @param mode 'o' for an object, 'a' for an array.
+     */
+    private void push(char mode) {
+        if (this.top == this.stack.length) {
+            char[] grown = new char[this.stack.length * 2];
+            System.arraycopy(this.stack, 0, grown, 0, this.top);
+            this.stack = grown;
+        }
+        this.stack[this.top] = this.after(this.mode);
+        this.top += 1;
+        this.mode = mode;
+    }
+}
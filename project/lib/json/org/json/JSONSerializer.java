@@ -0,0 +1,815 @@
+package org.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+/**
+ * JSONSerializer writes values as JSON text into a char buffer. The text is
+ * the same as the toString and write methods of JSONObject and JSONArray
+ * produce, which are implemented with it.
+ * <p>
+ * A JSONSerializer made without a destination collects the text, which
+ * toString returns. One made with a Writer or an OutputStream passes the text
+ * on whenever the buffer fills, and on flush. An OutputStream receives the
+ * text encoded as UTF-8. Either way the buffer is reused, so a serializer
+ * kept by a request thread writes each response without allocating. Strings
+ * are escaped from a table, and a run of characters that need no escaping is
+ * copied into the buffer in one step.
+ * <p>
+ * Objects and arrays are written from an explicit stack rather than by
+ * recursion, so deeply nested values cannot overflow the thread's stack.
+ * Values nested deeper than 1000 levels, or than setMaxDepth allows, are
+ * refused with a JSONException, which is also how a cyclical structure is
+ * reported.
+ * <p>
+ * A JSONSerializer is not safe for use by more than one thread at a time.
+ * @author JSON.org
+ * @version 2026-10-18
+ */
+public class JSONSerializer {
+
+    /**
+     * The size of the char buffer.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * A buffer that grows past this size while collecting text is not kept
+     * for reuse.
+     */
+    private static final int MAX_REUSED_SIZE = 1 << 20;
+
+    /**
+     * The deepest nesting that is written unless setMaxDepth says otherwise.
+     */
+    static final int MAX_DEPTH = 1000;
+
+    /**
+     * For each ASCII character, 0 if it is written as is, 'u' if it is
+     * written as a \\u escape, or the character to write after a backslash.
+     * A '/' is only escaped after a '<'.
+     */
+    private static final char[] ESCAPES = new char[128];
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Each thread's serializer for toString.
+     */
+    private static final ThreadLocal reusable = new ThreadLocal();
+
+    static {
+        for (int c = 0; c < ' '; c += 1) {
+            ESCAPES[c] = 'u';
+        }
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\t'] = 't';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\f'] = 'f';
+        ESCAPES['\r'] = 'r';
+        ESCAPES['"'] = '"';
+        ESCAPES['\\'] = '\\';
+        ESCAPES['/'] = '/';
+    }
+
+    private char[] buffer;
+
+    /**
+     * The buffer for encoding the text as UTF-8, or null until needed.
+     */
+    private byte[] bytes;
+
+    /**
+     * The number of chars in the buffer.
+     */
+    private int count;
+
+    /**
+     * The JSONObjects and JSONArrays being written, outermost first.
+     */
+    private Object[] containers;
+
+    /**
+     * The indentation of the line that each container begins on.
+     */
+    private int[] indents;
+
+    /**
+     * True while the thread's reusable serializer is writing.
+     */
+    private boolean inUse;
+
+    /**
+     * The number of members or elements of each container.
+     */
+    private int[] lengths;
+
+    /**
+     * The deepest nesting of containers that will be written.
+     */
+    private int maxDepth;
+
+    /**
+     * The index of the next member or element of each container that has a
+     * container inside it being written.
+     */
+    private int[] positions;
+
+    /**
+     * The number of containers being written.
+     */
+    private int top;
+
+    private final OutputStream stream;
+
+    private final Writer writer;
+
+
+    /**
+     * Make a JSONSerializer that collects the text for toString.
+     */
+    public JSONSerializer() {
+        this(null, null);
+    }
+
+
+    /**
+     * Make a JSONSerializer that writes the text to an OutputStream as UTF-8.
+     * @param stream An output stream.
+     */
+    public JSONSerializer(OutputStream stream) {
+        this(null, stream);
+    }
+
+
+    /**
+     * Make a JSONSerializer that writes the text to a Writer.
+     * @param writer A writer.
+     */
+    public JSONSerializer(Writer writer) {
+        this(writer, null);
+    }
+
+
+    private JSONSerializer(Writer writer, OutputStream stream) {
+        this.buffer = new char[BUFFER_SIZE];
+        this.containers = new Object[16];
+        this.count = 0;
+        this.indents = new int[16];
+        this.lengths = new int[16];
+        this.maxDepth = MAX_DEPTH;
+        this.positions = new int[16];
+        this.top = 0;
+        this.stream = stream;
+        this.writer = writer;
+    }
+
+
+    /**
+     * Write any buffered text to the Writer or OutputStream, and flush it.
+     * @return this
+     * @throws JSONException If the text can't be written.
+     */
+    public JSONSerializer flush() throws JSONException {
+        this.drain(true);
+        try {
+            if (this.writer != null) {
+                this.writer.flush();
+            } else if (this.stream != null) {
+                this.stream.flush();
+            }
+        } catch (IOException exception) {
+            throw new JSONException(exception);
+        }
+        return this;
+    }
+
+
+    /**
+     * Set the deepest nesting of objects and arrays that will be written.
+     * @param maxDepth The number of levels. The default is 1000.
+     * @return this
+     */
+    public JSONSerializer setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+
+    /**
+     * Discard the text collected so far, so that the serializer can be used
+     * for another value.
+     * @return this
+     */
+    public JSONSerializer reset() {
+        this.count = 0;
+        return this;
+    }
+
+
+    /**
+     * Get the text collected so far.
+     * @return The JSON text.
+     */
+    public String toString() {
+        return new String(this.buffer, 0, this.count);
+    }
+
+
+    /**
+     * Append a value as JSON text. For compactness, no whitespace is added.
+     * @param value A JSONObject, JSONArray, Map, Collection, array, Number,
+     *  Boolean, JSONString, String, or other object, which is written as its
+     *  quoted toString. null and JSONObject.NULL are written as null.
+     * @return this
+     * @throws JSONException If the value is or contains an invalid number.
+     */
+    public JSONSerializer value(Object value) throws JSONException {
+        return this.value(value, 0);
+    }
+
+
+    /**
+     * Append a value as prettyprinted JSON text.
+     * @param value The value, as for value(Object).
+     * @param indentFactor The number of spaces to add to each level of
+     *  indentation.
+     * @return this
+     * @throws JSONException If the value is or contains an invalid number.
+     */
+    public JSONSerializer value(Object value, int indentFactor)
+            throws JSONException {
+        this.value(value, indentFactor, 0);
+        return this;
+    }
+
+
+    /**
+     * Make the JSON text of a value with the calling thread's reusable
+     * serializer.
+     */
+    static String toString(Object value, int indentFactor)
+            throws JSONException {
+        JSONSerializer serializer = (JSONSerializer) reusable.get();
+        if (serializer == null) {
+            serializer = new JSONSerializer();
+            reusable.set(serializer);
+        } else if (serializer.inUse) {
+
+// A JSONString's toJSONString is being serialized, and it is making JSON text
+// of its own.
+
+            serializer = new JSONSerializer();
+        }
+        serializer.inUse = true;
+        try {
+            serializer.count = 0;
+            serializer.value(value, indentFactor, 0);
+            return serializer.toString();
+        } finally {
+            serializer.inUse = false;
+            if (serializer.buffer.length > MAX_REUSED_SIZE) {
+                serializer.buffer = new char[BUFFER_SIZE];
+            }
+        }
+    }
+
+
+    /**
+     * Write a value as JSON text to a Writer. The writer is not flushed.
+     */
+    static Writer write(Writer writer, Object value, int indentFactor,
+            int indent) throws JSONException {
+        JSONSerializer serializer = new JSONSerializer(writer);
+        serializer.value(value, indentFactor, indent);
+        serializer.drain(true);
+        return writer;
+    }
+
+
+    /**
+     * Produce a string in double quotes with backslash sequences in all the
+     * right places, as JSONObject.quote does.
+     */
+    static String quote(String string) {
+        int length = string.length();
+        char b;
+        char c = 0;
+        for (int i = 0; i < length; i += 1) {
+            b = c;
+            c = string.charAt(i);
+            if (needsEscape(b, c)) {
+                StringWriter sw = new StringWriter(length + 16);
+                try {
+                    quote(string, sw);
+                } catch (IOException ignored) {
+
+// A StringWriter does not throw.
+
+                }
+                return sw.toString();
+            }
+        }
+        return '"' + string + '"';
+    }
+
+
+    /**
+     * Write a string in double quotes with backslash sequences in all the
+     * right places, as JSONObject.quote does.
+     */
+    static void quote(String string, Writer w) throws IOException {
+        int length = string.length();
+        int start = 0;
+        char b;
+        char c = 0;
+        char[] escape = null;
+        w.write('"');
+        for (int i = 0; i < length; i += 1) {
+            b = c;
+            c = string.charAt(i);
+            if (needsEscape(b, c)) {
+                if (escape == null) {
+                    escape = new char[6];
+                }
+                w.write(string, start, i - start);
+                w.write(escape, 0, escape(c, escape, 0));
+                start = i + 1;
+            }
+        }
+        w.write(string, start, length - start);
+        w.write('"');
+    }
+
+
+    /**
+     * Determine if a character of a string must be escaped.
+     * @param b The character before it, or 0.
+     * @param c The character.
+     */
+    private static boolean needsEscape(char b, char c) {
+        if (c < 128) {
+            char e = ESCAPES[c];
+            return e != 0 && (e != '/' || b == '<');
+        }
+        return c < '\u00a0' || (c >= '\u2000' && c < '\u2100');
+    }
+
+
+    /**
+     * Put the backslash sequence for a character into a char array.
+     * @return The offset after the sequence.
+     */
+    private static int escape(char c, char[] chars, int offset) {
+        char e = c < 128 ? ESCAPES[c] : 'u';
+        chars[offset] = '\\';
+        chars[offset + 1] = e;
+        if (e != 'u') {
+            return offset + 2;
+        }
+        chars[offset + 2] = HEX[(c >> 12) & 0xf];
+        chars[offset + 3] = HEX[(c >> 8) & 0xf];
+        chars[offset + 4] = HEX[(c >> 4) & 0xf];
+        chars[offset + 5] = HEX[c & 0xf];
+        return offset + 6;
+    }
+
+
+    /**
+     * Append a value. Objects and arrays are written from an explicit stack
+     * rather than by recursion, one member or element at a time. The
+     * innermost container is held in local variables, and its position is
+     * saved on the stack only when a container inside it is entered.
+     */
+    private void value(Object value, int indentFactor, int indent)
+            throws JSONException {
+        int base = this.top;
+        try {
+            this.open(value, indent);
+            if (this.top == base) {
+                return;
+            }
+            int t = base;
+            Object container = this.containers[t];
+            int i = 0;
+            int length = this.lengths[t];
+            int outer = this.indents[t];
+            for (;;) {
+                if (i == length) {
+                    if (length > 1) {
+                        if (indentFactor > 0) {
+                            this.write('\n');
+                        }
+                        this.indent(outer);
+                    }
+                    this.write(container instanceof JSONObject ? '}' : ']');
+                    this.containers[t] = null;
+                    this.top = t;
+                    if (t == base) {
+                        return;
+                    }
+                    t -= 1;
+                    container = this.containers[t];
+                    i = this.positions[t];
+                    length = this.lengths[t];
+                    outer = this.indents[t];
+                    continue;
+                }
+
+// A container with one member or element is written on one line.
+
+                int inner = outer;
+                if (i > 0) {
+                    this.write(',');
+                }
+                if (length > 1) {
+                    if (indentFactor > 0) {
+                        this.write('\n');
+                    }
+                    inner += indentFactor;
+                    this.indent(inner);
+                }
+                if (container instanceof JSONObject) {
+                    JSONObject jo = (JSONObject) container;
+                    this.string(jo.keyAt(i).toString());
+                    this.write(':');
+                    if (indentFactor > 0) {
+                        this.write(' ');
+                    }
+                    this.open(jo.valueAt(i), inner);
+                } else {
+                    this.element((JSONArray) container, i, inner);
+                }
+                i += 1;
+                if (this.top > t + 1) {
+                    this.positions[t] = i;
+                    t += 1;
+                    container = this.containers[t];
+                    i = 0;
+                    length = this.lengths[t];
+                    outer = this.indents[t];
+                }
+            }
+        } finally {
+            while (this.top > base) {
+                this.top -= 1;
+                this.containers[this.top] = null;
+            }
+        }
+    }
+
+
+    /**
+     * Append a value that is not an object or array, or push one that is and
+     * append its opening bracket.
+     * @param indent The indentation of the line that the value is on.
+     */
+    private void open(Object value, int indent) throws JSONException {
+        if (value == null || value.equals(null)) {
+            this.write("null");
+
+// Strings and the boxed integers are final classes, so they are tested for
+// first without changing which branch any other value takes.
+
+        } else if (value instanceof String) {
+            this.string((String) value);
+        } else if (value instanceof Integer || value instanceof Long) {
+            this.number(((Number) value).longValue());
+        } else if (value instanceof JSONObject) {
+            this.push(value, ((JSONObject) value).length(), indent);
+        } else if (value instanceof JSONArray) {
+            this.push(value, ((JSONArray) value).length(), indent);
+        } else if (value instanceof Map) {
+            JSONObject jo = new JSONObject((Map) value);
+            this.push(jo, jo.length(), indent);
+        } else if (value instanceof Collection) {
+            JSONArray ja = new JSONArray((Collection) value);
+            this.push(ja, ja.length(), indent);
+        } else if (value.getClass().isArray()) {
+            JSONArray ja = new JSONArray(value);
+            this.push(ja, ja.length(), indent);
+        } else if (value instanceof Integer || value instanceof Long ||
+                value instanceof Short || value instanceof Byte) {
+            this.number(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            this.write(JSONObject.numberToString((Number) value));
+        } else if (value instanceof Boolean) {
+            this.write(((Boolean) value).booleanValue() ? "true" : "false");
+        } else if (value instanceof JSONString) {
+            Object o;
+            try {
+                o = ((JSONString) value).toJSONString();
+            } catch (Exception e) {
+                throw new JSONException(e);
+            }
+            if (o != null) {
+                this.write(o.toString());
+            } else {
+                this.string(value.toString());
+            }
+        } else {
+            this.string(value.toString());
+        }
+    }
+
+
+    /**
+     * Push a JSONObject or JSONArray onto the stack and append its opening
+     * bracket.
+     * @throws JSONException If the stack is as deep as maxDepth allows.
+     */
+    private void push(Object container, int length, int indent)
+            throws JSONException {
+        if (this.top >= this.maxDepth) {
+            throw new JSONException("Nesting too deep.");
+        }
+        if (this.top == this.containers.length) {
+            int grown = this.top * 2;
+            Object[] containers = new Object[grown];
+            int[] indents = new int[grown];
+            int[] lengths = new int[grown];
+            int[] positions = new int[grown];
+            System.arraycopy(this.containers, 0, containers, 0, this.top);
+            System.arraycopy(this.indents, 0, indents, 0, this.top);
+            System.arraycopy(this.lengths, 0, lengths, 0, this.top);
+            System.arraycopy(this.positions, 0, positions, 0, this.top);
+            this.containers = containers;
+            this.indents = indents;
+            this.lengths = lengths;
+            this.positions = positions;
+        }
+        this.containers[this.top] = container;
+        this.indents[this.top] = indent;
+        this.lengths[this.top] = length;
+        this.positions[this.top] = 0;
+        this.top += 1;
+        this.write(container instanceof JSONObject ? '{' : '[');
+    }
+
+
+    /**
+     * Append spaces, filling the buffer with as many at a time as fit.
+     */
+    private void indent(int indent) throws JSONException {
+        while (indent > 0) {
+            if (this.count == this.buffer.length) {
+                this.require(1);
+            }
+            int n = Math.min(indent, this.buffer.length - this.count);
+            Arrays.fill(this.buffer, this.count, this.count + n, ' ');
+            this.count += n;
+            indent -= n;
+        }
+    }
+
+
+    /**
+     * Append an element of a JSONArray, reading the numbers of an array kept
+     * as ints, longs, or doubles without making objects of them.
+     */
+    private void element(JSONArray ja, int index, int indent)
+            throws JSONException {
+        switch (ja.kind()) {
+        case 'd':
+            this.number(ja.doubleAt(index));
+            break;
+        case 'i':
+        case 'l':
+            this.number(ja.longAt(index));
+            break;
+        default:
+            this.open(ja.opt(index), indent);
+        }
+    }
+
+
+    /**
+     * Append a double as JSONObject.numberToString would.
+     */
+    private void number(double d) throws JSONException {
+        if (Double.isInfinite(d) || Double.isNaN(d)) {
+            throw new JSONException("JSON does not allow non-finite numbers.");
+        }
+        String string = Double.toString(d);
+        int end = string.length();
+        if (string.indexOf('E') < 0) {
+            while (string.charAt(end - 1) == '0') {
+                end -= 1;
+            }
+            if (string.charAt(end - 1) == '.') {
+                end -= 1;
+            }
+        }
+        this.write(string, 0, end);
+    }
+
+
+    /**
+     * Append the digits of an integer without making a string.
+     */
+    private void number(long l) throws JSONException {
+        if (l == Long.MIN_VALUE) {
+            this.write(Long.toString(l));
+            return;
+        }
+        this.require(20);
+        if (l < 0) {
+            this.buffer[this.count] = '-';
+            this.count += 1;
+            l = -l;
+        }
+        int digits = 1;
+        for (long p = l; p >= 10; p /= 10) {
+            digits += 1;
+        }
+        this.count += digits;
+        int i = this.count;
+        do {
+            i -= 1;
+            this.buffer[i] = (char) ('0' + (int) (l % 10));
+            l /= 10;
+        } while (l != 0);
+    }
+
+
+    /**
+     * Append a string in double quotes with backslash sequences in all the
+     * right places.
+     */
+    private void string(String string) throws JSONException {
+        int length = string.length();
+        int start = 0;
+        char b;
+        char c = 0;
+        this.write('"');
+        for (int i = 0; i < length; i += 1) {
+            b = c;
+            c = string.charAt(i);
+            if (needsEscape(b, c)) {
+                this.write(string, start, i);
+                this.require(6);
+                this.count = escape(c, this.buffer, this.count);
+                start = i + 1;
+            }
+        }
+        this.write(string, start, length);
+        this.write('"');
+    }
+
+
+    /**
+     * Append a character of the JSON syntax, such as a bracket or a comma.
+     */
+    void write(char c) throws JSONException {
+        if (this.count == this.buffer.length) {
+            this.require(1);
+        }
+        this.buffer[this.count] = c;
+        this.count += 1;
+    }
+
+
+    private void write(String string) throws JSONException {
+        this.write(string, 0, string.length());
+    }
+
+
+    /**
+     * Append the characters of string[start..end).
+     */
+    private void write(String string, int start, int end)
+            throws JSONException {
+        while (start < end) {
+            if (this.count == this.buffer.length) {
+                this.require(1);
+            }
+            int n = Math.min(end - start, this.buffer.length - this.count);
+            string.getChars(start, start + n, this.buffer, this.count);
+            this.count += n;
+            start += n;
+        }
+    }
+
+
+    /**
+     * Make room for n more chars in the buffer, by passing the text on to
+     * the writer or stream, or by growing the buffer if there is neither.
+     */
+    private void require(int n) throws JSONException {
+        if (this.count + n <= this.buffer.length) {
+            return;
+        }
+        if (this.writer != null || this.stream != null) {
+            this.drain(false);
+            if (this.count + n <= this.buffer.length) {
+                return;
+            }
+        }
+        char[] grown = new char[Math.max(this.buffer.length * 2,
+                this.count + n)];
+        System.arraycopy(this.buffer, 0, grown, 0, this.count);
+        this.buffer = grown;
+    }
+
+
+    /**
+     * Pass the buffered text on to the writer or stream. A high surrogate at
+     * the end of the buffer is held back until its low surrogate arrives,
+     * unless this is the end of the text.
+     * @param end true if no more text follows.
+     */
+    private void drain(boolean end) throws JSONException {
+        try {
+            if (this.writer != null) {
+                this.writer.write(this.buffer, 0, this.count);
+                this.count = 0;
+            } else if (this.stream != null) {
+                int length = this.count;
+                if (!end && length > 0 &&
+                        Character.isHighSurrogate(this.buffer[length - 1])) {
+                    length -= 1;
+                }
+                if (this.bytes == null) {
+                    this.bytes = new byte[this.buffer.length * 3];
+                }
+                this.stream.write(this.bytes, 0, this.encode(length));
+                this.count -= length;
+                if (this.count > 0) {
+                    this.buffer[0] = this.buffer[length];
+                }
+            }
+        } catch (IOException exception) {
+            throw new JSONException(exception);
+        }
+    }
+
+
+    /**
+     * Encode buffer[0..length) as UTF-8 into the byte buffer. A surrogate
+     * that is not part of a pair is encoded as '?'.
+     * @return The number of bytes.
+     */
+    private int encode(int length) {
+        byte[] bytes = this.bytes;
+        int n = 0;
+        for (int i = 0; i < length; i += 1) {
+            char c = this.buffer[i];
+            if (c < 0x80) {
+                bytes[n] = (byte) c;
+                n += 1;
+            } else if (c < 0x800) {
+                bytes[n] = (byte) (0xc0 | (c >> 6));
+                bytes[n + 1] = (byte) (0x80 | (c & 0x3f));
+                n += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length &&
+                    Character.isLowSurrogate(this.buffer[i + 1])) {
+                int code = Character.toCodePoint(c, this.buffer[i + 1]);
+                bytes[n] = (byte) (0xf0 | (code >> 18));
+                bytes[n + 1] = (byte) (0x80 | ((code >> 12) & 0x3f));
+                bytes[n + 2] = (byte) (0x80 | ((code >> 6) & 0x3f));
+                bytes[n + 3] = (byte) (0x80 | (code & 0x3f));
+                n += 4;
+                i += 1;
+            } else if (Character.isHighSurrogate(c) ||
+                    Character.isLowSurrogate(c)) {
+                bytes[n] = '?';
+                n += 1;
+            } else {
+                bytes[n] = (byte) (0xe0 | (c >> 12));
+                bytes[n + 1] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                bytes[n + 2] = (byte) (0x80 | (c & 0x3f));
+                n += 3;
+            }
+        }
+        return n;
+    }
+}
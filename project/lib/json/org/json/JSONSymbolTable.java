@@ -0,0 +1,115 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+/**
+ * A JSONSymbolTable hands out one String for each key that a JSONTokener
+ * reads, so that a text that repeats the same keys many times holds one copy
+ * of each. The hash of a key is computed from the scanned characters as it is
+ * compared, and is the same as the String's hashCode, which the shared String
+ * has already cached when it is put into a JSONObject.
+ * <p>
+ * The table is bounded. It has a fixed number of slots, each holding at most
+ * one String, and a key that lands on a slot holding another key replaces it.
+ * Keys longer than 64 characters are not kept. A table may be shared by any
+ * number of tokeners and threads without locking: a slot holds a whole
+ * String or nothing, so the worst a race can do is make a key be copied
+ * again.
+ * <p>
+ * Every JSONTokener uses a table shared by all of them unless it is given
+ * another one with <code>setSymbolTable</code>.
+ * @author JSON.org
+ * @version 2026-10-18
+ */
+public class JSONSymbolTable {
+
+    /**
+     * The longest key that is kept.
+     */
+    private static final int MAX_LENGTH = 64;
+
+    /**
+     * The table that tokeners use unless they are given another.
+     */
+    static final JSONSymbolTable SHARED = new JSONSymbolTable();
+
+    private final String[] symbols;
+
+
+    /**
+     * Make a JSONSymbolTable with 2048 slots.
+     */
+    public JSONSymbolTable() {
+        this(2048);
+    }
+
+
+    /**
+     * Make a JSONSymbolTable.
+     * @param capacity The number of slots, which is rounded up to a power of
+     *  two.
+     */
+    public JSONSymbolTable(int capacity) {
+        int size = 16;
+        while (size < capacity) {
+            size *= 2;
+        }
+        this.symbols = new String[size];
+    }
+
+
+    /**
+     * Get the String for a key held in chars[start..end).
+     * @param chars The characters.
+     * @param start The index of the first character.
+     * @param end The index after the last character.
+     * @return A String equal to the characters.
+     */
+    public String intern(char[] chars, int start, int end) {
+        int length = end - start;
+        if (length > MAX_LENGTH) {
+            return new String(chars, start, length);
+        }
+        int hash = 0;
+        for (int i = start; i < end; i += 1) {
+            hash = 31 * hash + chars[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (this.symbols.length - 1);
+        String symbol = this.symbols[slot];
+        if (symbol != null && symbol.length() == length) {
+            int i = 0;
+            while (i < length && symbol.charAt(i) == chars[start + i]) {
+                i += 1;
+            }
+            if (i == length) {
+                return symbol;
+            }
+        }
+        symbol = new String(chars, start, length);
+        symbol.hashCode();
+        this.symbols[slot] = symbol;
+        return symbol;
+    }
+}
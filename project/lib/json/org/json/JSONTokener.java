@@ -1,11 +1,9 @@
 package org.json;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.StringReader;
 
 /*
 Copyright (c) 2002 JSON.org
@@ -35,17 +33,46 @@ SOFTWARE.
  * A JSONTokener takes a source string and extracts characters and tokens from
  * it. It is used by the JSONObject and JSONArray constructors to parse
  * JSON source strings.
+ * <p>
+ * The source is scanned out of a char array. A char array source is used
+ * directly and a string source is copied into one. A Reader source is read
+ * into a buffer in large blocks, and the buffer is refilled when it runs
+ * out. The line and character position is not tracked while scanning. It is
+ * worked out from the text only when an error message or toString asks for
+ * it. The keys of objects are shared through a JSONSymbolTable.
+ * <p>
+ * A JSONTokener over a string or char array can be made lazy, so that the
+ * JSONObjects it makes parse their values only when they are first got.
+ * <p>
+ * Objects and arrays nested deeper than 1000 levels, or than setMaxDepth
+ * allows, are a syntax error, so that a text that is read can be written
+ * again by JSONSerializer.
  * @author JSON.org
- * @version 2012-02-16
+ * @version 2026-10-18
  */
 public class JSONTokener {
 
+    /**
+     * The number of characters read from a Reader at a time.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    private char[]  buffer;
     private long    character;
+    private int     depth;
     private boolean eof;
     private long    index;
+    private char    lastCounted;
+    private boolean lazy;
+    private int     limit;
     private long    line;
+    private int     mark;
+    private int     maxDepth;
+    private long    offset;
+    private int     position;
     private char    previous;
     private Reader  reader;
+    private JSONSymbolTable symbols;
     private boolean usePrevious;
 
 
@@ -55,15 +82,54 @@ public class JSONTokener {
      * @param reader     A reader.
      */
     public JSONTokener(Reader reader) {
-        this.reader = reader.markSupported()
-            ? reader
-            : new BufferedReader(reader);
+        this(new char[BUFFER_SIZE], 0);
+        this.reader = reader;
+    }
+
+
+    /**
+     * Construct a JSONTokener from a char array. The array is scanned in
+     * place, so it must not be changed while the JSONTokener is in use.
+     *
+     * @param chars     The source characters.
+     */
+    public JSONTokener(char[] chars) {
+        this(chars, chars.length);
+    }
+
+
+    private JSONTokener(char[] buffer, int limit) {
+        this.buffer = buffer;
+        this.limit = limit;
+        this.position = 0;
+        this.offset = 0;
+        this.mark = -1;
+        this.reader = null;
+        this.symbols = JSONSymbolTable.SHARED;
         this.eof = false;
         this.usePrevious = false;
         this.previous = 0;
         this.index = 0;
         this.character = 1;
         this.line = 1;
+        this.lastCounted = 0;
+        this.lazy = false;
+        this.depth = 0;
+        this.maxDepth = JSONSerializer.MAX_DEPTH;
+    }
+
+
+    /**
+     * Construct a lazy JSONTokener that reads the text of another from a
+     * position, to parse a value that a lazy JSONObject left unparsed.
+     */
+    JSONTokener(JSONTokener x, int start) {
+        this(x.buffer, x.limit);
+        this.position = start;
+        this.index = start;
+        this.lazy = true;
+        this.symbols = x.symbols;
+        this.maxDepth = x.maxDepth;
     }
 
 
@@ -81,7 +147,7 @@ public class JSONTokener {
      * @param s     A source string.
      */
     public JSONTokener(String s) {
-        this(new StringReader(s));
+        this(s.toCharArray());
     }
 
 
@@ -95,7 +161,6 @@ public class JSONTokener {
             throw new JSONException("Stepping back two steps is not supported");
         }
         this.index -= 1;
-        this.character -= 1;
         this.usePrevious = true;
         this.eof = false;
     }
@@ -120,6 +185,82 @@ public class JSONTokener {
         return -1;
     }
 
+
+    /**
+     * Advance the line and character counts over the characters in the
+     * buffer before the given position, and drop them from the buffer.
+     * The counts follow the same rules as toString.
+     * @param to The first buffer position to keep.
+     */
+    private void discard(int to) {
+        long line = this.line;
+        long character = this.character;
+        char last = this.lastCounted;
+        for (int i = 0; i < to; i += 1) {
+            char c = this.buffer[i];
+            if (last == '\r') {
+                line += 1;
+                character = c == '\n' ? 0 : 1;
+            } else if (c == '\n') {
+                line += 1;
+                character = 0;
+            } else {
+                character += 1;
+            }
+            last = c;
+        }
+        this.line = line;
+        this.character = character;
+        this.lastCounted = last;
+
+        System.arraycopy(this.buffer, to, this.buffer, 0, this.limit - to);
+        this.limit -= to;
+        this.position -= to;
+        if (this.mark >= 0) {
+            this.mark -= to;
+        }
+        this.offset += to;
+    }
+
+
+    /**
+     * Read more characters from the reader into the buffer. Characters that
+     * have already been consumed are dropped to make room, except those
+     * after a mark left by skipTo, and the one before them, which back can
+     * step back over.
+     * @return true if more characters were read, false at the end of the
+     * source.
+     */
+    private boolean fill() throws JSONException {
+        if (this.reader == null) {
+            return false;
+        }
+        int keep = (this.mark >= 0 ? this.mark : this.position) - 1;
+        if (keep > 0) {
+            this.discard(keep);
+        }
+        if (this.limit == this.buffer.length) {
+            char[] grown = new char[this.buffer.length * 2];
+            System.arraycopy(this.buffer, 0, grown, 0, this.limit);
+            this.buffer = grown;
+        }
+        int count;
+        try {
+            do {
+                count = this.reader.read(this.buffer, this.limit,
+                        this.buffer.length - this.limit);
+            } while (count == 0);
+        } catch (IOException exception) {
+            throw new JSONException(exception);
+        }
+        if (count < 0) {
+            return false;
+        }
+        this.limit += count;
+        return true;
+    }
+
+
     public boolean end() {
         return this.eof && !this.usePrevious;
     }
@@ -146,34 +287,23 @@ public class JSONTokener {
      * @return The next character, or 0 if past the end of the source string.
      */
     public char next() throws JSONException {
-        int c;
+        char c;
         if (this.usePrevious) {
             this.usePrevious = false;
             c = this.previous;
-        } else {
-            try {
-                c = this.reader.read();
-            } catch (IOException exception) {
-                throw new JSONException(exception);
-            }
-
-            if (c <= 0) { // End of stream
+        } else if (this.position < this.limit || this.fill()) {
+            c = this.buffer[this.position];
+            this.position += 1;
+            if (c == 0) {
                 this.eof = true;
-                c = 0;
             }
+        } else { // End of stream
+            this.eof = true;
+            c = 0;
         }
         this.index += 1;
-        if (this.previous == '\r') {
-            this.line += 1;
-            this.character = c == '\n' ? 0 : 1;
-        } else if (c == '\n') {
-            this.line += 1;
-            this.character = 0;
-        } else {
-            this.character += 1;
-        }
-        this.previous = (char) c;
-        return this.previous;
+        this.previous = c;
+        return c;
     }
 
 
@@ -208,6 +338,25 @@ public class JSONTokener {
              return "";
          }
 
+         if (!this.usePrevious && !this.eof) {
+             while (this.limit - this.position < n && this.fill()) {
+             }
+             int start = this.position;
+             int end = start + n;
+             if (end <= this.limit) {
+                 while (start < end && this.buffer[start] != 0) {
+                     start += 1;
+                 }
+                 if (start == end) {
+                     start = this.position;
+                     this.position = end;
+                     this.index += n;
+                     this.previous = this.buffer[end - 1];
+                     return new String(this.buffer, start, n);
+                 }
+             }
+         }
+
          char[] chars = new char[n];
          int pos = 0;
 
@@ -228,6 +377,24 @@ public class JSONTokener {
      * @return  A character, or 0 if there are no more characters.
      */
     public char nextClean() throws JSONException {
+        if (!this.usePrevious) {
+            do {
+                while (this.position < this.limit) {
+                    char c = this.buffer[this.position];
+                    this.position += 1;
+                    this.index += 1;
+                    if (c > ' ') {
+                        this.previous = c;
+                        return c;
+                    }
+                    if (c == 0) {
+                        this.eof = true;
+                        this.previous = 0;
+                        return 0;
+                    }
+                }
+            } while (this.fill());
+        }
         for (;;) {
             char c = this.next();
             if (c == 0 || c > ' ') {
@@ -249,9 +416,50 @@ public class JSONTokener {
      * @throws JSONException Unterminated string.
      */
     public String nextString(char quote) throws JSONException {
+        return this.nextString(quote, null);
+    }
+
+
+    /**
+     * Return the characters up to the next close quote character.
+     * @param quote The quoting character.
+     * @param symbols The symbol table to get a string without escapes from,
+     *  or null to make a new one.
+     */
+    private String nextString(char quote, JSONSymbolTable symbols)
+            throws JSONException {
         char c;
-        StringBuffer sb = new StringBuffer();
+
+// A string without escapes is sliced straight out of the buffer.
+
+        if (!this.usePrevious) {
+            int start = this.position;
+            int end = this.skipPlain(quote);
+            if (end < this.limit && this.buffer[end] == quote) {
+                this.position = end + 1;
+                this.index += end + 1 - start;
+                this.previous = quote;
+                return symbols == null
+                    ? new String(this.buffer, start, end - start)
+                    : symbols.intern(this.buffer, start, end);
+            }
+        }
+        StringBuilder sb = new StringBuilder();
         for (;;) {
+
+// Take the run of plain characters up to the next special one straight out
+// of the buffer.
+
+            if (!this.usePrevious) {
+                int start = this.position;
+                int end = this.skipPlain(quote);
+                if (end > start) {
+                    sb.append(this.buffer, start, end - start);
+                    this.position = end;
+                    this.index += end - start;
+                    this.previous = this.buffer[end - 1];
+                }
+            }
             c = this.next();
             switch (c) {
             case 0:
@@ -299,6 +507,41 @@ public class JSONTokener {
     }
 
 
+    /**
+     * Find the end of the run of characters in the buffer, starting at the
+     * current position, that need no special handling inside a string.
+     * @param quote The quoting character.
+     * @return The buffer position of the first special character, or the
+     * limit if the run reaches the end of the buffer.
+     */
+    private int skipPlain(char quote) {
+        int end = this.position;
+        while (end < this.limit) {
+            char c = this.buffer[end];
+            if (c == quote || c == '\\' || c == 0 || c == '\n' ||
+                    c == '\r') {
+                break;
+            }
+            end += 1;
+        }
+        return end;
+    }
+
+
+    /**
+     * Get the next key of an object, which is the next value as a string. A
+     * quoted key without escapes is got from the symbol table.
+     */
+    String nextKey() throws JSONException {
+        char c = this.nextClean();
+        if (c == '"' || c == '\'') {
+            return this.nextString(c, this.symbols);
+        }
+        this.back();
+        return this.nextValue().toString();
+    }
+
+
     /**
      * Get the text up but not including the specified character or the
      * end of line, whichever comes first.
@@ -372,11 +615,34 @@ public class JSONTokener {
          * is allowed to also accept non-standard forms.
          *
          * Accumulate characters until we reach the end of the text or a
-         * formatting character.
+         * formatting character. If the whole token is in the buffer it is
+         * converted in place.
          */
 
-        StringBuffer sb = new StringBuffer();
-        while (c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
+        if (isUnquoted(c) && this.position > 0 &&
+                this.buffer[this.position - 1] == c) {
+            int start = this.position - 1;
+            int end = this.position;
+            while (end < this.limit && isUnquoted(this.buffer[end])) {
+                end += 1;
+            }
+            if (end < this.limit || this.reader == null) {
+                this.index += end - this.position;
+                this.position = end;
+                this.next();
+                this.back();
+                while (end > start && this.buffer[end - 1] == ' ') {
+                    end -= 1;
+                }
+                if (start == end) {
+                    throw this.syntaxError("Missing value");
+                }
+                return JSONObject.stringToValue(this.buffer, start, end);
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        while (isUnquoted(c)) {
             sb.append(c);
             c = this.next();
         }
@@ -390,6 +656,349 @@ public class JSONTokener {
     }
 
 
+    /**
+     * Determine if a character can be part of an unquoted value.
+     */
+    static boolean isUnquoted(char c) {
+        switch (c) {
+        case ',':
+        case ':':
+        case ']':
+        case '}':
+        case '/':
+        case '\\':
+        case '"':
+        case '[':
+        case '{':
+        case ';':
+        case '=':
+        case '#':
+            return false;
+        default:
+            return c >= ' ';
+        }
+    }
+
+
+    /**
+     * Count the start of an object or array.
+     * @throws JSONException If it is nested deeper than the maximum.
+     */
+    void enter() throws JSONException {
+        if (this.depth >= this.maxDepth) {
+            throw this.syntaxError("Nesting too deep");
+        }
+        this.depth += 1;
+    }
+
+
+    /**
+     * Count the end of an object or array.
+     */
+    void leave() {
+        this.depth -= 1;
+    }
+
+
+    /**
+     * Get the deepest nesting that will be read.
+     * @return The number of levels.
+     */
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+
+    /**
+     * Set the deepest nesting of objects and arrays that JSONObject and
+     * JSONArray will read from this JSONTokener, and of elements that XML,
+     * JSONML, and XMLReader will read from an XMLTokener. Anything nested
+     * deeper is a syntax error.
+     * @param maxDepth The number of levels. The default is 1000, which is
+     *  also the deepest nesting that JSONSerializer will write.
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+
+    /**
+     * Make the JSONObjects read from this JSONTokener lazy. A lazy JSONObject
+     * notes where each of its values starts in the text and skips over it,
+     * checking only that its brackets balance and its strings end. A value is
+     * parsed the first time it is got, and objects within it are lazy too. A
+     * syntax error inside a value is reported when the value is got. The text
+     * is kept for as long as any of the JSONObjects is. Since getting a value
+     * changes a lazy JSONObject, it must not be read by more than one thread
+     * at a time. A JSONTokener that reads from a Reader is never lazy.
+     * @param lazy true to make lazy JSONObjects.
+     */
+    public void setLazy(boolean lazy) {
+        this.lazy = lazy;
+    }
+
+
+    /**
+     * Determine if JSONObjects read from this JSONTokener are lazy.
+     */
+    boolean isLazy() {
+        return this.lazy && this.reader == null;
+    }
+
+
+    /**
+     * Set the symbol table that the keys of objects are got from. By default
+     * it is one shared by all JSONTokeners.
+     * @param symbols A JSONSymbolTable, or null to make a new string for
+     *  every key.
+     */
+    public void setSymbolTable(JSONSymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+
+    /**
+     * Skip over the next value without parsing it, checking only that its
+     * brackets balance and its strings end, as JSONReader.skip does, and
+     * that it is not nested too deep. Only for a JSONTokener that is not
+     * reading from a Reader.
+     * @return The buffer position of the first character of the value.
+     * @throws JSONException If there is no value, it is unterminated, or it
+     *  is nested too deep.
+     */
+    int skipValue() throws JSONException {
+        char c = this.nextClean();
+        int start = this.position - 1;
+        int end = start + 1;
+        if (c == '"' || c == '\'') {
+            end = this.skipQuoted(end, c);
+        } else if (c == '{' || c == '[') {
+            int depth = 1;
+            boolean unquoted = false;
+            if (this.depth + depth > this.maxDepth) {
+                throw this.syntaxError("Nesting too deep");
+            }
+            while (depth > 0) {
+                if (end >= this.limit || this.buffer[end] == 0) {
+                    this.moveTo(end);
+                    throw this.syntaxError(c == '{'
+                        ? "A JSONObject text must end with '}'"
+                        : "A JSONArray text must end with ']'");
+                }
+                char b = this.buffer[end];
+                end += 1;
+
+// Inside an unquoted value, quotes and spaces are part of the value.
+
+                if (unquoted && isUnquoted(b)) {
+                    continue;
+                }
+                unquoted = false;
+                switch (b) {
+                case '"':
+                case '\'':
+                    end = this.skipQuoted(end, b);
+                    break;
+                case '{':
+                case '[':
+                    depth += 1;
+                    if (this.depth + depth > this.maxDepth) {
+                        this.moveTo(end);
+                        throw this.syntaxError("Nesting too deep");
+                    }
+                    break;
+                case '}':
+                case ']':
+                    depth -= 1;
+                    break;
+                case '=':
+                    if (end < this.limit && this.buffer[end] == '>') {
+                        end += 1;
+                    }
+                    break;
+                default:
+                    unquoted = b > ' ' && isUnquoted(b);
+                }
+            }
+        } else if (isUnquoted(c)) {
+            while (end < this.limit && isUnquoted(this.buffer[end])) {
+                end += 1;
+            }
+        } else {
+            throw this.syntaxError("Missing value");
+        }
+        this.moveTo(end);
+        return start;
+    }
+
+
+    /**
+     * Find the end of a quoted string in the buffer.
+     * @param start The buffer position after the open quote.
+     * @param quote The quoting character.
+     * @return The buffer position after the close quote.
+     */
+    private int skipQuoted(int start, char quote) throws JSONException {
+        int end = start;
+        for (;;) {
+            char c = end < this.limit ? this.buffer[end] : 0;
+            if (c == 0 || c == '\n' || c == '\r') {
+                this.moveTo(end);
+                throw this.syntaxError("Unterminated string");
+            }
+            end += 1;
+            if (c == '\\') {
+                end += 1;
+            } else if (c == quote) {
+                return end;
+            }
+        }
+    }
+
+
+    /**
+     * Move forward to a buffer position, as if the characters up to it had
+     * been read with next.
+     */
+    private void moveTo(int position) {
+        position = Math.min(position, this.limit);
+        this.index += position - this.position;
+        this.position = position;
+        this.previous = this.buffer[position - 1];
+    }
+
+
+    /**
+     * Copy the characters up to, but not including, the next one of the stop
+     * characters. Runs of characters are copied straight out of the buffer.
+     * The stop character is not consumed. A 0 at the end of the source, or
+     * in it, is read and backed up over, as next and back would.
+     * @param stops The stop characters.
+     * @param sb The StringBuilder to append the characters to.
+     * @return The stop character, or 0 at the end of the source.
+     */
+    char copyTo(String stops, StringBuilder sb) throws JSONException {
+        if (!this.unread()) {
+            return 0;
+        }
+        int end = this.position;
+        for (;;) {
+            while (end < this.limit) {
+                char c = this.buffer[end];
+                if (c == 0 || stops.indexOf(c) >= 0) {
+                    this.take(end, sb);
+                    if (c == 0) {
+                        this.next();
+                        this.back();
+                    }
+                    return c;
+                }
+                end += 1;
+            }
+            this.take(end, sb);
+            if (!this.fill()) {
+                this.next();
+                this.back();
+                return 0;
+            }
+            end = this.position;
+        }
+    }
+
+
+    /**
+     * Copy the characters up to the next occurrence of a string, and skip
+     * past the string. Runs of characters are copied straight out of the
+     * buffer, and only the places where the first character of the string
+     * appears are compared with the rest of it. If the string is not found,
+     * the characters up to the end of the source are copied and consumed.
+     * @param to The string to look for.
+     * @param sb The StringBuilder to append the characters to, or null to
+     *  skip them.
+     * @return true if the string was found.
+     */
+    boolean copyPast(String to, StringBuilder sb) throws JSONException {
+        if (!this.unread()) {
+            this.next();
+            return false;
+        }
+        char first = to.charAt(0);
+        int length = to.length();
+        int end = this.position;
+        for (;;) {
+            while (end < this.limit) {
+                char c = this.buffer[end];
+                if (c == 0) {
+                    this.take(end, sb);
+                    this.next();
+                    return false;
+                }
+                if (c == first) {
+                    if (end + length > this.limit) {
+                        break;
+                    }
+                    int i = 1;
+                    while (i < length && this.buffer[end + i] == to.charAt(i)) {
+                        i += 1;
+                    }
+                    if (i == length) {
+                        this.take(end, sb);
+                        this.moveTo(end + length);
+                        return true;
+                    }
+                }
+                end += 1;
+            }
+
+// The rest of the buffer may hold the start of the string, so more is read
+// before looking at it again.
+
+            this.take(end, sb);
+            if (!this.fill()) {
+                this.take(this.limit, sb);
+                this.next();
+                return false;
+            }
+            end = this.position;
+        }
+    }
+
+
+    /**
+     * Consume the characters in the buffer up to a position, appending them
+     * to a StringBuilder if there is one.
+     */
+    private void take(int end, StringBuilder sb) {
+        if (end > this.position) {
+            if (sb != null) {
+                sb.append(this.buffer, this.position, end - this.position);
+            }
+            this.moveTo(end);
+        }
+    }
+
+
+    /**
+     * Undo a back() by moving the buffer position back over the character
+     * that would be read again, so that scanning can start from the buffer.
+     * @return false if that character is the 0 at the end of the source.
+     */
+    private boolean unread() {
+        if (this.usePrevious) {
+            if (this.previous == 0 || this.position == 0 ||
+                    this.buffer[this.position - 1] != this.previous) {
+                return false;
+            }
+            this.position -= 1;
+            this.previous = this.position > 0
+                ? this.buffer[this.position - 1]
+                : 0;
+            this.usePrevious = false;
+        }
+        return true;
+    }
+
+
     /**
      * Skip characters until the next character is the requested character.
      * If the requested character is not found, no characters are skipped.
@@ -399,23 +1008,25 @@ public class JSONTokener {
      */
     public char skipTo(char to) throws JSONException {
         char c;
+        long startIndex = this.index;
+        boolean startEof = this.eof;
+        char startPrevious = this.previous;
+        boolean startUsePrevious = this.usePrevious;
+        this.mark = this.position;
         try {
-            long startIndex = this.index;
-            long startCharacter = this.character;
-            long startLine = this.line;
-            this.reader.mark(1000000);
             do {
                 c = this.next();
                 if (c == 0) {
-                    this.reader.reset();
+                    this.position = this.mark;
                     this.index = startIndex;
-                    this.character = startCharacter;
-                    this.line = startLine;
+                    this.eof = startEof;
+                    this.previous = startPrevious;
+                    this.usePrevious = startUsePrevious;
                     return c;
                 }
             } while (c != to);
-        } catch (IOException exc) {
-            throw new JSONException(exc);
+        } finally {
+            this.mark = -1;
         }
 
         this.back();
@@ -440,7 +1051,28 @@ public class JSONTokener {
      * @return " at {index} [character {character} line {line}]"
      */
     public String toString() {
-        return " at " + this.index + " [character " + this.character + " line " +
-            this.line + "]";
+        long line = this.line;
+        long character = this.character;
+        char last = this.lastCounted;
+
+        // Count the characters consumed so far. A character that was backed
+        // up over is not consumed, and each read past the end counts as a 0.
+
+        long consumed = this.offset + this.position;
+        for (long i = this.offset; i < this.index; i += 1) {
+            char c = i < consumed ? this.buffer[(int) (i - this.offset)] : 0;
+            if (last == '\r') {
+                line += 1;
+                character = c == '\n' ? 0 : 1;
+            } else if (c == '\n') {
+                line += 1;
+                character = 0;
+            } else {
+                character += 1;
+            }
+            last = c;
+        }
+        return " at " + this.index + " [character " + character + " line " +
+            line + "]";
     }
 }
@@ -31,7 +31,7 @@ import java.util.Iterator;
  * This provides static methods to convert an XML text into a JSONObject,
  * and to covert a JSONObject into an XML text.
  * @author JSON.org
- * @version 2011-02-11
+ * @version 2026-10-18
  */
 public class XML {
 
@@ -120,21 +120,33 @@ public class XML {
     }
 
     /**
-     * Scan the content following the named tag, attaching it to the context.
+     * Scan a tag after its '<', attaching it to the context. If it opens an
+     * element, the element's content is scanned up to its close tag. Nested
+     * elements are kept on an explicit stack rather than scanned by
+     * recursion, so the depth of the XML is limited only by the XMLTokener's
+     * maximum depth.
      * @param x       The XMLTokener containing the source string.
      * @param context The JSONObject that will include the new material.
-     * @param name    The tag name.
-     * @return true if the close tag is processed.
      * @throws JSONException
      */
-    private static boolean parse(XMLTokener x, JSONObject context,
-                                 String name) throws JSONException {
-        char       c;
-        int        i;
-        JSONObject jsonobject = null;
-        String     string;
-        String     tagName;
-        Object     token;
+    private static void parse(XMLTokener x, JSONObject context)
+            throws JSONException {
+        char         c;
+        int          i;
+        JSONObject   jsonobject = null;
+        String       string;
+        String       tagName;
+        Object       token;
+        int          top = 0;
+        String[]     names = new String[16];
+        JSONObject[] objects = new JSONObject[16];
+
+        for (;;) {
+
+// The innermost open element, or the context if there is none.
+
+            JSONObject parent = top == 0 ? context : objects[top - 1];
+            String name = top == 0 ? null : names[top - 1];
 
 // Test for and skip past these forms:
 //      <!-- ... -->
@@ -146,145 +158,164 @@ public class XML {
 //      <=
 //      <<
 
-        token = x.nextToken();
+            token = x.nextToken();
 
 // <!
 
-        if (token == BANG) {
-            c = x.next();
-            if (c == '-') {
-                if (x.next() == '-') {
-                    x.skipPast("-->");
-                    return false;
-                }
-                x.back();
-            } else if (c == '[') {
-                token = x.nextToken();
-                if ("CDATA".equals(token)) {
-                    if (x.next() == '[') {
-                        string = x.nextCDATA();
-                        if (string.length() > 0) {
-                            context.accumulate("content", string);
+            if (token == BANG) {
+                c = x.next();
+                if (c == '-') {
+                    if (x.next() == '-') {
+                        x.skipPast("-->");
+                        token = null;
+                    } else {
+                        x.back();
+                    }
+                } else if (c == '[') {
+                    token = x.nextToken();
+                    if ("CDATA".equals(token)) {
+                        if (x.next() == '[') {
+                            string = x.nextCDATA();
+                            if (string.length() > 0) {
+                                parent.accumulate("content", string);
+                            }
+                            token = null;
                         }
-                        return false;
+                    }
+                    if (token != null) {
+                        throw x.syntaxError("Expected 'CDATA['");
                     }
                 }
-                throw x.syntaxError("Expected 'CDATA['");
-            }
-            i = 1;
-            do {
-                token = x.nextMeta();
-                if (token == null) {
-                    throw x.syntaxError("Missing '>' after '<!'.");
-                } else if (token == LT) {
-                    i += 1;
-                } else if (token == GT) {
-                    i -= 1;
+                if (token != null) {
+                    i = 1;
+                    do {
+                        token = x.nextMeta();
+                        if (token == null) {
+                            throw x.syntaxError("Missing '>' after '<!'.");
+                        } else if (token == LT) {
+                            i += 1;
+                        } else if (token == GT) {
+                            i -= 1;
+                        }
+                    } while (i > 0);
                 }
-            } while (i > 0);
-            return false;
-        } else if (token == QUEST) {
+            } else if (token == QUEST) {
 
 // <?
 
-            x.skipPast("?>");
-            return false;
-        } else if (token == SLASH) {
+                x.skipPast("?>");
+            } else if (token == SLASH) {
 
 // Close tag </
 
-            token = x.nextToken();
-            if (name == null) {
-                throw x.syntaxError("Mismatched close tag " + token);
-            }            
-            if (!token.equals(name)) {
-                throw x.syntaxError("Mismatched " + name + " and " + token);
-            }
-            if (x.nextToken() != GT) {
-                throw x.syntaxError("Misshaped close tag");
-            }
-            return true;
-
-        } else if (token instanceof Character) {
-            throw x.syntaxError("Misshaped tag");
+                token = x.nextToken();
+                if (name == null) {
+                    throw x.syntaxError("Mismatched close tag " + token);
+                }
+                if (!token.equals(name)) {
+                    throw x.syntaxError("Mismatched " + name + " and " + token);
+                }
+                if (x.nextToken() != GT) {
+                    throw x.syntaxError("Misshaped close tag");
+                }
+                top -= 1;
+                jsonobject = objects[top];
+                objects[top] = null;
+                parent = top == 0 ? context : objects[top - 1];
+                if (jsonobject.length() == 0) {
+                    parent.accumulate(name, "");
+                } else if (jsonobject.length() == 1 &&
+                       jsonobject.opt("content") != null) {
+                    parent.accumulate(name, jsonobject.opt("content"));
+                } else {
+                    parent.accumulate(name, jsonobject);
+                }
+            } else if (token instanceof Character) {
+                throw x.syntaxError("Misshaped tag");
 
 // Open tag <
 
-        } else {
-            tagName = (String)token;
-            token = null;
-            jsonobject = new JSONObject();
-            for (;;) {
-                if (token == null) {
-                    token = x.nextToken();
-                }
+            } else {
+                tagName = (String)token;
+                token = null;
+                jsonobject = new JSONObject();
+                for (;;) {
+                    if (token == null) {
+                        token = x.nextToken();
+                    }
 
 // attribute = value
 
-                if (token instanceof String) {
-                    string = (String)token;
-                    token = x.nextToken();
-                    if (token == EQ) {
+                    if (token instanceof String) {
+                        string = (String)token;
                         token = x.nextToken();
-                        if (!(token instanceof String)) {
-                            throw x.syntaxError("Missing value");
+                        if (token == EQ) {
+                            token = x.nextToken();
+                            if (!(token instanceof String)) {
+                                throw x.syntaxError("Missing value");
+                            }
+                            jsonobject.accumulate(string, 
+                                    XML.stringToValue((String)token));
+                            token = null;
+                        } else {
+                            jsonobject.accumulate(string, "");
                         }
-                        jsonobject.accumulate(string, 
-                                XML.stringToValue((String)token));
-                        token = null;
-                    } else {
-                        jsonobject.accumulate(string, "");
-                    }
 
 // Empty tag <.../>
 
-                } else if (token == SLASH) {
-                    if (x.nextToken() != GT) {
-                        throw x.syntaxError("Misshaped tag");
-                    }
-                    if (jsonobject.length() > 0) {
-                        context.accumulate(tagName, jsonobject);
-                    } else {
-                        context.accumulate(tagName, "");
-                    }
-                    return false;
+                    } else if (token == SLASH) {
+                        if (x.nextToken() != GT) {
+                            throw x.syntaxError("Misshaped tag");
+                        }
+                        if (jsonobject.length() > 0) {
+                            parent.accumulate(tagName, jsonobject);
+                        } else {
+                            parent.accumulate(tagName, "");
+                        }
+                        break;
 
 // Content, between <...> and </...>
 
-                } else if (token == GT) {
-                    for (;;) {
-                        token = x.nextContent();
-                        if (token == null) {
-                            if (tagName != null) {
-                                throw x.syntaxError("Unclosed tag " + tagName);
-                            }
-                            return false;
-                        } else if (token instanceof String) {
-                            string = (String)token;
-                            if (string.length() > 0) {
-                                jsonobject.accumulate("content", 
-                                        XML.stringToValue(string));
-                            }
+                    } else if (token == GT) {
+                        if (top >= x.getMaxDepth()) {
+                            throw x.syntaxError("Nesting too deep");
+                        }
+                        if (top == names.length) {
+                            String[] grownNames = new String[top * 2];
+                            JSONObject[] grownObjects = new JSONObject[top * 2];
+                            System.arraycopy(names, 0, grownNames, 0, top);
+                            System.arraycopy(objects, 0, grownObjects, 0, top);
+                            names = grownNames;
+                            objects = grownObjects;
+                        }
+                        names[top] = tagName;
+                        objects[top] = jsonobject;
+                        top += 1;
+                        break;
+                    } else {
+                        throw x.syntaxError("Misshaped tag");
+                    }
+                }
+            }
 
-// Nested element
+// With no element open, the tag has been scanned. Otherwise the content of
+// the innermost element is scanned up to its next tag.
 
-                        } else if (token == LT) {
-                            if (parse(x, jsonobject, tagName)) {
-                                if (jsonobject.length() == 0) {
-                                    context.accumulate(tagName, "");
-                                } else if (jsonobject.length() == 1 &&
-                                       jsonobject.opt("content") != null) {
-                                    context.accumulate(tagName, 
-                                            jsonobject.opt("content"));
-                                } else {
-                                    context.accumulate(tagName, jsonobject);
-                                }
-                                return false;
-                            }
-                        }
+            if (top == 0) {
+                return;
+            }
+            for (;;) {
+                token = x.nextContent();
+                if (token == null) {
+                    throw x.syntaxError("Unclosed tag " + names[top - 1]);
+                } else if (token instanceof String) {
+                    string = (String)token;
+                    if (string.length() > 0) {
+                        objects[top - 1].accumulate("content", 
+                                XML.stringToValue(string));
                     }
-                } else {
-                    throw x.syntaxError("Misshaped tag");
+                } else if (token == LT) {
+                    break;
                 }
             }
         }
@@ -334,6 +365,15 @@ public class XML {
                 if (string.indexOf('.') >= 0) {
                     return Double.valueOf(string);
                 } else if (string.indexOf('e') < 0 && string.indexOf('E') < 0) {
+
+// Only a string of digits can be a long, so there is no need to throw and catch
+// an exception to find out that anything else is not.
+
+                    for (int i = negative ? 1 : 0; i < string.length(); i += 1) {
+                        if (Character.digit(string.charAt(i), 10) < 0) {
+                            return string;
+                        }
+                    }
                     Long myLong = new Long(string);
                     if (myLong.longValue() == myLong.intValue()) {
                         return new Integer(myLong.intValue());
@@ -363,10 +403,22 @@ public class XML {
      * @throws JSONException
      */
     public static JSONObject toJSONObject(String string) throws JSONException {
+        return toJSONObject(new XMLTokener(string));
+    }
+
+
+    /**
+     * Convert a well-formed (but not necessarily valid) XML text into a
+     * JSONObject, as toJSONObject(String) does. Elements may be nested no
+     * deeper than the XMLTokener's maximum depth.
+     * @param x An XMLTokener of the XML source text.
+     * @return A JSONObject containing the structured data from the XML text.
+     * @throws JSONException
+     */
+    public static JSONObject toJSONObject(XMLTokener x) throws JSONException {
         JSONObject jo = new JSONObject();
-        XMLTokener x = new XMLTokener(string);
         while (x.more() && x.skipPast("<")) {
-            parse(x, jo, null);
+            parse(x, jo);
         }
         return jo;
     }
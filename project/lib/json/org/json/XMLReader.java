@@ -0,0 +1,470 @@
+package org.json;
+
+import java.io.Reader;
+import java.io.Writer;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+/**
+ * XMLReader reads an XML text one event at a time, without building a tree
+ * for it, in the way that JSONReader reads a JSON text. Each call to
+ * <code>next</code> returns the next event: <code>START_ELEMENT</code>,
+ * <code>ATTRIBUTE</code>, <code>TEXT</code>, <code>END_ELEMENT</code>, and
+ * finally <code>END_DOCUMENT</code>. For example, <pre>
+ * XMLReader reader = new XMLReader(opfReader);
+ * while (reader.next() != XMLReader.END_DOCUMENT) {
+ *     if (reader.getEvent() == XMLReader.ATTRIBUTE &&
+ *             reader.getName().equals("href")) {
+ *         hrefs.add(reader.getValue());
+ *     }
+ * }</pre>
+ * collects every href in an EPUB package document, holding only one
+ * attribute at a time.
+ * <p>
+ * The reader accepts the same texts as XML.toJSONObject. Each element's
+ * attributes
+ * follow its START_ELEMENT, and an empty element <code>&lt;x/></code> gives a
+ * START_ELEMENT and an END_ELEMENT. Text is trimmed, and text that is only
+ * whitespace gives no event. Attribute values and text are converted with
+ * XML.stringToValue, while the text of a CDATA block is given as it is.
+ * Comments, prologs, DTDs, and text outside of any element are skipped. An
+ * element may follow another at the outermost level.
+ * <p>
+ * <code>write</code> writes the next element to a Writer in the JSONML array
+ * form, as JSONML.toJSONArray(string).toString() would, but without making
+ * JSONArrays for it. The one difference is a <code>&lt;!-</code> that does
+ * not begin a comment: it is skipped up to its <code>></code>, as
+ * XML.toJSONObject skips it, where JSONML reads what follows it as text.
+ * It reads the element one event at a time and has no
+ * recursion, so the size of the element is not limited by memory, nor its
+ * depth by the stack. Elements nested deeper than the XMLTokener's maximum
+ * depth are a syntax error.
+ * @author JSON.org
+ * @version 2026-10-18
+ */
+public class XMLReader {
+
+    /**
+     * The event for the start tag of an element. getName returns the tag
+     * name.
+     */
+    public static final int START_ELEMENT = 1;
+
+    /**
+     * The event for the end tag of an element, or for the end of an empty
+     * element. getName returns the tag name.
+     */
+    public static final int END_ELEMENT = 2;
+
+    /**
+     * The event for an attribute of an element. getName returns the name and
+     * getValue the value.
+     */
+    public static final int ATTRIBUTE = 3;
+
+    /**
+     * The event for the text content of an element, or for a CDATA block.
+     * getValue returns the text.
+     */
+    public static final int TEXT = 4;
+
+    /**
+     * The event after the end of the source. Every later call to next
+     * returns it again.
+     */
+    public static final int END_DOCUMENT = 5;
+
+    /**
+     * The last event returned by next, or 0 before the first call.
+     */
+    private int event;
+
+    /**
+     * The current mode. Values:
+     * 'a' (in a start tag, next is an attribute, '/', or '>'),
+     * 'c' (in content, next is text or a tag),
+     * 'd' (done).
+     */
+    private char mode;
+
+    /**
+     * The name of the last START_ELEMENT, END_ELEMENT, or ATTRIBUTE event.
+     */
+    private String name;
+
+    /**
+     * The names of the elements that are open.
+     */
+    private String stack[];
+
+    /**
+     * A token read ahead in a start tag, or null.
+     */
+    private Object token;
+
+    /**
+     * The stack top index. A value of 0 indicates that no element is open.
+     */
+    private int top;
+
+    /**
+     * The value of the last ATTRIBUTE or TEXT event.
+     */
+    private Object value;
+
+    /**
+     * The tokener that supplies the text.
+     */
+    private final XMLTokener x;
+
+
+    /**
+     * Make an XMLReader that reads from an XMLTokener.
+     * @param x An XMLTokener.
+     */
+    public XMLReader(XMLTokener x) {
+        this.event = 0;
+        this.mode = 'c';
+        this.stack = new String[16];
+        this.top = 0;
+        this.x = x;
+    }
+
+
+    /**
+     * Make an XMLReader that reads from a Reader.
+     * @param reader A reader.
+     */
+    public XMLReader(Reader reader) {
+        this(new XMLTokener(reader));
+    }
+
+
+    /**
+     * Make an XMLReader that reads from a string.
+     * @param source An XML text.
+     */
+    public XMLReader(String source) {
+        this(new XMLTokener(source));
+    }
+
+
+    /**
+     * Get the number of elements that are open. It is 1 after the
+     * START_ELEMENT of an outermost element, and 0 again after its
+     * END_ELEMENT.
+     * @return The nesting depth.
+     */
+    public int getDepth() {
+        return this.top;
+    }
+
+
+    /**
+     * Get the last event returned by next.
+     * @return An event, or 0 if next has not been called.
+     */
+    public int getEvent() {
+        return this.event;
+    }
+
+
+    /**
+     * Get the name of the last START_ELEMENT, END_ELEMENT, or ATTRIBUTE
+     * event.
+     * @return The tag or attribute name, or null after any other event.
+     */
+    public String getName() {
+        switch (this.event) {
+        case START_ELEMENT:
+        case END_ELEMENT:
+        case ATTRIBUTE:
+            return this.name;
+        default:
+            return null;
+        }
+    }
+
+
+    /**
+     * Get the value of the last ATTRIBUTE or TEXT event.
+     * @return A Boolean, Double, Integer, Long, String, or the
+     *  JSONObject.NULL object, or null after any other event.
+     */
+    public Object getValue() {
+        return this.event == ATTRIBUTE || this.event == TEXT
+            ? this.value
+            : null;
+    }
+
+
+    /**
+     * Read the next event.
+     * @return One of START_ELEMENT, END_ELEMENT, ATTRIBUTE, TEXT, or
+     *  END_DOCUMENT.
+     * @throws JSONException If the XML is badly structured.
+     */
+    public int next() throws JSONException {
+        for (;;) {
+            switch (this.mode) {
+            case 'a':
+                if (this.token == null) {
+                    this.token = this.x.nextToken();
+                }
+                if (this.token instanceof String) {
+                    return this.attribute();
+                }
+                if (this.token == XML.SLASH) {
+
+// Empty tag <.../>
+
+                    this.token = null;
+                    if (this.x.nextToken() != XML.GT) {
+                        throw this.x.syntaxError("Misshaped tag");
+                    }
+                    this.mode = 'c';
+                    return this.end();
+                }
+                if (this.token != XML.GT) {
+                    throw this.x.syntaxError("Misshaped tag");
+                }
+                this.token = null;
+                this.mode = 'c';
+                break;
+            case 'c':
+                Object content = this.x.nextContent();
+                if (content == null) {
+                    if (this.top > 0) {
+                        throw this.x.syntaxError("Unclosed tag " +
+                                this.stack[this.top - 1]);
+                    }
+                    this.mode = 'd';
+                    break;
+                }
+                if (content != XML.LT) {
+                    String string = (String)content;
+                    if (this.top > 0 && string.length() > 0) {
+                        return this.text(XML.stringToValue(string));
+                    }
+                    break;
+                }
+                int tag = this.tag();
+                if (tag != 0) {
+                    return tag;
+                }
+                break;
+            default:
+                this.event = END_DOCUMENT;
+                return END_DOCUMENT;
+            }
+        }
+    }
+
+
+    /**
+     * Write the next element, and everything in it, as a JSONML array. It is
+     * for use where next would return START_ELEMENT, or just after it did.
+     * Text between the elements is skipped. The writer is flushed.
+     * @param writer A Writer.
+     * @return The writer.
+     * @throws JSONException If the XML is badly structured, or if there is
+     *  no next element.
+     */
+    public Writer write(Writer writer) throws JSONException {
+        if (this.event != START_ELEMENT || this.mode != 'a') {
+            do {
+                if (this.next() == END_DOCUMENT) {
+                    throw new JSONException("No element to write.");
+                }
+            } while (this.event != START_ELEMENT);
+        }
+        JSONSerializer out = new JSONSerializer(writer);
+        int depth = this.top - 1;
+        JSONObject attributes = null;
+        out.write('[');
+        out.value(this.name);
+        do {
+            int event = this.next();
+
+// The attributes of an element are gathered into one object, which is written
+// after its name when the first event that is not an attribute comes.
+
+            if (event != ATTRIBUTE && attributes != null) {
+                out.write(',');
+                out.value(attributes);
+                attributes = null;
+            }
+            switch (event) {
+            case START_ELEMENT:
+                out.write(',');
+                out.write('[');
+                out.value(this.name);
+                break;
+            case ATTRIBUTE:
+                if (attributes == null) {
+                    attributes = new JSONObject();
+                }
+                attributes.accumulate(this.name, this.value);
+                break;
+            case TEXT:
+                out.write(',');
+                out.value(this.value);
+                break;
+            case END_ELEMENT:
+                out.write(']');
+                break;
+            }
+        } while (this.top > depth);
+        out.flush();
+        return writer;
+    }
+
+
+    /**
+     * Read an attribute, whose name is the token read ahead.
+     */
+    private int attribute() throws JSONException {
+        this.name = (String)this.token;
+        this.token = this.x.nextToken();
+        if (this.token == XML.EQ) {
+            this.token = this.x.nextToken();
+            if (!(this.token instanceof String)) {
+                throw this.x.syntaxError("Missing value");
+            }
+            this.value = XML.stringToValue((String)this.token);
+            this.token = null;
+        } else {
+            this.value = "";
+        }
+        this.event = ATTRIBUTE;
+        return ATTRIBUTE;
+    }
+
+
+    /**
+     * End the innermost element.
+     */
+    private int end() {
+        this.top -= 1;
+        this.name = this.stack[this.top];
+        this.stack[this.top] = null;
+        this.event = END_ELEMENT;
+        return END_ELEMENT;
+    }
+
+
+    /**
+     * Read a tag after its '<'.
+     * @return START_ELEMENT, END_ELEMENT, or TEXT, or 0 if the tag was
+     *  skipped.
+     */
+    private int tag() throws JSONException {
+        Object token = this.x.nextToken();
+
+// <!
+
+        if (token == XML.BANG) {
+            char c = this.x.next();
+            if (c == '-') {
+                if (this.x.next() == '-') {
+                    this.x.skipPast("-->");
+                    return 0;
+                }
+                this.x.back();
+            } else if (c == '[') {
+                token = this.x.nextToken();
+                if ("CDATA".equals(token) && this.x.next() == '[') {
+                    String string = this.x.nextCDATA();
+                    return this.top > 0 ? this.text(string) : 0;
+                }
+                throw this.x.syntaxError("Expected 'CDATA['");
+            }
+            int i = 1;
+            do {
+                token = this.x.nextMeta();
+                if (token == XML.LT) {
+                    i += 1;
+                } else if (token == XML.GT) {
+                    i -= 1;
+                }
+            } while (i > 0);
+            return 0;
+        }
+
+// <?
+
+        if (token == XML.QUEST) {
+            this.x.skipPast("?>");
+            return 0;
+        }
+
+// Close tag </
+
+        if (token == XML.SLASH) {
+            token = this.x.nextToken();
+            if (this.top == 0) {
+                throw this.x.syntaxError("Mismatched close tag " + token);
+            }
+            if (!token.equals(this.stack[this.top - 1])) {
+                throw this.x.syntaxError("Mismatched '" +
+                        this.stack[this.top - 1] + "' and '" + token + "'");
+            }
+            if (this.x.nextToken() != XML.GT) {
+                throw this.x.syntaxError("Misshaped close tag");
+            }
+            return this.end();
+        }
+        if (!(token instanceof String)) {
+            throw this.x.syntaxError("Misshaped tag");
+        }
+
+// Open tag <
+
+        if (this.top >= this.x.getMaxDepth()) {
+            throw this.x.syntaxError("Nesting too deep");
+        }
+        if (this.top == this.stack.length) {
+            String[] grown = new String[this.stack.length * 2];
+            System.arraycopy(this.stack, 0, grown, 0, this.top);
+            this.stack = grown;
+        }
+        this.name = (String)token;
+        this.stack[this.top] = this.name;
+        this.top += 1;
+        this.mode = 'a';
+        this.event = START_ELEMENT;
+        return START_ELEMENT;
+    }
+
+
+    /**
+     * Give a TEXT event.
+     */
+    private int text(Object value) {
+        this.value = value;
+        this.event = TEXT;
+        return TEXT;
+    }
+}
@@ -1,5 +1,7 @@
 package org.json;
 
+import java.io.Reader;
+
 /*
 Copyright (c) 2002 JSON.org
 
@@ -26,9 +28,13 @@ SOFTWARE.
 
 /**
  * The XMLTokener extends the JSONTokener to provide additional methods
- * for the parsing of XML texts.
+ * for the parsing of XML texts. Content text, CDATA blocks, and quoted
+ * attribute values are copied out of the source in runs, up to the next
+ * markup or entity, rather than one character at a time. It also holds the
+ * limit on how deeply nested the elements that XML, JSONML, and XMLReader
+ * read from it may be.
  * @author JSON.org
- * @version 2010-12-24
+ * @version 2026-10-18
  */
 public class XMLTokener extends JSONTokener {
 
@@ -47,6 +53,11 @@ public class XMLTokener extends JSONTokener {
        entity.put("quot", XML.QUOT);
    }
 
+    /**
+     * The StringBuilder that tokens are collected in, reused for each token.
+     */
+    private final StringBuilder builder = new StringBuilder();
+
     /**
      * Construct an XMLTokener from a string.
      * @param s A source string.
@@ -55,28 +66,26 @@ public class XMLTokener extends JSONTokener {
         super(s);
     }
 
+    /**
+     * Construct an XMLTokener from a Reader.
+     * @param reader A reader.
+     */
+    public XMLTokener(Reader reader) {
+        super(reader);
+    }
+
     /**
      * Get the text in the CDATA block.
      * @return The string up to the <code>]]&gt;</code>.
      * @throws JSONException If the <code>]]&gt;</code> is not found.
      */
     public String nextCDATA() throws JSONException {
-        char         c;
-        int          i;
-        StringBuffer sb = new StringBuffer();
-        for (;;) {
-            c = next();
-            if (end()) {
-                throw syntaxError("Unclosed CDATA");
-            }
-            sb.append(c);
-            i = sb.length() - 3;
-            if (i >= 0 && sb.charAt(i) == ']' &&
-                          sb.charAt(i + 1) == ']' && sb.charAt(i + 2) == '>') {
-                sb.setLength(i);
-                return sb.toString();
-            }
+        StringBuilder sb = builder;
+        sb.setLength(0);
+        if (!copyPast("]]>", sb)) {
+            throw syntaxError("Unclosed CDATA");
         }
+        return sb.toString();
     }
 
 
@@ -90,8 +99,8 @@ public class XMLTokener extends JSONTokener {
      * @throws JSONException
      */
     public Object nextContent() throws JSONException {
-        char         c;
-        StringBuffer sb;
+        char          c;
+        StringBuilder sb;
         do {
             c = next();
         } while (Character.isWhitespace(c));
@@ -101,18 +110,23 @@ public class XMLTokener extends JSONTokener {
         if (c == '<') {
             return XML.LT;
         }
-        sb = new StringBuffer();
+        back();
+        sb = builder;
+        sb.setLength(0);
         for (;;) {
-            if (c == '<' || c == 0) {
-                back();
-                return sb.toString().trim();
-            }
-            if (c == '&') {
-                sb.append(nextEntity(c));
-            } else {
-                sb.append(c);
+            c = copyTo("<&", sb);
+            if (c != '&') {
+                int start = 0;
+                int end = sb.length();
+                while (start < end && sb.charAt(start) <= ' ') {
+                    start += 1;
+                }
+                while (end > start && sb.charAt(end - 1) <= ' ') {
+                    end -= 1;
+                }
+                return sb.substring(start, end);
             }
-            c = next();
+            sb.append(nextEntity(next()));
         }
     }
 
@@ -219,7 +233,7 @@ public class XMLTokener extends JSONTokener {
     public Object nextToken() throws JSONException {
         char c;
         char q;
-        StringBuffer sb;
+        StringBuilder sb;
         do {
             c = next();
         } while (Character.isWhitespace(c));
@@ -244,8 +258,10 @@ public class XMLTokener extends JSONTokener {
         case '"':
         case '\'':
             q = c;
-            sb = new StringBuffer();
+            sb = builder;
+            sb.setLength(0);
             for (;;) {
+                copyTo(q == '"' ? "\"&" : "'&", sb);
                 c = next();
                 if (c == 0) {
                     throw syntaxError("Unterminated string");
@@ -253,17 +269,14 @@ public class XMLTokener extends JSONTokener {
                 if (c == q) {
                     return sb.toString();
                 }
-                if (c == '&') {
-                    sb.append(nextEntity(c));
-                } else {
-                    sb.append(c);
-                }
+                sb.append(nextEntity(c));
             }
         default:
 
 // Name
 
-            sb = new StringBuffer();
+            sb = builder;
+            sb.setLength(0);
             for (;;) {
                 sb.append(c);
                 c = next();
@@ -299,67 +312,6 @@ public class XMLTokener extends JSONTokener {
      * @throws JSONException
      */
     public boolean skipPast(String to) throws JSONException {
-        boolean b;
-        char c;
-        int i;
-        int j;
-        int offset = 0;
-        int length = to.length();
-        char[] circle = new char[length];
-        
-        /*
-         * First fill the circle buffer with as many characters as are in the
-         * to string. If we reach an early end, bail.
-         */
-        
-        for (i = 0; i < length; i += 1) {
-            c = next();
-            if (c == 0) {
-                return false;
-            }
-            circle[i] = c;
-        }
-        /*
-         * We will loop, possibly for all of the remaining characters.
-         */
-        for (;;) {
-            j = offset;
-            b = true;
-            /*
-             * Compare the circle buffer with the to string. 
-             */
-            for (i = 0; i < length; i += 1) {
-                if (circle[j] != to.charAt(i)) {
-                    b = false;
-                    break;
-                }
-                j += 1;
-                if (j >= length) {
-                    j -= length;
-                }
-            }
-            /*
-             * If we exit the loop with b intact, then victory is ours.
-             */
-            if (b) {
-                return true;
-            }
-            /*
-             * Get the next character. If there isn't one, then defeat is ours.
-             */
-            c = next();
-            if (c == 0) {
-                return false;
-            }
-            /*
-             * Shove the character in the circle buffer and advance the 
-             * circle offset. The offset is mod n.
-             */
-            circle[offset] = c;
-            offset += 1;
-            if (offset >= length) {
-                offset -= length;
-            }
-        }
+        return copyPast(to, null);
     }
 }
@@ -24,5 +24,9 @@ public class S_ClientApp
 	
 	public static final double VIEWING_CELL_CLOSE_BUTTON_DISTANCE_OFFSET = 100;
 	
+	public static final int PAGE_IMAGE_LEVEL_CHECK_INTERVAL = 250; // milliseconds
+	
+	public static final double PAGE_IMAGE_LEVEL_SETTLE_TIME = 1000; // milliseconds
+	
 	public static final String APP_ID = "";
 }
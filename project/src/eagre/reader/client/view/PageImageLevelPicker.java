@@ -0,0 +1,168 @@
+package eagre.reader.client.view;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+
+import swarm.client.states.camera.StateMachine_Camera;
+import swarm.client.view.I_UIElement;
+import swarm.shared.statemachine.StateEvent;
+
+import eagre.reader.client.app.S_ClientApp;
+import eagre.reader.shared.images.PageImagePyramid;
+
+/**
+ * Keeps every page image on screen at the pyramid level that matches how big it's actually drawn.
+ * Measures with getBoundingClientRect(), which takes the camera's zoom into account however the
+ * cell container applies it, so zoomed-out views keep small tiles and a page being read gets the original.
+ * 
+ * Only does work while the camera is moving and for a short while after it stops, so an idle view costs nothing.
+ * An image that finishes loading outside of that window, e.g. in a cell whose code arrived after the camera stopped,
+ * gets its level picked when it loads instead of staying at the smallest level until the camera next moves.
+ */
+public class PageImageLevelPicker implements I_UIElement
+{
+	private double m_lastCameraChange = Double.NEGATIVE_INFINITY;
+	private double m_lastUpdate = Double.NEGATIVE_INFINITY;
+	
+	/**
+	 * Starts picking levels for page images as they load. Camera movement comes in through {@link #onStateEvent}.
+	 */
+	public void start()
+	{
+		listenForImageLoads();
+	}
+	
+	@Override
+	public void onStateEvent(StateEvent event)
+	{
+		switch( event.getType() )
+		{
+			case DID_ENTER:
+			{
+				//--- DRK > New cells can come into view on any camera state change, e.g. arriving at a cell.
+				if( event.getState().getParent() instanceof StateMachine_Camera )
+				{
+					m_lastCameraChange = Duration.currentTimeMillis();
+				}
+				
+				break;
+			}
+			
+			case DID_PERFORM_ACTION:
+			{
+				if( event.getAction() == StateMachine_Camera.SetCameraTarget.class )
+				{
+					m_lastCameraChange = Duration.currentTimeMillis();
+				}
+				
+				break;
+			}
+			
+			case DID_UPDATE:
+			{
+				if( !(event.getState().getParent() instanceof StateMachine_Camera) )  break;
+				
+				double now = Duration.currentTimeMillis();
+				
+				//--- DRK > Camera keeps easing toward its target after the last input, so keep checking until it has had time to settle.
+				if( now - m_lastCameraChange > S_ClientApp.PAGE_IMAGE_LEVEL_SETTLE_TIME )  break;
+				
+				//--- DRK > Camera updates every frame while moving, but levels only need to keep up roughly.
+				if( now - m_lastUpdate < S_ClientApp.PAGE_IMAGE_LEVEL_CHECK_INTERVAL )  break;
+				
+				m_lastUpdate = now;
+				
+				update();
+				
+				break;
+			}
+		}
+	}
+
+	private void update()
+	{
+		JsArray<JavaScriptObject> images = getPageImages();
+		double pixelRatio = getDevicePixelRatio();
+
+		for( int i = 0; i < images.length(); i++ )
+		{
+			pickLevel(images.get(i), pixelRatio);
+		}
+	}
+
+	private void onImageLoaded(JavaScriptObject image)
+	{
+		//--- DRK > Loading the level picked here fires this again, but picks the same level, so it stops there.
+		pickLevel(image, getDevicePixelRatio());
+	}
+
+	private static void pickLevel(JavaScriptObject image, double pixelRatio)
+	{
+		double width = getDisplayedWidth(image);
+
+		//--- DRK > Not laid out (e.g. cell off screen or still hidden), leave it alone.
+		if( width <= 0 )  return;
+
+		//--- DRK > URLs are content-hashed, so they can't be derived from the level here and come listed in the markup, largest first.
+		String[] levels = getAttribute(image, "data-er-image-levels").split(" ");
+		int level = Math.min(PageImagePyramid.getLevel(width * pixelRatio), levels.length - 1);
+
+		if( !levels[level].equals(getAttribute(image, "src")) )
+		{
+			setSrc(image, levels[level]);
+		}
+	}
+
+	/**
+	 * Image load events don't bubble, so this listens in the capture phase on the document, which sees every image
+	 * however and whenever its cell's code was inserted.
+	 */
+	private native void listenForImageLoads()
+	/*-{
+		var picker = this;
+
+		$doc.addEventListener('load', $entry(function(event)
+		{
+			var target = event.target;
+
+			if( target.getAttribute && target.getAttribute('data-er-image-levels') )
+			{
+				picker.@eagre.reader.client.view.PageImageLevelPicker::onImageLoaded(Lcom/google/gwt/core/client/JavaScriptObject;)(target);
+			}
+		}), true);
+	}-*/;
+
+	private static native JsArray<JavaScriptObject> getPageImages()
+	/*-{
+		var nodes = $doc.querySelectorAll('img[data-er-image-levels]');
+		var images = [];
+
+		for( var i = 0; i < nodes.length; i++ )
+		{
+			images.push(nodes[i]);
+		}
+
+		return images;
+	}-*/;
+
+	private static native double getDevicePixelRatio()
+	/*-{
+		return $wnd.devicePixelRatio || 1;
+	}-*/;
+
+	private static native double getDisplayedWidth(JavaScriptObject image)
+	/*-{
+		return image.getBoundingClientRect().width;
+	}-*/;
+
+	private static native String getAttribute(JavaScriptObject image, String name)
+	/*-{
+		return image.getAttribute(name) || "";
+	}-*/;
+
+	private static native void setSrc(JavaScriptObject image, String src)
+	/*-{
+		image.setAttribute('src', src);
+	}-*/;
+}
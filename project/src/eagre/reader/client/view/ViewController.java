@@ -10,6 +10,8 @@ import swarm.shared.statemachine.A_Action;
 
 public class ViewController extends swarm.client.view.ViewController
 {
+	private final PageImageLevelPicker m_pageImageLevelPicker = new PageImageLevelPicker();
+	
 	public ViewController(ViewContext viewContext, ViewConfig config, ClientAppConfig appConfig)
 	{
 		super(viewContext, config, appConfig);
@@ -28,5 +30,8 @@ public class ViewController extends swarm.client.view.ViewController
 		VisualCellHud cellHud = new VisualCellHud(m_viewContext, m_appConfig);
 		this.addStateListener(cellHud);
 		cellContainer.getScrollContainer().add(cellHud);
+		
+		this.addStateListener(m_pageImageLevelPicker);
+		m_pageImageLevelPicker.start();
 	}
 }
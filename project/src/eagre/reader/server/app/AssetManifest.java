@@ -0,0 +1,121 @@
+package eagre.reader.server.app;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.servlet.ServletContext;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/**
+ * Maps static asset paths to their content-hashed copies, e.g. "/r.app/min.css" to "/r.cache/r.app/min.3f2a9c1b4e5d.cache.css".
+ * Hashed copies fall under the "**.cache.*" rule in appengine-web.xml, so they're served as immutable for a year;
+ * a changed asset gets a new name instead of having to be re-validated.
+ * <p>
+ * The manifest is written at build time by eagre.reader.tools.AssetManifestGenerator. If it's missing, every
+ * path resolves to itself, which is what you want on a dev server that hasn't run the build.
+ */
+public class AssetManifest
+{
+	private static final Logger s_logger = Logger.getLogger(AssetManifest.class.getName());
+
+	public static final String PATH = "/WEB-INF/asset-manifest.json";
+
+	private static final String ATTRIBUTE = AssetManifest.class.getName();
+
+	private final Map<String, String> m_paths;
+
+	AssetManifest(Map<String, String> paths)
+	{
+		m_paths = Collections.unmodifiableMap(paths);
+	}
+
+	/**
+	 * Returns the manifest for the web app, reading it the first time it's asked for.
+	 */
+	public static AssetManifest get(ServletContext servletContext)
+	{
+		AssetManifest manifest = (AssetManifest) servletContext.getAttribute(ATTRIBUTE);
+
+		if( manifest == null )
+		{
+			manifest = load(servletContext);
+			servletContext.setAttribute(ATTRIBUTE, manifest);
+		}
+
+		return manifest;
+	}
+
+	private static AssetManifest load(ServletContext servletContext)
+	{
+		Map<String, String> paths = new HashMap<String, String>();
+		InputStream stream = servletContext.getResourceAsStream(PATH);
+
+		if( stream == null )
+		{
+			s_logger.warning("No asset manifest at " + PATH + ", serving assets under their original names.");
+
+			return new AssetManifest(paths);
+		}
+
+		try
+		{
+			Reader reader = new InputStreamReader(stream, "UTF-8");
+			JSONObject json = new JSONObject(new JSONTokener(reader));
+			Iterator<?> keys = json.keys();
+
+			while( keys.hasNext() )
+			{
+				String key = (String) keys.next();
+				paths.put(key, json.getString(key));
+			}
+		}
+		catch (IOException e)
+		{
+			s_logger.log(Level.SEVERE, "Couldn't read the asset manifest.", e);
+		}
+		catch (JSONException e)
+		{
+			s_logger.log(Level.SEVERE, "Asset manifest is corrupt.", e);
+		}
+		finally
+		{
+			try
+			{
+				stream.close();
+			}
+			catch (IOException e)
+			{
+			}
+		}
+
+		s_logger.info("Loaded " + paths.size() + " hashed asset path(s).");
+
+		return new AssetManifest(paths);
+	}
+
+	/**
+	 * @return The hashed path for the asset, or the path itself if the asset isn't in the manifest.
+	 */
+	public String resolve(String path)
+	{
+		String hashed = m_paths.get(path);
+
+		return hashed != null ? hashed : path;
+	}
+
+	public int size()
+	{
+		return m_paths.size();
+	}
+}
@@ -10,6 +10,9 @@ public class EntryPoint implements ServletContextListener
 	public void contextInitialized(ServletContextEvent contextEvent)
 	{
 		new ServerApp();
+		
+		//--- DRK > Read the asset manifest up front rather than on the first page load.
+		AssetManifest.get(contextEvent.getServletContext());
 	}
 	
 	@Override
@@ -0,0 +1,88 @@
+package eagre.reader.server.books;
+
+/**
+ * Catalog entry for a book. Everything here is small and fixed-size so the whole catalog index
+ * can be loaded in one read; the table of contents is loaded separately through {@link BookCatalog}.
+ */
+public class Book
+{
+	private final String m_id;
+	private final String m_name;
+	private final int m_version;
+	private final int m_row;
+	private final int m_startImageIndex;
+	private final int m_pageCount;
+	private final E_BookSource m_source;
+	
+	public Book(String id, String name, int version, int row, int startImageIndex, int pageCount, E_BookSource source)
+	{
+		m_id = id;
+		m_name = name;
+		m_version = version;
+		m_row = row;
+		m_startImageIndex = startImageIndex;
+		m_pageCount = pageCount;
+		m_source = source;
+	}
+	
+	/**
+	 * The book's GUID.
+	 */
+	public String getId()
+	{
+		return m_id;
+	}
+	
+	/**
+	 * The name used as the root of the book's cell addresses, e.g. "ExploringGeology".
+	 */
+	public String getName()
+	{
+		return m_name;
+	}
+	
+	public int getVersion()
+	{
+		return m_version;
+	}
+	
+	/**
+	 * The grid row that the book's pages are laid out on.
+	 */
+	public int getRow()
+	{
+		return m_row;
+	}
+	
+	public E_BookSource getSource()
+	{
+		return m_source;
+	}
+	
+	/**
+	 * Only meaningful for {@link E_BookSource#IMAGES} books.
+	 */
+	public int getStartImageIndex()
+	{
+		return m_startImageIndex;
+	}
+	
+	public int getPageCount()
+	{
+		return m_pageCount;
+	}
+	
+	/**
+	 * Pages are 1-based and laid out one per grid column, so page N is at column N-1 of the book's row.
+	 */
+	public boolean containsPage(int page)
+	{
+		return page >= 1 && page <= m_pageCount;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return m_name;
+	}
+}
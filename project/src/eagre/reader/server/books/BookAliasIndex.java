@@ -0,0 +1,116 @@
+package eagre.reader.server.books;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Every address a book's pages answer to, built once from the book's table of contents.
+ * <p>
+ * Each page gets "Book/PageN". Every ToC entry at any depth adds its full path, e.g.
+ * "ExploringGeology/Chapter5/Section2", pointing at the page the entry starts on, and the
+ * first page also answers to the bare book name. Looking up a page's addresses is a single
+ * array access, and checking an address is a single hash lookup, no matter how deep the ToC is.
+ */
+public class BookAliasIndex
+{
+	private final Book m_book;
+	private final Set<String> m_addresses = new HashSet<String>();
+	private final String[][] m_addressesByPage;
+
+	public BookAliasIndex(Book book, List<BookTocEntry> toc)
+	{
+		m_book = book;
+
+		List<List<String>> addressesByPage = new ArrayList<List<String>>();
+
+		for( int page = 1; page <= book.getPageCount(); page++ )
+		{
+			List<String> addresses = new ArrayList<String>();
+			addressesByPage.add(addresses);
+
+			add(addresses, createPageAddress(book, page), page);
+		}
+
+		addTocEntries(addressesByPage, book.getName(), toc);
+
+		if( book.getPageCount() > 0 )
+		{
+			add(addressesByPage.get(0), book.getName(), 1);
+		}
+
+		m_addressesByPage = new String[addressesByPage.size()][];
+
+		for( int i = 0; i < addressesByPage.size(); i++ )
+		{
+			List<String> addresses = addressesByPage.get(i);
+			m_addressesByPage[i] = addresses.toArray(new String[addresses.size()]);
+		}
+	}
+
+	private void addTocEntries(List<List<String>> addressesByPage, String parentPath, List<BookTocEntry> entries)
+	{
+		for( int i = 0; i < entries.size(); i++ )
+		{
+			BookTocEntry entry = entries.get(i);
+			String path = parentPath + "/" + entry.getPathSegment();
+
+			if( m_book.containsPage(entry.getPage()) )
+			{
+				add(addressesByPage.get(entry.getPage()-1), path, entry.getPage());
+			}
+
+			addTocEntries(addressesByPage, path, entry.getChildren());
+		}
+	}
+
+	private void add(List<String> pageAddresses, String address, int page)
+	{
+		//--- DRK > First one wins if two ToC entries end up with the same path.
+		if( !m_addresses.add(address) )  return;
+
+		pageAddresses.add(address);
+	}
+
+	/**
+	 * The canonical address of a page, e.g. "ExploringGeology/Page100" for page 1.
+	 */
+	public static String createPageAddress(Book book, int page)
+	{
+		return book.getName()+"/Page"+(page-1+100);
+	}
+
+	public Book getBook()
+	{
+		return m_book;
+	}
+
+	/**
+	 * Whether the address is one of this book's, on any page.
+	 */
+	public boolean contains(String address)
+	{
+		return m_addresses.contains(address);
+	}
+
+	/**
+	 * All addresses of the given 1-based page, canonical page address first.
+	 */
+	public List<String> getAddresses(int page)
+	{
+		if( !m_book.containsPage(page) )  return Collections.emptyList();
+
+		return Collections.unmodifiableList(Arrays.asList(m_addressesByPage[page-1]));
+	}
+
+	/**
+	 * Total number of addresses across all pages.
+	 */
+	public int size()
+	{
+		return m_addresses.size();
+	}
+}
@@ -0,0 +1,494 @@
+package eagre.reader.server.books;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONReader;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.Text;
+
+/**
+ * Datastore-backed catalog of books on the grid.
+ * <p>
+ * The catalog is split in two so cold start doesn't grow with the number of titles. A single
+ * index entity holds the fixed-size {@link Book} rows and is read once at startup into in-memory
+ * maps, so id -> book -> row -> page range lookups are constant time. Each book's table of contents
+ * lives in its own entity and is only read (then cached) the first time something asks for it.
+ */
+public class BookCatalog
+{
+	private static final Logger s_logger = Logger.getLogger(BookCatalog.class.getName());
+
+	private static final String INDEX_KIND = "er_BookCatalog";
+	private static final String INDEX_NAME = "index";
+	private static final String BOOK_KIND = "er_Book";
+
+	private static final String BOOKS_PROPERTY = "books";
+	private static final String TOC_PROPERTY = "toc";
+
+	/**
+	 * Immutable snapshot of the index so readers never need to lock.
+	 */
+	private static class Index
+	{
+		private final List<Book> m_books;
+		private final Map<String, Book> m_byId = new HashMap<String, Book>();
+		private final Map<Integer, Book> m_byRow = new HashMap<Integer, Book>();
+
+		Index(List<Book> books)
+		{
+			m_books = Collections.unmodifiableList(books);
+
+			for( int i = 0; i < books.size(); i++ )
+			{
+				Book book = books.get(i);
+				m_byId.put(book.getId(), book);
+				m_byRow.put(book.getRow(), book);
+			}
+		}
+	}
+
+	private final DatastoreService m_datastore;
+	private volatile Index m_index = new Index(new ArrayList<Book>());
+	private volatile boolean m_loaded = false;
+	private final ConcurrentHashMap<String, List<BookTocEntry>> m_tocs = new ConcurrentHashMap<String, List<BookTocEntry>>();
+	private final ConcurrentHashMap<String, BookAliasIndex> m_aliasIndices = new ConcurrentHashMap<String, BookAliasIndex>();
+
+	public BookCatalog()
+	{
+		m_datastore = DatastoreServiceFactory.getDatastoreService();
+	}
+
+	/**
+	 * Reads the index into memory. If there's no index yet the prototype books are written as the initial catalog.
+	 * <p>
+	 * If the index can't be read, whether it's corrupt or the datastore fails, the catalog keeps what it had and
+	 * {@link #put} refuses to write until a later load succeeds, since writing would replace the stored index with
+	 * just the new book.
+	 */
+	public void load()
+	{
+		boolean missing = false;
+
+		m_loaded = false;
+
+		try
+		{
+			Entity entity = m_datastore.get(createIndexKey());
+			Text books = (Text) entity.getProperty(BOOKS_PROPERTY);
+
+			m_index = new Index(readBooks(new JSONReader(books.getValue())));
+			m_loaded = true;
+		}
+		catch (EntityNotFoundException e)
+		{
+			s_logger.info("No book catalog found, seeding it with the prototype books.");
+
+			missing = true;
+		}
+		catch (JSONException e)
+		{
+			s_logger.log(Level.SEVERE, "Book catalog index is corrupt, the catalog won't accept writes until it loads.", e);
+		}
+		catch (RuntimeException e)
+		{
+			//--- DRK > e.g. the datastore is unavailable, or the index property is missing or isn't Text.
+			s_logger.log(Level.SEVERE, "Couldn't read the book catalog index, the catalog won't accept writes until it loads.", e);
+		}
+
+		if( missing )
+		{
+			//--- DRK > There's no stored index for a write to replace, so writes are safe even if seeding fails partway.
+			m_loaded = true;
+
+			try
+			{
+				seed();
+			}
+			catch (RuntimeException e)
+			{
+				s_logger.log(Level.SEVERE, "Couldn't seed the book catalog.", e);
+			}
+		}
+
+		s_logger.info("Loaded " + m_index.m_books.size() + " book(s) into the catalog.");
+	}
+
+	private void seed()
+	{
+		put(new Book("6f1f0a2e-3b4c-4d2a-9f61-7f6d0d1c5a01", "ExploringGeology", 1, 0, 173, 7, E_BookSource.IMAGES), createSingleChapterToc(5));
+		put(new Book("b2d47c1e-85a9-4e0f-a3c2-1e9b6f4d7c02", "ExploringGeography", 1, 1, 180, 13, E_BookSource.IMAGES), createSingleChapterToc(3));
+	}
+
+	private static List<BookTocEntry> createSingleChapterToc(int chapter)
+	{
+		List<BookTocEntry> toc = new ArrayList<BookTocEntry>();
+		toc.add(new BookTocEntry("Chapter " + chapter, "Chapter" + chapter, 1));
+
+		return toc;
+	}
+
+	/**
+	 * Adds or replaces a book and its table of contents. Both entities go out in one batch put.
+	 *
+	 * @return The alias index the book had before, so addresses it no longer has can be removed, or null for a new book.
+	 * @throws IllegalStateException if the index hasn't loaded, since the stored index would be overwritten.
+	 */
+	public synchronized BookAliasIndex put(Book book, List<BookTocEntry> toc)
+	{
+		if( !m_loaded )
+		{
+			throw new IllegalStateException("Book catalog index didn't load, refusing to overwrite it with " + book.getName() + ".");
+		}
+
+		List<Book> books = new ArrayList<Book>(m_index.m_books);
+		Book existing = m_index.m_byId.get(book.getId());
+
+		if( existing != null )
+		{
+			books.remove(existing);
+		}
+
+		Book occupant = m_index.m_byRow.get(book.getRow());
+
+		if( occupant != null && occupant != existing )
+		{
+			throw new IllegalArgumentException("Row " + book.getRow() + " is already taken by " + occupant.getName() + ".");
+		}
+
+		books.add(book);
+
+		BookAliasIndex previousAliasIndex = existing != null ? getAliasIndex(existing) : null;
+
+		try
+		{
+			Entity indexEntity = new Entity(createIndexKey());
+			indexEntity.setUnindexedProperty(BOOKS_PROPERTY, new Text(writeBooks(books).toString()));
+
+			Entity bookEntity = new Entity(createBookKey(book.getId()));
+			bookEntity.setUnindexedProperty(TOC_PROPERTY, new Text(writeToc(toc).toString()));
+
+			List<Entity> entities = new ArrayList<Entity>();
+			entities.add(indexEntity);
+			entities.add(bookEntity);
+
+			m_datastore.put(entities);
+		}
+		catch (JSONException e)
+		{
+			throw new IllegalArgumentException("Couldn't serialize book " + book.getName() + ".", e);
+		}
+
+		m_index = new Index(books);
+		m_tocs.put(book.getId(), Collections.unmodifiableList(new ArrayList<BookTocEntry>(toc)));
+		m_aliasIndices.remove(book.getId());
+
+		return previousAliasIndex;
+	}
+
+	public List<Book> getBooks()
+	{
+		return m_index.m_books;
+	}
+
+	public List<Book> getBooks(E_BookSource source)
+	{
+		List<Book> books = new ArrayList<Book>();
+
+		for( int i = 0; i < m_index.m_books.size(); i++ )
+		{
+			if( m_index.m_books.get(i).getSource() == source )
+			{
+				books.add(m_index.m_books.get(i));
+			}
+		}
+
+		return books;
+	}
+
+	public Book getBook(String id)
+	{
+		return m_index.m_byId.get(id);
+	}
+
+	/**
+	 * The row just past the last one taken, for laying out a new book.
+	 */
+	public int getNextFreeRow()
+	{
+		List<Book> books = m_index.m_books;
+		int nextRow = 0;
+
+		for( int i = 0; i < books.size(); i++ )
+		{
+			nextRow = Math.max(nextRow, books.get(i).getRow() + 1);
+		}
+
+		return nextRow;
+	}
+
+	/**
+	 * Returns the book's table of contents, reading it from the datastore on first access.
+	 * Returns an empty list if the book has no stored ToC.
+	 */
+	public List<BookTocEntry> getTableOfContents(Book book)
+	{
+		List<BookTocEntry> toc = m_tocs.get(book.getId());
+
+		if( toc != null )  return toc;
+
+		toc = new ArrayList<BookTocEntry>();
+
+		try
+		{
+			Entity entity = m_datastore.get(createBookKey(book.getId()));
+			Text tocText = (Text) entity.getProperty(TOC_PROPERTY);
+
+			if( tocText != null )
+			{
+				toc = readToc(new JSONArray(tocText.getValue()));
+			}
+		}
+		catch (EntityNotFoundException e)
+		{
+			s_logger.warning("No table of contents stored for " + book.getName() + ".");
+		}
+		catch (JSONException e)
+		{
+			s_logger.log(Level.SEVERE, "Table of contents for " + book.getName() + " is corrupt.", e);
+		}
+
+		toc = Collections.unmodifiableList(toc);
+		List<BookTocEntry> raced = m_tocs.putIfAbsent(book.getId(), toc);
+
+		return raced != null ? raced : toc;
+	}
+
+	/**
+	 * Returns every address of every page of the book, building it from the ToC on first access.
+	 */
+	public BookAliasIndex getAliasIndex(Book book)
+	{
+		BookAliasIndex aliasIndex = m_aliasIndices.get(book.getId());
+
+		if( aliasIndex != null && aliasIndex.getBook() == book )  return aliasIndex;
+
+		aliasIndex = new BookAliasIndex(book, getTableOfContents(book));
+		m_aliasIndices.put(book.getId(), aliasIndex);
+
+		return aliasIndex;
+	}
+
+	private static Key createIndexKey()
+	{
+		return KeyFactory.createKey(INDEX_KIND, INDEX_NAME);
+	}
+
+	private static Key createBookKey(String id)
+	{
+		return KeyFactory.createKey(BOOK_KIND, id);
+	}
+
+	private static JSONArray writeBooks(List<Book> books) throws JSONException
+	{
+		JSONArray array = new JSONArray();
+
+		for( int i = 0; i < books.size(); i++ )
+		{
+			Book book = books.get(i);
+			JSONObject json = new JSONObject();
+			json.put("id", book.getId());
+			json.put("name", book.getName());
+			json.put("version", book.getVersion());
+			json.put("row", book.getRow());
+			json.put("startImage", book.getStartImageIndex());
+			json.put("pageCount", book.getPageCount());
+			json.put("source", book.getSource().name());
+
+			array.put(json);
+		}
+
+		return array;
+	}
+
+	/**
+	 * Streams the index rather than building a JSONArray of it, since the index grows with every title
+	 * and is read on every cold start.
+	 */
+	private static List<Book> readBooks(JSONReader reader) throws JSONException
+	{
+		List<Book> books = new ArrayList<Book>();
+
+		if( reader.next() != JSONReader.START_ARRAY )
+		{
+			throw new JSONException("Book catalog index isn't an array.");
+		}
+
+		int event;
+
+		while( (event = reader.next()) == JSONReader.START_OBJECT )
+		{
+			books.add(readBook(reader));
+		}
+
+		if( event != JSONReader.END_ARRAY )
+		{
+			throw new JSONException("Book catalog index has an element that isn't a book.");
+		}
+
+		return books;
+	}
+
+	private static Book readBook(JSONReader reader) throws JSONException
+	{
+		String id = null;
+		String name = null;
+		Integer version = null;
+		Integer row = null;
+		Integer startImage = null;
+		Integer pageCount = null;
+		E_BookSource source = E_BookSource.IMAGES;
+
+		while( reader.next() == JSONReader.KEY )
+		{
+			String key = reader.getKey();
+
+			if( key.equals("id") )
+			{
+				id = readString(reader, key);
+			}
+			else if( key.equals("name") )
+			{
+				name = readString(reader, key);
+			}
+			else if( key.equals("version") )
+			{
+				version = readInt(reader, key);
+			}
+			else if( key.equals("row") )
+			{
+				row = readInt(reader, key);
+			}
+			else if( key.equals("startImage") )
+			{
+				startImage = readInt(reader, key);
+			}
+			else if( key.equals("pageCount") )
+			{
+				pageCount = readInt(reader, key);
+			}
+			else if( key.equals("source") )
+			{
+				source = readSource(reader, key);
+			}
+			else
+			{
+				reader.skip();
+			}
+		}
+
+		if( id == null || name == null || version == null || row == null || startImage == null || pageCount == null )
+		{
+			throw new JSONException("Book " + id + " is missing a field.");
+		}
+
+		return new Book(id, name, version, row, startImage, pageCount, source);
+	}
+
+	private static String readString(JSONReader reader, String key) throws JSONException
+	{
+		Object value = reader.nextValue();
+
+		if( !(value instanceof String) )  throw new JSONException("Book field " + key + " isn't a string.");
+
+		return (String) value;
+	}
+
+	private static E_BookSource readSource(JSONReader reader, String key) throws JSONException
+	{
+		String name = readString(reader, key);
+
+		try
+		{
+			return E_BookSource.valueOf(name);
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new JSONException("Book field " + key + " has unknown value " + name + ".");
+		}
+	}
+
+	private static int readInt(JSONReader reader, String key) throws JSONException
+	{
+		Object value = reader.nextValue();
+
+		if( !(value instanceof Number) )  throw new JSONException("Book field " + key + " isn't a number.");
+
+		return ((Number) value).intValue();
+	}
+
+	private static JSONArray writeToc(List<BookTocEntry> entries) throws JSONException
+	{
+		JSONArray array = new JSONArray();
+
+		for( int i = 0; i < entries.size(); i++ )
+		{
+			BookTocEntry entry = entries.get(i);
+			JSONObject json = new JSONObject();
+			json.put("title", entry.getTitle());
+			json.put("path", entry.getPathSegment());
+			json.put("page", entry.getPage());
+
+			if( !entry.getChildren().isEmpty() )
+			{
+				json.put("children", writeToc(entry.getChildren()));
+			}
+
+			array.put(json);
+		}
+
+		return array;
+	}
+
+	private static List<BookTocEntry> readToc(JSONArray array) throws JSONException
+	{
+		List<BookTocEntry> entries = new ArrayList<BookTocEntry>();
+
+		for( int i = 0; i < array.length(); i++ )
+		{
+			JSONObject json = array.getJSONObject(i);
+			BookTocEntry entry = new BookTocEntry(json.getString("title"), json.getString("path"), json.getInt("page"));
+
+			JSONArray children = json.optJSONArray("children");
+
+			if( children != null )
+			{
+				List<BookTocEntry> childEntries = readToc(children);
+
+				for( int j = 0; j < childEntries.size(); j++ )
+				{
+					entry.addChild(childEntries.get(j));
+				}
+			}
+
+			entries.add(entry);
+		}
+
+		return entries;
+	}
+}
@@ -0,0 +1,71 @@
+package eagre.reader.server.books;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One node of a book's table of contents, e.g. a chapter or a section within a chapter.
+ * The path segment is what shows up in cell addresses, so "Chapter5" with a child "Section2"
+ * maps to "ExploringGeology/Chapter5/Section2".
+ */
+public class BookTocEntry
+{
+	private final String m_title;
+	private final String m_pathSegment;
+	private final int m_page;
+	private final List<BookTocEntry> m_children = new ArrayList<BookTocEntry>();
+	
+	public BookTocEntry(String title, String pathSegment, int page)
+	{
+		m_title = title;
+		m_pathSegment = pathSegment;
+		m_page = page;
+	}
+	
+	public String getTitle()
+	{
+		return m_title;
+	}
+	
+	public String getPathSegment()
+	{
+		return m_pathSegment;
+	}
+	
+	/**
+	 * The 1-based page this entry starts on.
+	 */
+	public int getPage()
+	{
+		return m_page;
+	}
+	
+	public List<BookTocEntry> getChildren()
+	{
+		return Collections.unmodifiableList(m_children);
+	}
+	
+	public BookTocEntry addChild(BookTocEntry child)
+	{
+		m_children.add(child);
+		
+		return this;
+	}
+	
+	@Override
+	public boolean equals(Object object)
+	{
+		if( !(object instanceof BookTocEntry) )  return false;
+		
+		BookTocEntry entry = (BookTocEntry) object;
+		
+		return m_page == entry.m_page && m_title.equals(entry.m_title) && m_pathSegment.equals(entry.m_pathSegment) && m_children.equals(entry.m_children);
+	}
+	
+	@Override
+	public int hashCode()
+	{
+		return (m_title.hashCode() * 31 + m_pathSegment.hashCode()) * 31 + m_page;
+	}
+}
@@ -0,0 +1,17 @@
+package eagre.reader.server.books;
+
+/**
+ * Where a book's page content comes from.
+ */
+public enum E_BookSource
+{
+	/**
+	 * Pre-rendered page images under r.img/pages.
+	 */
+	IMAGES,
+	
+	/**
+	 * Spine items of a fixed-layout EPUB3 archive.
+	 */
+	EPUB;
+}
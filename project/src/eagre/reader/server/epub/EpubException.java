@@ -0,0 +1,16 @@
+package eagre.reader.server.epub;
+
+public class EpubException extends Exception
+{
+	private static final long serialVersionUID = 1L;
+	
+	public EpubException(String message)
+	{
+		super(message);
+	}
+	
+	public EpubException(String message, Throwable cause)
+	{
+		super(message, cause);
+	}
+}
@@ -0,0 +1,106 @@
+package eagre.reader.server.epub;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import eagre.reader.server.books.BookTocEntry;
+
+/**
+ * What the reader pulls out of an epub's OPF package document and navigation document.
+ * Only the spine, the nav path and a couple of metadata fields are kept, so this stays small
+ * no matter how much media the archive carries.
+ */
+public class EpubPackage
+{
+	private final String m_packagePath;
+	private String m_identifier;
+	private String m_title;
+	private String m_navPath;
+	
+	private final List<EpubSpineItem> m_spine = new ArrayList<EpubSpineItem>();
+	private final Map<String, Integer> m_spineIndices = new HashMap<String, Integer>();
+	private List<BookTocEntry> m_toc = new ArrayList<BookTocEntry>();
+	
+	EpubPackage(String packagePath)
+	{
+		m_packagePath = packagePath;
+	}
+	
+	void setIdentifier(String identifier)
+	{
+		m_identifier = identifier;
+	}
+	
+	void setTitle(String title)
+	{
+		m_title = title;
+	}
+	
+	void setNavPath(String navPath)
+	{
+		m_navPath = navPath;
+	}
+	
+	void addSpineItem(EpubSpineItem item)
+	{
+		m_spineIndices.put(item.getPath(), m_spine.size());
+		m_spine.add(item);
+	}
+	
+	void setTableOfContents(List<BookTocEntry> toc)
+	{
+		m_toc = toc;
+	}
+	
+	public String getPackagePath()
+	{
+		return m_packagePath;
+	}
+	
+	/**
+	 * The package's unique identifier (dc:identifier), usually a UUID or ISBN URN.
+	 */
+	public String getIdentifier()
+	{
+		return m_identifier;
+	}
+	
+	public String getTitle()
+	{
+		return m_title;
+	}
+	
+	/**
+	 * Archive path of the EPUB3 navigation document, or null if the package doesn't declare one.
+	 */
+	public String getNavPath()
+	{
+		return m_navPath;
+	}
+	
+	public List<EpubSpineItem> getSpine()
+	{
+		return Collections.unmodifiableList(m_spine);
+	}
+	
+	/**
+	 * @return The 0-based spine index of the item at the given archive path, or -1 if it's not in the spine.
+	 */
+	public int getSpineIndex(String path)
+	{
+		Integer index = m_spineIndices.get(path);
+		
+		return index == null ? -1 : index;
+	}
+	
+	/**
+	 * ToC built from the nav document, with pages numbered 1-based by spine position.
+	 */
+	public List<BookTocEntry> getTableOfContents()
+	{
+		return Collections.unmodifiableList(m_toc);
+	}
+}
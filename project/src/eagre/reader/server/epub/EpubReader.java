@@ -0,0 +1,463 @@
+package eagre.reader.server.epub;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import eagre.reader.server.books.BookTocEntry;
+
+/**
+ * Streams a fixed-layout EPUB3 archive without ever holding the whole thing in memory.
+ * <p>
+ * Zip entries can come in any order, so the archive is read in passes: the first pass picks up
+ * container.xml, the OPF package document and (if it comes after the OPF) the nav document; a second
+ * pass only happens if the nav came first. {@link #readPages} then makes one more pass and hands spine
+ * items to a handler one at a time. Entries that aren't needed in a pass, media included, are skipped
+ * without being buffered, so memory is bounded by the largest single page.
+ */
+public class EpubReader
+{
+	private static final Logger s_logger = Logger.getLogger(EpubReader.class.getName());
+
+	private static final String OPF_NAMESPACE = "http://www.idpf.org/2007/opf";
+	private static final String DC_NAMESPACE = "http://purl.org/dc/elements/1.1/";
+	private static final String OPS_NAMESPACE = "http://www.idpf.org/2007/ops";
+
+	private static final String[] TOC_LEVEL_NAMES = {"Chapter", "Section", "Subsection"};
+
+	private final XMLInputFactory m_xmlFactory;
+
+	public EpubReader()
+	{
+		m_xmlFactory = XMLInputFactory.newInstance();
+		m_xmlFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+		m_xmlFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		m_xmlFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+	}
+
+	public EpubPackage readPackage(I_EpubSource source) throws IOException, EpubException
+	{
+		String packagePath = null;
+		Map<String, EpubPackage> packagesByPath = new HashMap<String, EpubPackage>();
+		List<BookTocEntry> toc = null;
+
+		ZipInputStream zip = new ZipInputStream(source.open());
+
+		try
+		{
+			ZipEntry entry;
+
+			while( (entry = zip.getNextEntry()) != null )
+			{
+				String name = entry.getName();
+
+				if( name.equals(S_Epub.CONTAINER_PATH) )
+				{
+					packagePath = readContainer(zip);
+				}
+				else if( name.endsWith(".opf") )
+				{
+					//--- DRK > Container might not have been seen yet, so parse every OPF and pick the right one after.
+					packagesByPath.put(name, readOpf(name, zip));
+				}
+				else if( packagePath != null && packagesByPath.containsKey(packagePath) )
+				{
+					EpubPackage epubPackage = packagesByPath.get(packagePath);
+
+					if( name.equals(epubPackage.getNavPath()) )
+					{
+						toc = readNav(name, zip, epubPackage);
+					}
+				}
+
+				zip.closeEntry();
+			}
+		}
+		catch (XMLStreamException e)
+		{
+			throw new EpubException("Malformed package document.", e);
+		}
+		finally
+		{
+			zip.close();
+		}
+
+		if( packagePath == null )  throw new EpubException("Archive has no " + S_Epub.CONTAINER_PATH + ".");
+
+		EpubPackage epubPackage = packagesByPath.get(packagePath);
+
+		if( epubPackage == null )  throw new EpubException("Package document " + packagePath + " is missing.");
+
+		if( toc == null && epubPackage.getNavPath() != null )
+		{
+			toc = readNavPass(source, epubPackage);
+		}
+
+		if( toc != null )
+		{
+			epubPackage.setTableOfContents(toc);
+		}
+
+		return epubPackage;
+	}
+
+	/**
+	 * Streams every XHTML spine item to the handler. Pages over {@link S_Epub#MAX_PAGE_BYTES} are skipped and logged.
+	 * Skipped items, and items that aren't XHTML, are reported to {@link I_EpubPageHandler#onPageSkipped}.
+	 *
+	 * @return The number of pages handed to the handler.
+	 */
+	public int readPages(I_EpubSource source, EpubPackage epubPackage, I_EpubPageHandler handler) throws IOException
+	{
+		int pageCount = 0;
+		ZipInputStream zip = new ZipInputStream(source.open());
+
+		try
+		{
+			ZipEntry entry;
+
+			while( (entry = zip.getNextEntry()) != null )
+			{
+				int spineIndex = epubPackage.getSpineIndex(entry.getName());
+
+				if( spineIndex >= 0 )
+				{
+					EpubSpineItem item = epubPackage.getSpine().get(spineIndex);
+
+					if( S_Epub.XHTML_MEDIA_TYPE.equals(item.getMediaType()) )
+					{
+						byte[] bytes = readEntry(zip, S_Epub.MAX_PAGE_BYTES);
+
+						if( bytes == null )
+						{
+							s_logger.severe("Skipping " + item.getPath() + ", it's bigger than " + S_Epub.MAX_PAGE_BYTES + " bytes.");
+
+							handler.onPageSkipped(spineIndex, item);
+						}
+						else
+						{
+							handler.onPage(spineIndex, item, new String(bytes, "UTF-8"));
+							pageCount++;
+						}
+					}
+					else
+					{
+						handler.onPageSkipped(spineIndex, item);
+					}
+				}
+
+				zip.closeEntry();
+			}
+		}
+		finally
+		{
+			zip.close();
+		}
+
+		return pageCount;
+	}
+
+	private List<BookTocEntry> readNavPass(I_EpubSource source, EpubPackage epubPackage) throws IOException, EpubException
+	{
+		ZipInputStream zip = new ZipInputStream(source.open());
+
+		try
+		{
+			ZipEntry entry;
+
+			while( (entry = zip.getNextEntry()) != null )
+			{
+				if( entry.getName().equals(epubPackage.getNavPath()) )
+				{
+					return readNav(entry.getName(), zip, epubPackage);
+				}
+
+				zip.closeEntry();
+			}
+		}
+		catch (XMLStreamException e)
+		{
+			throw new EpubException("Malformed navigation document.", e);
+		}
+		finally
+		{
+			zip.close();
+		}
+
+		s_logger.warning("Navigation document " + epubPackage.getNavPath() + " is missing from the archive.");
+
+		return null;
+	}
+
+	/**
+	 * @return The entry's bytes, or null if it's longer than maxBytes.
+	 */
+	private static byte[] readEntry(InputStream in, int maxBytes) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[S_Epub.COPY_BUFFER_SIZE];
+		int read;
+
+		while( (read = in.read(buffer)) != -1 )
+		{
+			if( out.size() + read > maxBytes )  return null;
+
+			out.write(buffer, 0, read);
+		}
+
+		return out.toByteArray();
+	}
+
+	private XMLStreamReader createXmlReader(InputStream zip) throws XMLStreamException
+	{
+		//--- DRK > Wrap so the XML parser closing its input doesn't close the whole zip stream.
+		return m_xmlFactory.createXMLStreamReader(new NonClosingInputStream(zip));
+	}
+
+	private String readContainer(InputStream zip) throws XMLStreamException
+	{
+		XMLStreamReader xml = createXmlReader(zip);
+
+		try
+		{
+			while( xml.hasNext() )
+			{
+				if( xml.next() == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("rootfile") )
+				{
+					String mediaType = xml.getAttributeValue(null, "media-type");
+
+					if( mediaType == null || mediaType.equals("application/oebps-package+xml") )
+					{
+						return xml.getAttributeValue(null, "full-path");
+					}
+				}
+			}
+		}
+		finally
+		{
+			xml.close();
+		}
+
+		return null;
+	}
+
+	private EpubPackage readOpf(String opfPath, InputStream zip) throws XMLStreamException
+	{
+		EpubPackage epubPackage = new EpubPackage(opfPath);
+		Map<String, EpubSpineItem> manifest = new HashMap<String, EpubSpineItem>();
+		String uniqueIdentifierId = null;
+		String firstIdentifier = null;
+
+		XMLStreamReader xml = createXmlReader(zip);
+
+		try
+		{
+			while( xml.hasNext() )
+			{
+				if( xml.next() != XMLStreamConstants.START_ELEMENT )  continue;
+
+				String namespace = xml.getNamespaceURI();
+				String localName = xml.getLocalName();
+
+				if( OPF_NAMESPACE.equals(namespace) && localName.equals("package") )
+				{
+					uniqueIdentifierId = xml.getAttributeValue(null, "unique-identifier");
+				}
+				else if( DC_NAMESPACE.equals(namespace) && localName.equals("identifier") )
+				{
+					String id = xml.getAttributeValue(null, "id");
+					String identifier = xml.getElementText().trim();
+
+					if( firstIdentifier == null )  firstIdentifier = identifier;
+
+					if( id != null && id.equals(uniqueIdentifierId) )
+					{
+						epubPackage.setIdentifier(identifier);
+					}
+				}
+				else if( DC_NAMESPACE.equals(namespace) && localName.equals("title") )
+				{
+					if( epubPackage.getTitle() == null )
+					{
+						epubPackage.setTitle(xml.getElementText().trim());
+					}
+				}
+				else if( OPF_NAMESPACE.equals(namespace) && localName.equals("item") )
+				{
+					String id = xml.getAttributeValue(null, "id");
+					String path = U_EpubPath.resolve(opfPath, xml.getAttributeValue(null, "href"));
+					String properties = xml.getAttributeValue(null, "properties");
+
+					if( id == null || path == null )  continue;
+
+					manifest.put(id, new EpubSpineItem(id, path, xml.getAttributeValue(null, "media-type")));
+
+					if( properties != null && (" " + properties + " ").contains(" nav ") )
+					{
+						epubPackage.setNavPath(path);
+					}
+				}
+				else if( OPF_NAMESPACE.equals(namespace) && localName.equals("itemref") )
+				{
+					EpubSpineItem item = manifest.get(xml.getAttributeValue(null, "idref"));
+
+					if( item != null )
+					{
+						epubPackage.addSpineItem(item);
+					}
+				}
+			}
+		}
+		finally
+		{
+			xml.close();
+		}
+
+		if( epubPackage.getIdentifier() == null )
+		{
+			epubPackage.setIdentifier(firstIdentifier);
+		}
+
+		return epubPackage;
+	}
+
+	/**
+	 * Reads the nav element with epub:type="toc". Nested lists become child entries, and each level
+	 * gets numbered path segments (Chapter1, Section2, ...) so addresses follow the ToC layout.
+	 */
+	private List<BookTocEntry> readNav(String navPath, InputStream zip, EpubPackage epubPackage) throws XMLStreamException
+	{
+		List<BookTocEntry> roots = new ArrayList<BookTocEntry>();
+		List<BookTocEntry> lastEntryAtLevel = new ArrayList<BookTocEntry>();
+		List<Integer> countAtLevel = new ArrayList<Integer>();
+		boolean inTocNav = false;
+		int navDepth = 0;
+
+		XMLStreamReader xml = createXmlReader(zip);
+
+		try
+		{
+			while( xml.hasNext() )
+			{
+				int event = xml.next();
+
+				if( !inTocNav )
+				{
+					if( event == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("nav") && "toc".equals(xml.getAttributeValue(OPS_NAMESPACE, "type")) )
+					{
+						inTocNav = true;
+						navDepth = 1;
+					}
+
+					continue;
+				}
+
+				if( event == XMLStreamConstants.END_ELEMENT )
+				{
+					if( --navDepth == 0 )  break;
+
+					if( xml.getLocalName().equals("ol") && !countAtLevel.isEmpty() )
+					{
+						countAtLevel.remove(countAtLevel.size() - 1);
+
+						while( lastEntryAtLevel.size() > countAtLevel.size() )
+						{
+							lastEntryAtLevel.remove(lastEntryAtLevel.size() - 1);
+						}
+					}
+				}
+				else if( event == XMLStreamConstants.START_ELEMENT )
+				{
+					String localName = xml.getLocalName();
+
+					if( localName.equals("a") && !countAtLevel.isEmpty() )
+					{
+						String path = U_EpubPath.resolve(navPath, xml.getAttributeValue(null, "href"));
+
+						//--- DRK > This consumes the anchor's end tag, so navDepth stays put.
+						String title = readText(xml);
+
+						int spineIndex = path == null ? -1 : epubPackage.getSpineIndex(path);
+
+						if( spineIndex < 0 )
+						{
+							s_logger.warning("ToC entry '" + title + "' points outside the spine, ignoring it.");
+
+							continue;
+						}
+
+						int level = countAtLevel.size() - 1;
+						int number = countAtLevel.get(level) + 1;
+						countAtLevel.set(level, number);
+
+						String levelName = TOC_LEVEL_NAMES[Math.min(level, TOC_LEVEL_NAMES.length - 1)];
+						BookTocEntry tocEntry = new BookTocEntry(title, levelName + number, spineIndex + 1);
+
+						if( level == 0 || lastEntryAtLevel.size() < level )
+						{
+							roots.add(tocEntry);
+						}
+						else
+						{
+							lastEntryAtLevel.get(level - 1).addChild(tocEntry);
+						}
+
+						while( lastEntryAtLevel.size() > level )
+						{
+							lastEntryAtLevel.remove(lastEntryAtLevel.size() - 1);
+						}
+
+						lastEntryAtLevel.add(tocEntry);
+
+						continue;
+					}
+
+					if( localName.equals("ol") )
+					{
+						countAtLevel.add(0);
+					}
+
+					navDepth++;
+				}
+			}
+		}
+		finally
+		{
+			xml.close();
+		}
+
+		return roots;
+	}
+
+	/**
+	 * Collects all text under the current element and leaves the reader on its end tag.
+	 */
+	private static String readText(XMLStreamReader xml) throws XMLStreamException
+	{
+		StringBuilder text = new StringBuilder();
+		int nesting = 1;
+
+		while( nesting > 0 && xml.hasNext() )
+		{
+			int event = xml.next();
+
+			if( event == XMLStreamConstants.START_ELEMENT )  nesting++;
+			else if( event == XMLStreamConstants.END_ELEMENT )  nesting--;
+			else if( event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA )  text.append(xml.getText());
+		}
+
+		return text.toString().replaceAll("\\s+", " ").trim();
+	}
+}
@@ -0,0 +1,33 @@
+package eagre.reader.server.epub;
+
+public class EpubSpineItem
+{
+	private final String m_id;
+	private final String m_path;
+	private final String m_mediaType;
+	
+	EpubSpineItem(String id, String path, String mediaType)
+	{
+		m_id = id;
+		m_path = path;
+		m_mediaType = mediaType;
+	}
+	
+	public String getId()
+	{
+		return m_id;
+	}
+	
+	/**
+	 * Full path of the item within the archive, e.g. "OEBPS/pages/page_001.xhtml".
+	 */
+	public String getPath()
+	{
+		return m_path;
+	}
+	
+	public String getMediaType()
+	{
+		return m_mediaType;
+	}
+}
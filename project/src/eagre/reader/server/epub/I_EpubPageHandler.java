@@ -0,0 +1,17 @@
+package eagre.reader.server.epub;
+
+public interface I_EpubPageHandler
+{
+	/**
+	 * Called once per spine item, in archive order rather than spine order.
+	 * 
+	 * @param spineIndex 0-based position of the item in the spine.
+	 * @param markup The page's XHTML. The reader doesn't hold on to it after this returns.
+	 */
+	void onPage(int spineIndex, EpubSpineItem item, String markup);
+	
+	/**
+	 * Called instead of {@link #onPage} for a spine item that won't become a page, because it isn't XHTML or is too big.
+	 */
+	void onPageSkipped(int spineIndex, EpubSpineItem item);
+}
@@ -0,0 +1,13 @@
+package eagre.reader.server.epub;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Somewhere an epub archive can be streamed from. The reader makes more than one pass over the
+ * archive instead of holding it in memory, so every call has to return a fresh stream from the start.
+ */
+public interface I_EpubSource
+{
+	InputStream open() throws IOException;
+}
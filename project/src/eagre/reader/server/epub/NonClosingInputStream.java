@@ -0,0 +1,20 @@
+package eagre.reader.server.epub;
+
+import java.io.FilterInputStream;
+import java.io.InputStream;
+
+/**
+ * Lets a parser read a single zip entry without closing the rest of the archive stream out from under the reader.
+ */
+class NonClosingInputStream extends FilterInputStream
+{
+	NonClosingInputStream(InputStream in)
+	{
+		super(in);
+	}
+	
+	@Override
+	public void close()
+	{
+	}
+}
@@ -0,0 +1,13 @@
+package eagre.reader.server.epub;
+
+public class S_Epub
+{
+	public static final String CONTAINER_PATH = "META-INF/container.xml";
+	
+	public static final String XHTML_MEDIA_TYPE = "application/xhtml+xml";
+	
+	//--- DRK > Fixed-layout pages are small; anything bigger than this is almost certainly inlined media.
+	public static final int MAX_PAGE_BYTES = 2 * 1024 * 1024;
+	
+	public static final int COPY_BUFFER_SIZE = 8 * 1024;
+}
@@ -0,0 +1,82 @@
+package eagre.reader.server.epub;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+
+/**
+ * Resolves hrefs found inside an epub against the archive path of the document that contains them.
+ */
+public class U_EpubPath
+{
+	private U_EpubPath()
+	{
+	}
+	
+	public static String getDirectory(String path)
+	{
+		int slash = path.lastIndexOf('/');
+		
+		return slash < 0 ? "" : path.substring(0, slash + 1);
+	}
+	
+	/**
+	 * @return The archive path the href points to, without any fragment, or null for external or empty hrefs.
+	 */
+	public static String resolve(String documentPath, String href)
+	{
+		if( href == null )  return null;
+		
+		int hash = href.indexOf('#');
+		
+		if( hash >= 0 )
+		{
+			href = href.substring(0, hash);
+		}
+		
+		if( href.length() == 0 || href.indexOf(':') >= 0 )  return null;
+		
+		try
+		{
+			href = URLDecoder.decode(href.replace("+", "%2B"), "UTF-8");
+		}
+		catch (UnsupportedEncodingException e)
+		{
+			//--- DRK > UTF-8 is always supported.
+		}
+		
+		String combined = href.startsWith("/") ? href.substring(1) : getDirectory(documentPath) + href;
+		String[] segments = combined.split("/");
+		StringBuilder resolved = new StringBuilder();
+		int[] starts = new int[segments.length];
+		int depth = 0;
+		
+		for( int i = 0; i < segments.length; i++ )
+		{
+			String segment = segments[i];
+			
+			if( segment.length() == 0 || segment.equals(".") )  continue;
+			
+			if( segment.equals("..") )
+			{
+				if( depth > 0 )
+				{
+					depth--;
+					resolved.setLength(starts[depth]);
+				}
+				
+				continue;
+			}
+			
+			starts[depth++] = resolved.length();
+			
+			if( resolved.length() > 0 )
+			{
+				resolved.append('/');
+			}
+			
+			resolved.append(segment);
+		}
+		
+		return resolved.toString();
+	}
+}
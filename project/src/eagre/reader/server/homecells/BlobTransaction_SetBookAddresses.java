@@ -0,0 +1,86 @@
+package eagre.reader.server.homecells;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import swarm.server.app.ServerContext;
+import swarm.server.blobxn.A_BlobTransaction;
+import swarm.server.data.blob.BlobException;
+import swarm.server.data.blob.E_BlobCacheLevel;
+import swarm.server.data.blob.I_Blob;
+import swarm.server.data.blob.I_BlobKey;
+import swarm.server.data.blob.I_BlobManager;
+import swarm.server.structs.ServerCellAddress;
+import swarm.server.structs.ServerCellAddressMapping;
+import eagre.reader.server.books.Book;
+import eagre.reader.server.books.BookAliasIndex;
+
+/**
+ * Points every address in a book's alias index at its page's cell in a single multi-put,
+ * instead of one {@link swarm.server.blobxn.BlobTransaction_SetCellAddress} per page.
+ * Addresses the book had before but no longer has are deleted in the same transaction.
+ */
+public class BlobTransaction_SetBookAddresses extends A_BlobTransaction
+{
+	private final ServerContext m_serverContext;
+	private final BookAliasIndex m_aliasIndex;
+	private final BookAliasIndex m_previousAliasIndex;
+
+	/**
+	 * @param previousAliasIndex The book's addresses before its ToC was last replaced, or null if there's nothing to remove.
+	 */
+	public BlobTransaction_SetBookAddresses(ServerContext serverContext, BookAliasIndex aliasIndex, BookAliasIndex previousAliasIndex)
+	{
+		m_serverContext = serverContext;
+		m_aliasIndex = aliasIndex;
+		m_previousAliasIndex = previousAliasIndex;
+	}
+
+	@Override
+	protected void performOperations() throws BlobException
+	{
+		Book book = m_aliasIndex.getBook();
+		Map<I_BlobKey, I_Blob> mappings = new HashMap<I_BlobKey, I_Blob>();
+
+		for( int page = 1; page <= book.getPageCount(); page++ )
+		{
+			ServerCellAddressMapping mapping = PageCellWriter.createMapping(book, page);
+
+			for( String address : m_aliasIndex.getAddresses(page) )
+			{
+				mappings.put(new ServerCellAddress(address), mapping);
+			}
+		}
+
+		I_BlobManager blobManager = m_serverContext.blobMngrFactory.create(E_BlobCacheLevel.MEMCACHE, E_BlobCacheLevel.PERSISTENT);
+
+		if( m_previousAliasIndex != null )
+		{
+			Book previousBook = m_previousAliasIndex.getBook();
+			Map<I_BlobKey, Class<? extends I_Blob>> removed = new HashMap<I_BlobKey, Class<? extends I_Blob>>();
+
+			for( int page = 1; page <= previousBook.getPageCount(); page++ )
+			{
+				for( String address : m_previousAliasIndex.getAddresses(page) )
+				{
+					if( !m_aliasIndex.contains(address) )
+					{
+						removed.put(new ServerCellAddress(address), ServerCellAddressMapping.class);
+					}
+				}
+			}
+
+			if( !removed.isEmpty() )
+			{
+				blobManager.deleteBlobs(removed);
+			}
+		}
+
+		blobManager.putBlobs(mappings);
+	}
+
+	@Override
+	protected void onSuccess()
+	{
+	}
+}
@@ -0,0 +1,109 @@
+package eagre.reader.server.homecells;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import eagre.reader.server.books.Book;
+
+/**
+ * Compares the fingerprint of each page about to be written against its last checkpoint,
+ * and keeps the result as a per-book summary of what a run did (or in a dry run, would do).
+ */
+public class BookDiff
+{
+	private final Book m_book;
+	private final Map<Integer, PageCheckpoint> m_checkpoints;
+	private final Map<Integer, String> m_fingerprints = new HashMap<Integer, String>();
+	private final EnumMap<E_PageChange, List<Integer>> m_pages = new EnumMap<E_PageChange, List<Integer>>(E_PageChange.class);
+	
+	BookDiff(Book book, Map<Integer, PageCheckpoint> checkpoints)
+	{
+		m_book = book;
+		m_checkpoints = checkpoints;
+		
+		for( E_PageChange change : E_PageChange.values() )
+		{
+			m_pages.put(change, new ArrayList<Integer>());
+		}
+	}
+	
+	/**
+	 * Classifies the page and remembers its fingerprint so it can be checkpointed once written.
+	 */
+	synchronized E_PageChange add(int page, String fingerprint)
+	{
+		PageCheckpoint checkpoint = m_checkpoints.get(page);
+		E_PageChange change;
+		
+		if( checkpoint == null )
+		{
+			change = E_PageChange.NEW;
+		}
+		else if( checkpoint.getStatus() != E_PageCheckpointStatus.SUCCEEDED )
+		{
+			change = E_PageChange.RETRY;
+		}
+		else if( !fingerprint.equals(checkpoint.getFingerprint()) )
+		{
+			change = E_PageChange.CHANGED;
+		}
+		else
+		{
+			change = E_PageChange.UNCHANGED;
+		}
+		
+		m_fingerprints.put(page, fingerprint);
+		m_pages.get(change).add(page);
+		
+		return change;
+	}
+	
+	public Book getBook()
+	{
+		return m_book;
+	}
+	
+	synchronized String getFingerprint(int page)
+	{
+		return m_fingerprints.get(page);
+	}
+	
+	public synchronized List<Integer> getPages(E_PageChange change)
+	{
+		return Collections.unmodifiableList(new ArrayList<Integer>(m_pages.get(change)));
+	}
+	
+	public synchronized int getCount(E_PageChange change)
+	{
+		return m_pages.get(change).size();
+	}
+	
+	/**
+	 * Every page that isn't {@link E_PageChange#UNCHANGED}, in page order.
+	 */
+	public synchronized List<Integer> getPagesToWrite()
+	{
+		List<Integer> pages = new ArrayList<Integer>();
+		pages.addAll(m_pages.get(E_PageChange.NEW));
+		pages.addAll(m_pages.get(E_PageChange.CHANGED));
+		pages.addAll(m_pages.get(E_PageChange.RETRY));
+		Collections.sort(pages);
+		
+		return pages;
+	}
+	
+	public synchronized boolean hasChanges()
+	{
+		return getCount(E_PageChange.UNCHANGED) < m_fingerprints.size();
+	}
+	
+	@Override
+	public synchronized String toString()
+	{
+		return m_book.getName() + ": " + getCount(E_PageChange.NEW) + " new, " + getCount(E_PageChange.CHANGED) + " changed " + m_pages.get(E_PageChange.CHANGED) + ", " + getCount(E_PageChange.RETRY) + " retried, " + getCount(E_PageChange.UNCHANGED) + " unchanged.";
+	}
+}
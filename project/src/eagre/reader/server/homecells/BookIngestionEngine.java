@@ -0,0 +1,233 @@
+package eagre.reader.server.homecells;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.appengine.api.ThreadManager;
+
+import swarm.server.app.ServerContext;
+import swarm.server.data.blob.E_BlobCacheLevel;
+import swarm.server.data.blob.I_BlobManager;
+import swarm.server.structs.ServerCodePrivileges;
+import swarm.shared.transaction.E_ResponseError;
+import swarm.shared.transaction.TransactionResponse;
+import eagre.reader.server.books.Book;
+import eagre.reader.server.books.BookAliasIndex;
+import eagre.reader.server.books.BookCatalog;
+
+/**
+ * Fans page creation for a set of books out across a bounded pool of request threads.
+ * Each worker takes a contiguous run of pages. The run shares one set of blob managers,
+ * records its checkpoints in one write, and reports progress once, instead of once per page.
+ * Every page is still its own cell transaction, since swarm has no multi-cell write.
+ * Each run reports errors into its own response, which is merged into the request's once all runs finish.
+ * In {@link E_IngestionMode#DIFF} mode, pages whose source and addresses hash the same as their last
+ * successful checkpoint are skipped, so a re-run only redoes missing, failed or changed pages.
+ * Once pages are written, each book's full set of ToC addresses is registered in one transaction.
+ */
+public class BookIngestionEngine
+{
+	private static final Logger s_logger = Logger.getLogger(BookIngestionEngine.class.getName());
+
+	private final ServerContext m_serverContext;
+	private final BookCatalog m_catalog;
+	private final PageCellWriter m_writer;
+	private final PageCheckpointStore m_checkpoints;
+	private final int m_workerCount;
+	private final int m_batchSize;
+
+	public BookIngestionEngine(ServerContext serverContext, BookCatalog catalog, PageCellWriter writer, PageCheckpointStore checkpoints, int workerCount, int batchSize)
+	{
+		m_serverContext = serverContext;
+		m_catalog = catalog;
+		m_writer = writer;
+		m_checkpoints = checkpoints;
+		m_workerCount = Math.max(1, workerCount);
+		m_batchSize = Math.max(1, batchSize);
+	}
+
+	public List<BookIngestionProgress> ingest(List<Book> books, E_IngestionMode mode, ServerCodePrivileges privileges, TransactionResponse response)
+	{
+		List<BookIngestionProgress> progresses = new ArrayList<BookIngestionProgress>();
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		List<PageBatch> batches = new ArrayList<PageBatch>();
+
+		//--- DRK > App Engine only lets request-scoped threads touch the datastore and memcache.
+		ExecutorService executor = Executors.newFixedThreadPool(m_workerCount, ThreadManager.currentRequestThreadFactory());
+
+		try
+		{
+			for( int i = 0; i < books.size(); i++ )
+			{
+				Book book = books.get(i);
+				BookDiff diff = diff(book);
+				List<Integer> pendingPages = getPagesToWrite(diff, mode);
+				int skippedCount = book.getPageCount() - pendingPages.size();
+				BookIngestionProgress progress = new BookIngestionProgress(book, book.getPageCount(), skippedCount, diff);
+				progresses.add(progress);
+
+				s_logger.info(diff.toString());
+
+				for( int first = 0; first < pendingPages.size(); first += m_batchSize )
+				{
+					int last = Math.min(first + m_batchSize, pendingPages.size());
+					List<Integer> batchPages = new ArrayList<Integer>(pendingPages.subList(first, last));
+
+					PageBatch batch = new PageBatch(book, batchPages, diff, privileges, progress);
+					batches.add(batch);
+					futures.add(executor.submit(batch));
+				}
+			}
+
+			for( int i = 0; i < futures.size(); i++ )
+			{
+				try
+				{
+					futures.get(i).get();
+				}
+				catch (InterruptedException e)
+				{
+					s_logger.log(Level.SEVERE, "Interrupted while waiting on page batch.", e);
+
+					Thread.currentThread().interrupt();
+
+					break;
+				}
+				catch (ExecutionException e)
+				{
+					s_logger.log(Level.SEVERE, "Page batch failed.", e.getCause());
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+
+		//--- DRK > TransactionResponse isn't thread-safe, so workers never touch the request's; their errors are copied over here.
+		for( int i = 0; i < batches.size(); i++ )
+		{
+			if( !futures.get(i).isDone() )  continue;
+
+			E_ResponseError error = batches.get(i).getError();
+
+			if( error != E_ResponseError.NO_ERROR )
+			{
+				response.setError(error);
+			}
+		}
+
+		for( int i = 0; i < progresses.size(); i++ )
+		{
+			if( progresses.get(i).getWrittenCount() > 0 )
+			{
+				m_writer.registerAddresses(progresses.get(i).getBook(), null, response);
+			}
+		}
+
+		return progresses;
+	}
+
+	private BookDiff diff(Book book)
+	{
+		BookDiff diff = new BookDiff(book, m_checkpoints.getCheckpoints(book));
+		BookAliasIndex aliasIndex = m_catalog.getAliasIndex(book);
+
+		for( int page = 1; page <= book.getPageCount(); page++ )
+		{
+			diff.add(page, U_PageFingerprint.create(m_writer.createImagePageSource(book, page), aliasIndex.getAddresses(page)));
+		}
+
+		return diff;
+	}
+
+	private static List<Integer> getPagesToWrite(BookDiff diff, E_IngestionMode mode)
+	{
+		List<Integer> pages = new ArrayList<Integer>();
+
+		if( mode == E_IngestionMode.FULL )
+		{
+			for( int page = 1; page <= diff.getBook().getPageCount(); page++ )
+			{
+				pages.add(page);
+			}
+		}
+		else if( mode == E_IngestionMode.DIFF )
+		{
+			pages.addAll(diff.getPagesToWrite());
+		}
+
+		return pages;
+	}
+
+	private class PageBatch implements Runnable
+	{
+		private final Book m_book;
+		private final List<Integer> m_pages;
+		private final BookDiff m_diff;
+		private final ServerCodePrivileges m_privileges;
+		private final TransactionResponse m_response = new TransactionResponse();
+		private final BookIngestionProgress m_progress;
+
+		PageBatch(Book book, List<Integer> pages, BookDiff diff, ServerCodePrivileges privileges, BookIngestionProgress progress)
+		{
+			m_book = book;
+			m_pages = pages;
+			m_diff = diff;
+			m_privileges = privileges;
+			m_progress = progress;
+		}
+
+		/**
+		 * Only read once the batch's future has completed.
+		 */
+		E_ResponseError getError()
+		{
+			return m_response.getError();
+		}
+
+		@Override
+		public void run()
+		{
+			I_BlobManager blobManager = m_serverContext.blobMngrFactory.create(E_BlobCacheLevel.LOCAL, E_BlobCacheLevel.PERSISTENT);
+			I_BlobManager cachingBlobManager = m_serverContext.blobMngrFactory.create(E_BlobCacheLevel.MEMCACHE);
+
+			Map<Integer, PageCheckpoint> results = new HashMap<Integer, PageCheckpoint>();
+			int succeeded = 0;
+			int failed = 0;
+
+			for( int i = 0; i < m_pages.size(); i++ )
+			{
+				int page = m_pages.get(i);
+				boolean success;
+
+				try
+				{
+					success = m_writer.write(m_book, page, blobManager, cachingBlobManager, m_privileges, m_response);
+				}
+				catch (RuntimeException e)
+				{
+					s_logger.log(Level.SEVERE, "Unexpected exception writing " + m_book.getName() + " page " + page + ".", e);
+
+					success = false;
+				}
+
+				if( success )  succeeded++;
+				else  failed++;
+
+				results.put(page, new PageCheckpoint(success ? E_PageCheckpointStatus.SUCCEEDED : E_PageCheckpointStatus.FAILED, m_diff.getFingerprint(page)));
+			}
+
+			m_checkpoints.record(m_book, results);
+			m_progress.onBatchFinished(succeeded, failed);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package eagre.reader.server.homecells;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import eagre.reader.server.books.Book;
+
+/**
+ * Thread-safe page counters for one book, updated by ingestion workers as their batches finish.
+ */
+public class BookIngestionProgress
+{
+	private static final Logger s_logger = Logger.getLogger(BookIngestionProgress.class.getName());
+
+	private final Book m_book;
+	private final int m_pageCount;
+	private final AtomicInteger m_skipped;
+	private final BookDiff m_diff;
+	private final long m_startTime;
+
+	private final AtomicInteger m_succeeded = new AtomicInteger(0);
+	private final AtomicInteger m_failed = new AtomicInteger(0);
+
+	BookIngestionProgress(Book book, int pageCount, int skipped, BookDiff diff)
+	{
+		m_book = book;
+		m_pageCount = pageCount;
+		m_skipped = new AtomicInteger(skipped);
+		m_diff = diff;
+		m_startTime = System.currentTimeMillis();
+	}
+
+	void onBatchFinished(int succeeded, int failed)
+	{
+		int totalSucceeded = m_succeeded.addAndGet(succeeded);
+		int totalFailed = m_failed.addAndGet(failed);
+
+		s_logger.info(m_book.getName() + ": " + (m_skipped.get() + totalSucceeded + totalFailed) + "/" + m_pageCount + " pages (" + totalFailed + " failed).");
+	}
+
+	/**
+	 * For callers that finish pages one at a time. Only logs every {@link S_Ingestion#PAGE_BATCH_SIZE} pages.
+	 */
+	void onPageFinished(boolean success)
+	{
+		int totalSucceeded = success ? m_succeeded.incrementAndGet() : m_succeeded.get();
+		int totalFailed = success ? m_failed.get() : m_failed.incrementAndGet();
+		int done = m_skipped.get() + totalSucceeded + totalFailed;
+
+		if( done % S_Ingestion.PAGE_BATCH_SIZE == 0 || done == m_pageCount )
+		{
+			s_logger.info(m_book.getName() + ": " + done + "/" + m_pageCount + " pages (" + totalFailed + " failed).");
+		}
+	}
+
+	/**
+	 * For callers that find out page by page which pages don't need writing.
+	 */
+	void onPageSkipped()
+	{
+		m_skipped.incrementAndGet();
+	}
+
+	public Book getBook()
+	{
+		return m_book;
+	}
+
+	public int getPageCount()
+	{
+		return m_pageCount;
+	}
+
+	public int getSucceededCount()
+	{
+		return m_succeeded.get();
+	}
+
+	/**
+	 * Number of pages skipped because they were unchanged since their last successful write, because this is a dry run,
+	 * or because their spine item can't be a page.
+	 */
+	public int getSkippedCount()
+	{
+		return m_skipped.get();
+	}
+
+	public int getFailedCount()
+	{
+		return m_failed.get();
+	}
+
+	/**
+	 * Pages actually written this run, successfully or not.
+	 */
+	public int getWrittenCount()
+	{
+		return m_succeeded.get() + m_failed.get();
+	}
+
+	/**
+	 * What changed in the book since the last run, page by page.
+	 */
+	public BookDiff getDiff()
+	{
+		return m_diff;
+	}
+
+	public boolean isComplete()
+	{
+		return m_skipped.get() + m_succeeded.get() == m_pageCount;
+	}
+
+	public long getElapsedMilliseconds()
+	{
+		return System.currentTimeMillis() - m_startTime;
+	}
+
+	@Override
+	public String toString()
+	{
+		return m_book.getName() + ": " + getSucceededCount() + "/" + m_pageCount + " pages created, " + getSkippedCount() + " skipped, " + getFailedCount() + " failed, " + getElapsedMilliseconds() + "ms.";
+	}
+}
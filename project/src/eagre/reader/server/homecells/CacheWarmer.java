@@ -0,0 +1,157 @@
+package eagre.reader.server.homecells;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import swarm.server.app.ServerContext;
+import swarm.server.data.blob.BlobException;
+import swarm.server.data.blob.E_BlobCacheLevel;
+import swarm.server.data.blob.I_Blob;
+import swarm.server.data.blob.I_BlobKey;
+import swarm.server.data.blob.I_BlobManager;
+import swarm.server.entities.ServerCell;
+import swarm.server.handlers.U_CellCode;
+import swarm.server.structs.ServerCellAddress;
+import swarm.server.structs.ServerCellAddressMapping;
+import swarm.shared.transaction.TransactionResponse;
+import eagre.reader.server.books.Book;
+import eagre.reader.server.books.BookAliasIndex;
+import eagre.reader.server.books.BookCatalog;
+import eagre.reader.server.books.BookTocEntry;
+
+/**
+ * Pushes a freshly ingested book into memcache so the first readers don't all pay for persistent reads.
+ * <p>
+ * Address mappings go first since every navigation needs one. Then compiled cells are warmed for the
+ * first few pages of each chapter, going round-robin across chapters (first page of every chapter, then
+ * the second of every chapter, ...) so that a budget too small for the whole set still covers every chapter.
+ * The budget is a count of blobs written, mappings and cells alike.
+ */
+public class CacheWarmer
+{
+	private static final Logger s_logger = Logger.getLogger(CacheWarmer.class.getName());
+
+	private final ServerContext m_serverContext;
+	private final BookCatalog m_catalog;
+	private final int m_pagesPerChapter;
+	private final int m_blobBudget;
+
+	public CacheWarmer(ServerContext serverContext, BookCatalog catalog, int pagesPerChapter, int blobBudget)
+	{
+		m_serverContext = serverContext;
+		m_catalog = catalog;
+		m_pagesPerChapter = Math.max(0, pagesPerChapter);
+		m_blobBudget = Math.max(0, blobBudget);
+	}
+
+	/**
+	 * @return How many blobs were pushed into the cache.
+	 */
+	public int warm(Book book, TransactionResponse response)
+	{
+		I_BlobManager persistentBlobManager = m_serverContext.blobMngrFactory.create(E_BlobCacheLevel.PERSISTENT);
+		I_BlobManager cachingBlobManager = m_serverContext.blobMngrFactory.create(E_BlobCacheLevel.MEMCACHE);
+
+		int remaining = m_blobBudget;
+		BookAliasIndex aliasIndex = m_catalog.getAliasIndex(book);
+		Map<I_BlobKey, I_Blob> mappings = new HashMap<I_BlobKey, I_Blob>();
+
+		for( int page = 1; page <= book.getPageCount() && mappings.size() < remaining; page++ )
+		{
+			ServerCellAddressMapping mapping = PageCellWriter.createMapping(book, page);
+			List<String> addresses = aliasIndex.getAddresses(page);
+
+			for( int i = 0; i < addresses.size() && mappings.size() < remaining; i++ )
+			{
+				mappings.put(new ServerCellAddress(addresses.get(i)), mapping);
+			}
+		}
+
+		int warmedMappings = 0;
+
+		try
+		{
+			cachingBlobManager.putBlobs(mappings);
+
+			warmedMappings = mappings.size();
+			remaining -= warmedMappings;
+		}
+		catch (BlobException e)
+		{
+			s_logger.log(Level.WARNING, "Couldn't warm address mappings for " + book.getName() + ".", e);
+		}
+
+		List<Integer> pages = getPagesToWarm(book);
+		int warmedCells = 0;
+
+		for( int i = 0; i < pages.size() && warmedCells < remaining; i++ )
+		{
+			ServerCellAddressMapping mapping = PageCellWriter.createMapping(book, pages.get(i));
+			ServerCell cell = U_CellCode.getCell(persistentBlobManager, mapping, response);
+
+			if( cell == null )  continue;
+
+			try
+			{
+				cachingBlobManager.putBlob(mapping, cell);
+
+				warmedCells++;
+			}
+			catch (BlobException e)
+			{
+				s_logger.log(Level.WARNING, "Couldn't warm " + book.getName() + " page " + pages.get(i) + ".", e);
+			}
+		}
+
+		s_logger.info("Warmed " + warmedMappings + " mapping(s) and " + warmedCells + " cell(s) for " + book.getName() + ".");
+
+		return warmedMappings + warmedCells;
+	}
+
+	/**
+	 * The first {@link #m_pagesPerChapter} pages of each top-level ToC entry (or of the book, if it has no ToC),
+	 * ordered round-robin across chapters.
+	 */
+	private List<Integer> getPagesToWarm(Book book)
+	{
+		List<BookTocEntry> toc = m_catalog.getTableOfContents(book);
+		List<Integer> chapterStarts = new ArrayList<Integer>();
+		chapterStarts.add(1);
+
+		for( int i = 0; i < toc.size(); i++ )
+		{
+			if( !chapterStarts.contains(toc.get(i).getPage()) )
+			{
+				chapterStarts.add(toc.get(i).getPage());
+			}
+		}
+
+		Collections.sort(chapterStarts);
+
+		Set<Integer> pages = new LinkedHashSet<Integer>();
+
+		for( int offset = 0; offset < m_pagesPerChapter; offset++ )
+		{
+			for( int i = 0; i < chapterStarts.size(); i++ )
+			{
+				int page = chapterStarts.get(i) + offset;
+				int nextStart = i + 1 < chapterStarts.size() ? chapterStarts.get(i+1) : book.getPageCount() + 1;
+
+				//--- DRK > Don't spill over into the next chapter; its own pages get warmed on their own turn.
+				if( page < nextStart && book.containsPage(page) )
+				{
+					pages.add(page);
+				}
+			}
+		}
+
+		return new ArrayList<Integer>(pages);
+	}
+}
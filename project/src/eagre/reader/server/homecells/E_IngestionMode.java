@@ -0,0 +1,19 @@
+package eagre.reader.server.homecells;
+
+public enum E_IngestionMode
+{
+	/**
+	 * Writes every page whether or not it changed.
+	 */
+	FULL,
+	
+	/**
+	 * Writes only pages whose source or addresses differ from what was last written, plus pages that failed or were never written.
+	 */
+	DIFF,
+	
+	/**
+	 * Works out what {@link #DIFF} would write but doesn't write anything.
+	 */
+	DRY_RUN;
+}
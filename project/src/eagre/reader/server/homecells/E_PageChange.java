@@ -0,0 +1,21 @@
+package eagre.reader.server.homecells;
+
+public enum E_PageChange
+{
+	/**
+	 * No checkpoint, so the page has never been written.
+	 */
+	NEW,
+	
+	/**
+	 * Source or addresses differ from the last successful write.
+	 */
+	CHANGED,
+	
+	/**
+	 * The last attempt at the page failed.
+	 */
+	RETRY,
+	
+	UNCHANGED;
+}
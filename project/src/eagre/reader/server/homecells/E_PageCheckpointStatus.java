@@ -0,0 +1,12 @@
+package eagre.reader.server.homecells;
+
+public enum E_PageCheckpointStatus
+{
+	SUCCEEDED,
+	FAILED,
+	
+	/**
+	 * The spine item can't be a page (not XHTML, or too big), so there's nothing to write.
+	 */
+	SKIPPED;
+}
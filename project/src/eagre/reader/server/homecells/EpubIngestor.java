@@ -0,0 +1,296 @@
+package eagre.reader.server.homecells;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.appengine.api.ThreadManager;
+
+import swarm.server.app.ServerContext;
+import swarm.server.data.blob.E_BlobCacheLevel;
+import swarm.server.data.blob.I_BlobManager;
+import swarm.server.structs.ServerCodePrivileges;
+import swarm.shared.transaction.E_ResponseError;
+import swarm.shared.transaction.TransactionResponse;
+import eagre.reader.server.books.Book;
+import eagre.reader.server.books.BookAliasIndex;
+import eagre.reader.server.books.BookCatalog;
+import eagre.reader.server.books.E_BookSource;
+import eagre.reader.server.epub.EpubException;
+import eagre.reader.server.epub.EpubPackage;
+import eagre.reader.server.epub.EpubReader;
+import eagre.reader.server.epub.EpubSpineItem;
+import eagre.reader.server.epub.I_EpubPageHandler;
+import eagre.reader.server.epub.I_EpubSource;
+import eagre.reader.server.epub.U_EpubPath;
+
+/**
+ * Turns a fixed-layout EPUB3 into a book on the grid, one cell per spine item, using the same
+ * {@link PageCellWriter} path as image pages. Pages are streamed out of the archive and handed to
+ * worker threads as they're read, with a cap on how many can be in flight so memory stays bounded.
+ */
+public class EpubIngestor
+{
+	private static final Logger s_logger = Logger.getLogger(EpubIngestor.class.getName());
+
+	private static final Pattern HEAD_PATTERN = Pattern.compile("<head(\\s[^>]*)?>", Pattern.CASE_INSENSITIVE);
+
+	private final ServerContext m_serverContext;
+	private final BookCatalog m_catalog;
+	private final PageCellWriter m_writer;
+	private final PageCheckpointStore m_checkpoints;
+	private final EpubReader m_reader = new EpubReader();
+	private final int m_workerCount;
+
+	public EpubIngestor(ServerContext serverContext, BookCatalog catalog, PageCellWriter writer, PageCheckpointStore checkpoints, int workerCount)
+	{
+		m_serverContext = serverContext;
+		m_catalog = catalog;
+		m_writer = writer;
+		m_checkpoints = checkpoints;
+		m_workerCount = Math.max(1, workerCount);
+	}
+
+	/**
+	 * @param row The grid row to lay the book out on. Ignored if the book is already in the catalog.
+	 * @param assetBaseUrl Where the archive's resources are served from, e.g. "/r.epub/{id}/". Relative
+	 * references in pages (images, stylesheets, media) are resolved against this.
+	 */
+	public BookIngestionProgress ingest(I_EpubSource source, int row, String assetBaseUrl, final E_IngestionMode mode, final ServerCodePrivileges privileges, TransactionResponse response) throws IOException, EpubException
+	{
+		EpubPackage epubPackage = m_reader.readPackage(source);
+
+		if( epubPackage.getIdentifier() == null )  throw new EpubException("Package has no identifier.");
+		if( epubPackage.getSpine().isEmpty() )  throw new EpubException("Package has an empty spine.");
+
+		final Book book = createBook(epubPackage, row);
+		final BookAliasIndex aliasIndex;
+		BookAliasIndex previousAliasIndex = null;
+
+		//--- DRK > A dry run mustn't touch the catalog, so aliases are worked out from the package directly.
+		if( mode == E_IngestionMode.DRY_RUN )
+		{
+			aliasIndex = new BookAliasIndex(book, epubPackage.getTableOfContents());
+		}
+		else
+		{
+			//--- DRK > createBook hands back the catalog's own book when nothing about it changed, so there's nothing to put.
+			if( book != m_catalog.getBook(book.getId()) )
+			{
+				previousAliasIndex = m_catalog.put(book, epubPackage.getTableOfContents());
+			}
+
+			aliasIndex = m_catalog.getAliasIndex(book);
+		}
+
+		final BookDiff diff = new BookDiff(book, m_checkpoints.getCheckpoints(book));
+		final BookIngestionProgress progress = new BookIngestionProgress(book, book.getPageCount(), 0, diff);
+		final Map<Integer, PageCheckpoint> results = new ConcurrentHashMap<Integer, PageCheckpoint>();
+		final AtomicReference<E_ResponseError> workerError = new AtomicReference<E_ResponseError>();
+		final String baseUrl = assetBaseUrl.endsWith("/") ? assetBaseUrl : assetBaseUrl + "/";
+
+		//--- DRK > Bounds how many page sources can be sitting in memory waiting on a worker.
+		final Semaphore inFlight = new Semaphore(m_workerCount * 2);
+		final ExecutorService executor = Executors.newFixedThreadPool(m_workerCount, ThreadManager.currentRequestThreadFactory());
+
+		try
+		{
+			m_reader.readPages(source, epubPackage, new I_EpubPageHandler()
+			{
+				@Override
+				public void onPage(int spineIndex, EpubSpineItem item, String markup)
+				{
+					final int page = spineIndex + 1;
+					final String pageSource = prepareSource(markup, baseUrl + U_EpubPath.getDirectory(item.getPath()));
+					final String fingerprint = U_PageFingerprint.create(pageSource, aliasIndex.getAddresses(page));
+					E_PageChange change = diff.add(page, fingerprint);
+
+					if( mode == E_IngestionMode.DRY_RUN || mode == E_IngestionMode.DIFF && change == E_PageChange.UNCHANGED )
+					{
+						progress.onPageSkipped();
+
+						return;
+					}
+
+					inFlight.acquireUninterruptibly();
+
+					executor.submit(new Runnable()
+					{
+						@Override
+						public void run()
+						{
+							try
+							{
+								//--- DRK > TransactionResponse isn't thread-safe, so each page gets its own and errors are handed back.
+								TransactionResponse pageResponse = new TransactionResponse();
+								boolean success = writePage(book, page, pageSource, privileges, pageResponse);
+
+								if( pageResponse.getError() != E_ResponseError.NO_ERROR )
+								{
+									workerError.set(pageResponse.getError());
+								}
+
+								results.put(page, new PageCheckpoint(success ? E_PageCheckpointStatus.SUCCEEDED : E_PageCheckpointStatus.FAILED, fingerprint));
+								progress.onPageFinished(success);
+							}
+							finally
+							{
+								inFlight.release();
+							}
+						}
+					});
+				}
+
+				@Override
+				public void onPageSkipped(int spineIndex, EpubSpineItem item)
+				{
+					progress.onPageSkipped();
+
+					if( mode != E_IngestionMode.DRY_RUN )
+					{
+						results.put(spineIndex + 1, new PageCheckpoint(E_PageCheckpointStatus.SKIPPED, null));
+					}
+				}
+			});
+		}
+		finally
+		{
+			//--- DRK > Even if the archive couldn't be read to the end, pages already handed to workers are let finish
+			//---		and checkpointed, so the next run picks up where this one stopped.
+			executor.shutdown();
+
+			try
+			{
+				executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			}
+			catch (InterruptedException e)
+			{
+				s_logger.log(Level.SEVERE, "Interrupted while ingesting " + book.getName() + ".", e);
+
+				executor.shutdownNow();
+				Thread.currentThread().interrupt();
+			}
+
+			m_checkpoints.record(book, results);
+
+			if( workerError.get() != null )
+			{
+				response.setError(workerError.get());
+			}
+		}
+
+		s_logger.info(diff.toString());
+
+		//--- DRK > A changed ToC has to be registered even if no page needed writing, so its old aliases go away.
+		if( progress.getWrittenCount() > 0 || previousAliasIndex != null )
+		{
+			m_writer.registerAddresses(book, previousAliasIndex, response);
+		}
+
+		return progress;
+	}
+
+	private boolean writePage(Book book, int page, String source, ServerCodePrivileges privileges, TransactionResponse response)
+	{
+		I_BlobManager blobManager = m_serverContext.blobMngrFactory.create(E_BlobCacheLevel.LOCAL, E_BlobCacheLevel.PERSISTENT);
+		I_BlobManager cachingBlobManager = m_serverContext.blobMngrFactory.create(E_BlobCacheLevel.MEMCACHE);
+
+		try
+		{
+			return m_writer.write(book, page, source, blobManager, cachingBlobManager, privileges, response);
+		}
+		catch (RuntimeException e)
+		{
+			s_logger.log(Level.SEVERE, "Unexpected exception writing " + book.getName() + " page " + page + ".", e);
+
+			return false;
+		}
+	}
+
+	private Book createBook(EpubPackage epubPackage, int row)
+	{
+		String id = epubPackage.getIdentifier();
+
+		if( id.startsWith("urn:uuid:") )
+		{
+			id = id.substring("urn:uuid:".length());
+		}
+
+		Book existing = m_catalog.getBook(id);
+		int pageCount = epubPackage.getSpine().size();
+
+		//--- DRK > Re-ingesting a book whose layout and ToC are the same keeps the catalog's copy, version included.
+		if( existing != null && existing.getSource() == E_BookSource.EPUB && existing.getStartImageIndex() == 0 && existing.getPageCount() == pageCount && m_catalog.getTableOfContents(existing).equals(epubPackage.getTableOfContents()) )
+		{
+			return existing;
+		}
+
+		int version = existing == null ? 1 : existing.getVersion() + 1;
+		int bookRow = existing == null ? row : existing.getRow();
+		String name = existing == null ? makeAddressName(epubPackage.getTitle(), id) : existing.getName();
+
+		return new Book(id, name, version, bookRow, 0, pageCount, E_BookSource.EPUB);
+	}
+
+	/**
+	 * "Exploring Geology, 2nd Ed." becomes "ExploringGeology2ndEd".
+	 */
+	private static String makeAddressName(String title, String fallback)
+	{
+		StringBuilder name = new StringBuilder();
+		boolean upperNext = true;
+		String source = title == null ? fallback : title;
+
+		for( int i = 0; i < source.length(); i++ )
+		{
+			char c = source.charAt(i);
+
+			if( Character.isLetterOrDigit(c) && c < 128 )
+			{
+				name.append(upperNext ? Character.toUpperCase(c) : c);
+				upperNext = false;
+			}
+			else
+			{
+				upperNext = true;
+			}
+		}
+
+		return name.length() == 0 ? fallback : name.toString();
+	}
+
+	/**
+	 * Strips the XML prolog, which the cell compiler doesn't expect, and points relative
+	 * references at wherever the archive's resources are being served from.
+	 */
+	static String prepareSource(String markup, String baseUrl)
+	{
+		String source = markup;
+
+		if( source.startsWith("\uFEFF") )
+		{
+			source = source.substring(1);
+		}
+
+		source = source.replaceFirst("^\\s*<\\?xml[^>]*\\?>", "").replaceFirst("^\\s*<!DOCTYPE[^>]*>", "");
+
+		String base = "<base href='" + baseUrl + "'/>";
+		Matcher head = HEAD_PATTERN.matcher(source);
+
+		if( head.find() )
+		{
+			return source.substring(0, head.end()) + base + source.substring(head.end());
+		}
+
+		return base + source;
+	}
+}
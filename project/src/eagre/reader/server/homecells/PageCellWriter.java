@@ -0,0 +1,269 @@
+package eagre.reader.server.homecells;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+import swarm.server.app.ServerContext;
+import swarm.server.blobxn.BlobTransaction_CreateCell;
+import swarm.server.blobxn.BlobTransaction_SetCellAddress;
+import swarm.server.data.blob.BlobException;
+import swarm.server.data.blob.E_BlobTransactionType;
+import swarm.server.data.blob.I_BlobManager;
+import swarm.server.entities.E_GridType;
+import swarm.server.entities.ServerCell;
+import swarm.server.handlers.U_CellCode;
+import swarm.server.structs.ServerCellAddress;
+import swarm.server.structs.ServerCellAddressMapping;
+import swarm.server.structs.ServerCode;
+import swarm.server.structs.ServerCodePrivileges;
+import swarm.shared.code.CompilerResult;
+import swarm.shared.code.E_CompilationStatus;
+import swarm.shared.entities.E_CodeType;
+import swarm.shared.structs.GridCoordinate;
+import swarm.shared.transaction.E_ResponseError;
+import swarm.shared.transaction.TransactionResponse;
+import eagre.reader.server.app.AssetManifest;
+import eagre.reader.server.books.Book;
+import eagre.reader.server.books.BookCatalog;
+import eagre.reader.shared.images.PageImagePyramid;
+import eagre.reader.server.books.BookAliasIndex;
+
+/**
+ * Creates (or re-addresses) and compiles the home cell for a single page of a book.
+ * Holds no per-page state, so one instance can be shared by every ingestion worker.
+ */
+public class PageCellWriter
+{
+	private static final Logger s_logger = Logger.getLogger(PageCellWriter.class.getName());
+
+	private final ServerContext m_serverContext;
+	private final BookCatalog m_catalog;
+	private final PageTemplateCache m_templateCache;
+	private final AssetManifest m_assetManifest;
+
+	public PageCellWriter(ServerContext serverContext, BookCatalog catalog, PageTemplateCache templateCache, AssetManifest assetManifest)
+	{
+		m_serverContext = serverContext;
+		m_catalog = catalog;
+		m_templateCache = templateCache;
+		m_assetManifest = assetManifest;
+	}
+
+	/**
+	 * Writes an image-only page, stamping it from the book's compiled template when possible. The page after the one
+	 * that built the template is compiled directly and checked against it before any page is stamped.
+	 */
+	public boolean write(Book book, int page, I_BlobManager blobManager, I_BlobManager cachingBlobManager, ServerCodePrivileges privileges, TransactionResponse response)
+	{
+		ServerCellAddressMapping mapping = createMapping(book, page);
+		ServerCell persistedCell = prepareCell(book, page, mapping, blobManager, privileges, response);
+
+		if( persistedCell == null )  return false;
+
+		//--- DRK > Stamp the page image into the book's compiled template if we have one, otherwise compile.
+		String[] imageUrls = getImageUrls(book, page);
+
+		if( !m_templateCache.stamp(book, persistedCell, imageUrls) )
+		{
+			boolean buildTemplate = !m_templateCache.hasTemplate(book);
+			ServerCode sourceCode = buildTemplate ? PageTemplateCache.makeTemplateSource() : new ServerCode(PageTemplateCache.makePageSource(imageUrls), E_CodeType.SOURCE);
+
+			if( !compile(book, page, persistedCell, sourceCode, mapping, response) )  return false;
+
+			if( !buildTemplate )
+			{
+				m_templateCache.verify(book, persistedCell, imageUrls);
+			}
+			else if( !m_templateCache.putAndStamp(book, persistedCell, imageUrls) )
+			{
+				sourceCode = new ServerCode(PageTemplateCache.makePageSource(imageUrls), E_CodeType.SOURCE);
+
+				if( !compile(book, page, persistedCell, sourceCode, mapping, response) )  return false;
+			}
+		}
+
+		return save(mapping, persistedCell, blobManager, cachingBlobManager, response);
+	}
+
+	/**
+	 * Writes a page from arbitrary source, e.g. a page pulled out of an epub. Always goes through the compiler.
+	 */
+	public boolean write(Book book, int page, String source, I_BlobManager blobManager, I_BlobManager cachingBlobManager, ServerCodePrivileges privileges, TransactionResponse response)
+	{
+		ServerCellAddressMapping mapping = createMapping(book, page);
+		ServerCell persistedCell = prepareCell(book, page, mapping, blobManager, privileges, response);
+
+		if( persistedCell == null )  return false;
+
+		if( !compile(book, page, persistedCell, new ServerCode(source, E_CodeType.SOURCE), mapping, response) )  return false;
+
+		return save(mapping, persistedCell, blobManager, cachingBlobManager, response);
+	}
+
+	/**
+	 * URL of the page's image at each pyramid level, resolved to content-hashed names through the asset manifest.
+	 */
+	private String[] getImageUrls(Book book, int page)
+	{
+		String imageName = "IMG_0"+ (book.getStartImageIndex()+page-1)+".jpg";
+		String[] imageUrls = new String[PageImagePyramid.LEVEL_COUNT];
+
+		for( int level = 0; level < imageUrls.length; level++ )
+		{
+			imageUrls[level] = m_assetManifest.resolve(PageImagePyramid.getPath(S_Ingestion.PAGE_IMAGE_DIRECTORY, imageName, level));
+		}
+
+		return imageUrls;
+	}
+
+	/**
+	 * The source an image page is meant to end up with, whether it's actually compiled from it or stamped from a template.
+	 */
+	String createImagePageSource(Book book, int page)
+	{
+		return PageTemplateCache.makePageSource(getImageUrls(book, page));
+	}
+
+	private static GridCoordinate createCoordinate(Book book, int page)
+	{
+		return new GridCoordinate(page - 1, book.getRow());
+	}
+
+	static ServerCellAddressMapping createMapping(Book book, int page)
+	{
+		return new ServerCellAddressMapping(E_GridType.ACTIVE, createCoordinate(book, page));
+	}
+
+	/**
+	 * Creates the page's cell with all of its addresses if it doesn't exist yet. Addresses of cells that
+	 * already exist are left to {@link #registerAddresses(Book, BookAliasIndex, TransactionResponse)}, which does a whole book at once.
+	 *
+	 * @return The cell ready to be compiled into, or null on failure.
+	 */
+	private ServerCell prepareCell(Book book, int page, ServerCellAddressMapping mapping, I_BlobManager blobManager, ServerCodePrivileges privileges, TransactionResponse response)
+	{
+		if( U_CellCode.getCell(blobManager, mapping, response) == null )
+		{
+			BlobTransaction_CreateCell createCellTxn = new BlobTransaction_CreateCell(createAddresses(book, page), createCoordinate(book, page), privileges, 1);
+
+			try
+			{
+				createCellTxn.perform(m_serverContext.blobMngrFactory, E_BlobTransactionType.MULTI_BLOB_TYPE, 1);
+			}
+			catch (BlobException e)
+			{
+				response.setError(E_ResponseError.SERVER_EXCEPTION);
+
+				return null;
+			}
+		}
+
+		//--- DRK > Get the cell itself.
+		return U_CellCode.getCellForCompile(blobManager, mapping, response);
+	}
+
+	/**
+	 * Points every address in the book's alias index (page, chapter, section, ..., book) at its page in one transaction.
+	 * Run once a book's pages exist so that re-runs and ToC changes pick up new aliases without touching each cell.
+	 * <p>
+	 * If the book's ToC was replaced, addresses it lost are deleted, and only the cells whose address lists changed
+	 * are re-addressed one by one, so each cell's own list matches what its addresses map to.
+	 *
+	 * @param previousAliasIndex What {@link BookCatalog#put} returned when the ToC was replaced, or null.
+	 */
+	public boolean registerAddresses(Book book, BookAliasIndex previousAliasIndex, TransactionResponse response)
+	{
+		BookAliasIndex aliasIndex = m_catalog.getAliasIndex(book);
+
+		if( previousAliasIndex != null && !readdressChangedCells(book, aliasIndex, previousAliasIndex, response) )
+		{
+			return false;
+		}
+
+		BlobTransaction_SetBookAddresses setAddressesTxn = new BlobTransaction_SetBookAddresses(m_serverContext, aliasIndex, previousAliasIndex);
+
+		try
+		{
+			setAddressesTxn.perform(m_serverContext.blobMngrFactory, E_BlobTransactionType.MULTI_BLOB_TYPE, 1);
+		}
+		catch (BlobException e)
+		{
+			s_logger.severe("Couldn't register the " + aliasIndex.size() + " address(es) of " + book.getName() + ".");
+
+			response.setError(E_ResponseError.SERVER_EXCEPTION);
+
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Runs before the book-wide put, so an address that moved to another page ends up pointing at the new one.
+	 */
+	private boolean readdressChangedCells(Book book, BookAliasIndex aliasIndex, BookAliasIndex previousAliasIndex, TransactionResponse response)
+	{
+		for( int page = 1; page <= book.getPageCount(); page++ )
+		{
+			if( aliasIndex.getAddresses(page).equals(previousAliasIndex.getAddresses(page)) )  continue;
+
+			BlobTransaction_SetCellAddress setCellAddyTxn = new BlobTransaction_SetCellAddress(createMapping(book, page), createAddresses(book, page));
+
+			try
+			{
+				setCellAddyTxn.perform(m_serverContext.blobMngrFactory, E_BlobTransactionType.MULTI_BLOB_TYPE, 1);
+			}
+			catch (BlobException e)
+			{
+				s_logger.severe("Couldn't re-address " + book.getName() + " page " + page + ".");
+
+				response.setError(E_ResponseError.SERVER_EXCEPTION);
+
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean save(ServerCellAddressMapping mapping, ServerCell persistedCell, I_BlobManager blobManager, I_BlobManager cachingBlobManager, TransactionResponse response)
+	{
+		if( !U_CellCode.saveBackCompiledCell(blobManager, cachingBlobManager, mapping, persistedCell, response) )
+		{
+			response.setError(E_ResponseError.SERVICE_EXCEPTION);
+
+			return false;
+		}
+
+		return true;
+	}
+
+	private ServerCellAddress[] createAddresses(Book book, int page)
+	{
+		List<String> aliases = m_catalog.getAliasIndex(book).getAddresses(page);
+		ServerCellAddress[] addresses = new ServerCellAddress[aliases.size()];
+
+		for( int i = 0; i < addresses.length; i++ )
+		{
+			addresses[i] = new ServerCellAddress(aliases.get(i));
+		}
+
+		return addresses;
+	}
+
+	private boolean compile(Book book, int page, ServerCell persistedCell, ServerCode sourceCode, ServerCellAddressMapping mapping, TransactionResponse response)
+	{
+		CompilerResult result = U_CellCode.compileCell(m_serverContext.codeCompiler, persistedCell, sourceCode, mapping, m_serverContext.config.appId);
+
+		if( result.getStatus() != E_CompilationStatus.NO_ERROR )
+		{
+			s_logger.severe("Couldn't compile source code for " + book.getName() + " page " + page + ".");
+
+			response.setError(E_ResponseError.SERVICE_EXCEPTION);
+
+			return false;
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,29 @@
+package eagre.reader.server.homecells;
+
+/**
+ * What was last written for a page: whether it worked, and the fingerprint of the source and addresses written.
+ */
+public class PageCheckpoint
+{
+	private final E_PageCheckpointStatus m_status;
+	private final String m_fingerprint;
+	
+	public PageCheckpoint(E_PageCheckpointStatus status, String fingerprint)
+	{
+		m_status = status;
+		m_fingerprint = fingerprint;
+	}
+	
+	public E_PageCheckpointStatus getStatus()
+	{
+		return m_status;
+	}
+	
+	/**
+	 * Null for checkpoints written before fingerprints were recorded.
+	 */
+	public String getFingerprint()
+	{
+		return m_fingerprint;
+	}
+}
@@ -0,0 +1,127 @@
+package eagre.reader.server.homecells;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+
+import eagre.reader.server.books.Book;
+
+/**
+ * Persists the outcome and fingerprint of every (book, page) write so that a re-run of a book only has to
+ * touch pages that are missing, previously failed, or changed. All reads and writes are batched.
+ */
+public class PageCheckpointStore
+{
+	private static final Logger s_logger = Logger.getLogger(PageCheckpointStore.class.getName());
+
+	private static final String KIND = "er_PageCheckpoint";
+	private static final String STATUS_PROPERTY = "status";
+	private static final String FINGERPRINT_PROPERTY = "fingerprint";
+	private static final String UPDATED_PROPERTY = "updated";
+
+	//--- DRK > Datastore caps batch gets at 1000 keys and batch puts at 500 entities.
+	private static final int MAX_BATCH_SIZE = 1000;
+	private static final int MAX_PUT_SIZE = 500;
+
+	private final DatastoreService m_datastore;
+
+	public PageCheckpointStore()
+	{
+		m_datastore = DatastoreServiceFactory.getDatastoreService();
+	}
+
+	private static Key createKey(Book book, int page)
+	{
+		return KeyFactory.createKey(KIND, book.getId() + "/" + page);
+	}
+
+	/**
+	 * Returns the last checkpoint of every page of the book that has one, keyed by 1-based page.
+	 * If the checkpoints can't be read, an empty map is returned so every page is treated as new and nothing gets skipped.
+	 */
+	public Map<Integer, PageCheckpoint> getCheckpoints(Book book)
+	{
+		Map<Integer, PageCheckpoint> checkpoints = new HashMap<Integer, PageCheckpoint>();
+
+		try
+		{
+			for( int firstPage = 1; firstPage <= book.getPageCount(); firstPage += MAX_BATCH_SIZE )
+			{
+				int lastPage = Math.min(firstPage + MAX_BATCH_SIZE - 1, book.getPageCount());
+				List<Key> keys = new ArrayList<Key>();
+
+				for( int page = firstPage; page <= lastPage; page++ )
+				{
+					keys.add(createKey(book, page));
+				}
+
+				Map<Key, Entity> entities = m_datastore.get(keys);
+
+				for( int page = firstPage; page <= lastPage; page++ )
+				{
+					Entity entity = entities.get(createKey(book, page));
+
+					if( entity == null )  continue;
+
+					E_PageCheckpointStatus status = E_PageCheckpointStatus.valueOf((String) entity.getProperty(STATUS_PROPERTY));
+					checkpoints.put(page, new PageCheckpoint(status, (String) entity.getProperty(FINGERPRINT_PROPERTY)));
+				}
+			}
+		}
+		catch (RuntimeException e)
+		{
+			s_logger.log(Level.WARNING, "Couldn't read checkpoints for " + book.getName() + ", re-running every page.", e);
+
+			checkpoints.clear();
+		}
+
+		return checkpoints;
+	}
+
+	/**
+	 * Records a batch of page results in as few datastore puts as possible. Failing to record is logged
+	 * but not fatal; the affected pages will just be redone on the next run.
+	 */
+	public void record(Book book, Map<Integer, PageCheckpoint> results)
+	{
+		if( results.isEmpty() )  return;
+
+		List<Entity> entities = new ArrayList<Entity>();
+		Long now = System.currentTimeMillis();
+		Iterator<Map.Entry<Integer, PageCheckpoint>> iterator = results.entrySet().iterator();
+
+		while( iterator.hasNext() )
+		{
+			Map.Entry<Integer, PageCheckpoint> result = iterator.next();
+
+			Entity entity = new Entity(createKey(book, result.getKey()));
+			entity.setUnindexedProperty(STATUS_PROPERTY, result.getValue().getStatus().name());
+			entity.setUnindexedProperty(FINGERPRINT_PROPERTY, result.getValue().getFingerprint());
+			entity.setUnindexedProperty(UPDATED_PROPERTY, now);
+
+			entities.add(entity);
+		}
+
+		try
+		{
+			for( int first = 0; first < entities.size(); first += MAX_PUT_SIZE )
+			{
+				m_datastore.put(entities.subList(first, Math.min(first + MAX_PUT_SIZE, entities.size())));
+			}
+		}
+		catch (RuntimeException e)
+		{
+			s_logger.log(Level.WARNING, "Couldn't record checkpoints for " + book.getName() + ".", e);
+		}
+	}
+}
@@ -0,0 +1,262 @@
+package eagre.reader.server.homecells;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import swarm.server.entities.ServerCell;
+import swarm.server.structs.ServerCode;
+import swarm.shared.entities.E_CodeType;
+import eagre.reader.server.books.Book;
+import eagre.reader.shared.images.PageImagePyramid;
+
+/**
+ * Image-only page cells differ only in their image URLs, so the compiled output of the page
+ * shell is kept per book with a placeholder where each pyramid level's URL goes. Pages of a book get their code
+ * stamped from the template instead of going through the compiler.
+ * <p>
+ * The template is compiled with the mapping of the page that built it, and nothing guarantees the compiler's output
+ * doesn't depend on that mapping. So the next page is compiled directly and compared with what the template would
+ * have stamped for it, and stamping only starts once they match. If they don't, the book's pages are all compiled.
+ */
+public class PageTemplateCache
+{
+	private static final Logger s_logger = Logger.getLogger(PageTemplateCache.class.getName());
+
+	private static final String IMAGE_PLACEHOLDER_PREFIX = "__er_page_image_";
+
+	private final ConcurrentHashMap<String, Template> m_templates = new ConcurrentHashMap<String, Template>();
+
+	private final AtomicLong m_hits = new AtomicLong(0);
+	private final AtomicLong m_misses = new AtomicLong(0);
+
+	/**
+	 * A book whose compiled shell doesn't keep the placeholder intact, or doesn't match a directly compiled page,
+	 * gets an empty template, which tells callers to always compile pages of that book normally.
+	 */
+	private static class Template
+	{
+		private final Map<E_CodeType, String> m_code;
+		private final boolean m_verified;
+
+		Template(Map<E_CodeType, String> code, boolean verified)
+		{
+			m_code = code;
+			m_verified = verified;
+		}
+
+		boolean isUsable()
+		{
+			return m_code != null;
+		}
+
+		boolean isVerified()
+		{
+			return m_verified;
+		}
+	}
+
+	private static String getImagePlaceholder(int level)
+	{
+		return IMAGE_PLACEHOLDER_PREFIX + level + "__";
+	}
+
+	/**
+	 * The image starts out at the smallest pyramid level; the client's page image level picker swaps in
+	 * sharper levels from data-er-image-levels as the page gets bigger on screen, so zoomed-out views never
+	 * pull full-size images.
+	 *
+	 * @param imageUrls URL of the page image at each {@link PageImagePyramid} level, largest first.
+	 */
+	static String makePageSource(String[] imageUrls)
+	{
+		StringBuilder levels = new StringBuilder();
+
+		for( int level = 0; level < imageUrls.length; level++ )
+		{
+			if( level > 0 )
+			{
+				levels.append(' ');
+			}
+
+			levels.append(imageUrls[level]);
+		}
+
+		String src = imageUrls[imageUrls.length - 1];
+
+		return "<html><head></head><body style='position:absolute; width:100%; height:100%; overflow:hidden;'><img src='"+src+"' data-er-image-levels='"+levels+"' style='width:100%; height:100%;'/></body></html>";
+	}
+
+	static ServerCode makeTemplateSource()
+	{
+		String[] placeholders = new String[PageImagePyramid.LEVEL_COUNT];
+
+		for( int level = 0; level < placeholders.length; level++ )
+		{
+			placeholders[level] = getImagePlaceholder(level);
+		}
+
+		return new ServerCode(makePageSource(placeholders), E_CodeType.SOURCE);
+	}
+
+	/**
+	 * Fills in the cell's code for the given image URLs from the book's template.
+	 *
+	 * @return false if there's no usable and verified template for the book yet, in which case the caller should compile.
+	 */
+	boolean stamp(Book book, ServerCell cell, String[] imageUrls)
+	{
+		Template template = m_templates.get(book.getId());
+
+		if( template == null || !template.isUsable() || !template.isVerified() )
+		{
+			m_misses.incrementAndGet();
+
+			return false;
+		}
+
+		m_hits.incrementAndGet();
+
+		apply(template, cell, imageUrls);
+
+		return true;
+	}
+
+	private static void apply(Template template, ServerCell cell, String[] imageUrls)
+	{
+		for( Map.Entry<E_CodeType, String> entry : template.m_code.entrySet() )
+		{
+			cell.setCode(entry.getKey(), new ServerCode(fill(entry.getValue(), imageUrls), entry.getKey()));
+		}
+	}
+
+	private static String fill(String code, String[] imageUrls)
+	{
+		for( int level = 0; level < imageUrls.length; level++ )
+		{
+			code = code.replace(getImagePlaceholder(level), imageUrls[level]);
+		}
+
+		return code;
+	}
+
+	/**
+	 * Captures a template from a cell that was just compiled from {@link #makeTemplateSource()},
+	 * then stamps the given image URLs into that same cell.
+	 *
+	 * @return false if the compiled output can't be used as a template, in which case the caller should compile.
+	 */
+	boolean putAndStamp(Book book, ServerCell compiledCell, String[] imageUrls)
+	{
+		Map<E_CodeType, String> code = new EnumMap<E_CodeType, String>(E_CodeType.class);
+
+		for( E_CodeType codeType : E_CodeType.values() )
+		{
+			ServerCode cellCode = compiledCell.getCode(codeType);
+
+			if( cellCode == null )  continue;
+
+			String rawCode = cellCode.getRawCode();
+
+			//--- DRK > If the compiler mangled the placeholder we can't safely stamp pages from this output.
+			if( rawCode == null || !containsPlaceholders(rawCode) )
+			{
+				s_logger.warning("Compiled " + codeType + " code for " + book.getName() + " lost the image placeholder, pages will be compiled individually.");
+
+				m_templates.putIfAbsent(book.getId(), new Template(null, true));
+
+				return false;
+			}
+
+			code.put(codeType, rawCode);
+		}
+
+		Template template = new Template(code, false);
+		m_templates.putIfAbsent(book.getId(), template);
+
+		apply(template, compiledCell, imageUrls);
+
+		return true;
+	}
+
+	/**
+	 * Compares a cell that was just compiled directly from {@link #makePageSource(String[])} with what the book's
+	 * unverified template stamps for the same image URLs. A match lets {@link #stamp} use the template; a mismatch means
+	 * the compiled output depends on more than the image URLs, e.g. the cell's coordinates, so the template is dropped.
+	 */
+	void verify(Book book, ServerCell compiledCell, String[] imageUrls)
+	{
+		Template template = m_templates.get(book.getId());
+
+		if( template == null || !template.isUsable() || template.isVerified() )  return;
+
+		boolean matches = true;
+
+		for( E_CodeType codeType : E_CodeType.values() )
+		{
+			ServerCode cellCode = compiledCell.getCode(codeType);
+			String templateCode = template.m_code.get(codeType);
+			String expected = templateCode != null ? fill(templateCode, imageUrls) : null;
+			String actual = cellCode != null ? cellCode.getRawCode() : null;
+
+			if( expected == null ? actual != null : !expected.equals(actual) )
+			{
+				matches = false;
+
+				break;
+			}
+		}
+
+		if( matches )
+		{
+			m_templates.replace(book.getId(), template, new Template(template.m_code, true));
+		}
+		else
+		{
+			s_logger.warning("Compiled code for " + book.getName() + " depends on more than the page image, pages will be compiled individually.");
+
+			m_templates.replace(book.getId(), template, new Template(null, true));
+		}
+	}
+
+	private static boolean containsPlaceholders(String code)
+	{
+		for( int level = 0; level < PageImagePyramid.LEVEL_COUNT; level++ )
+		{
+			if( !code.contains(getImagePlaceholder(level)) )  return false;
+		}
+
+		return true;
+	}
+
+	boolean hasTemplate(Book book)
+	{
+		return m_templates.containsKey(book.getId());
+	}
+
+	public long getHitCount()
+	{
+		return m_hits.get();
+	}
+
+	public long getMissCount()
+	{
+		return m_misses.get();
+	}
+
+	public double getHitRate()
+	{
+		long hits = m_hits.get();
+		long total = hits + m_misses.get();
+
+		return total == 0 ? 0 : ((double) hits) / total;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Page template cache: " + getHitCount() + " hits, " + getMissCount() + " misses (" + Math.round(getHitRate() * 100) + "% hit rate).";
+	}
+}
@@ -0,0 +1,26 @@
+package eagre.reader.server.homecells;
+
+public class S_Ingestion
+{
+	public static final int WORKER_COUNT = 8;
+	
+	public static final int PAGE_BATCH_SIZE = 16;
+	
+	//--- DRK > DIFF only rewrites pages whose source or addresses changed; DRY_RUN just logs what DIFF would do.
+	public static final E_IngestionMode MODE = E_IngestionMode.DIFF;
+	
+	//--- DRK > Originals of image books' pages. Smaller levels of each image live in subdirectories; see PageImagePyramid.
+	public static final String PAGE_IMAGE_DIRECTORY = "/r.img/pages/";
+	
+	//--- DRK > Any .epub dropped in here gets ingested as a book on the next run.
+	public static final String EPUB_DIRECTORY = "/WEB-INF/epubs/";
+	
+	//--- DRK > Where an epub's resources are expected to be served from; the file name (minus .epub) is appended.
+	public static final String EPUB_ASSET_BASE_URL = "/r.epub/";
+	
+	//--- DRK > How many leading pages of each chapter get their compiled cell pushed into memcache after ingestion.
+	public static final int WARM_PAGES_PER_CHAPTER = 3;
+	
+	//--- DRK > Upper bound on blobs (address mappings plus cells) pushed into memcache per book.
+	public static final int WARM_BLOB_BUDGET = 2000;
+}
@@ -0,0 +1,55 @@
+package eagre.reader.server.homecells;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Hashes everything that goes into a page cell, so a re-run can tell whether writing the page again would change anything.
+ */
+public class U_PageFingerprint
+{
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+	
+	private U_PageFingerprint()
+	{
+	}
+	
+	public static String create(String source, List<String> addresses)
+	{
+		MessageDigest digest;
+		
+		try
+		{
+			digest = MessageDigest.getInstance("SHA-1");
+			digest.update(source.getBytes("UTF-8"));
+			
+			//--- DRK > Separator can't show up in an address, so "a" + "bc" never hashes the same as "ab" + "c".
+			for( int i = 0; i < addresses.size(); i++ )
+			{
+				digest.update((byte) 0);
+				digest.update(addresses.get(i).getBytes("UTF-8"));
+			}
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException(e);
+		}
+		catch (UnsupportedEncodingException e)
+		{
+			throw new IllegalStateException(e);
+		}
+		
+		byte[] hash = digest.digest();
+		char[] hex = new char[hash.length * 2];
+		
+		for( int i = 0; i < hash.length; i++ )
+		{
+			hex[i*2] = HEX_DIGITS[(hash[i] >> 4) & 0xf];
+			hex[i*2+1] = HEX_DIGITS[hash[i] & 0xf];
+		}
+		
+		return new String(hex);
+	}
+}
@@ -0,0 +1,61 @@
+package eagre.reader.shared.images;
+
+/**
+ * Describes the resolution pyramid generated for every page image. Level 0 is the original,
+ * which is exactly one book grid cell (1024x748); each level after that halves both dimensions.
+ * Levels other than 0 live in a subdirectory named after their width, e.g. "w256/IMG_0173.jpg".
+ * <p>
+ * Shared between client and server so page cells, the camera, and the offline generator all agree on level sizes and paths.
+ */
+public class PageImagePyramid
+{
+	public static final int BASE_WIDTH = 1024;
+	public static final int BASE_HEIGHT = 748;
+
+	//--- DRK > 1024, 512, 256, 128, 64. Below 64px wide a page is just a smear anyway.
+	public static final int LEVEL_COUNT = 5;
+
+	private PageImagePyramid()
+	{
+	}
+
+	public static int getWidth(int level)
+	{
+		return BASE_WIDTH >> level;
+	}
+
+	public static int getHeight(int level)
+	{
+		//--- DRK > Round up so a level is never smaller than the space it's drawn into.
+		return (BASE_HEIGHT + (1 << level) - 1) >> level;
+	}
+
+	/**
+	 * @param displayedWidth How many device pixels wide the page is being drawn, i.e. CSS width times device pixel ratio.
+	 * @return The smallest level that's still at least as wide as the displayed width.
+	 */
+	public static int getLevel(double displayedWidth)
+	{
+		int level = 0;
+
+		while( level + 1 < LEVEL_COUNT && getWidth(level + 1) >= displayedWidth )
+		{
+			level++;
+		}
+
+		return level;
+	}
+
+	public static String getDirectory(int level)
+	{
+		return level == 0 ? "" : "w" + getWidth(level) + "/";
+	}
+
+	/**
+	 * @param directory The directory of the originals, ending with a slash, e.g. "/r.img/pages/".
+	 */
+	public static String getPath(String directory, String fileName, int level)
+	{
+		return directory + getDirectory(level) + fileName;
+	}
+}
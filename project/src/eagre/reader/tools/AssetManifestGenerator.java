@@ -0,0 +1,329 @@
+package eagre.reader.tools;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.json.JSONObject;
+
+/**
+ * Offline tool that copies static assets to content-hashed names and writes the manifest read by
+ * {@link eagre.reader.server.app.AssetManifest}. "r.img/pages/IMG_0173.jpg" gets a copy at
+ * "r.cache/r.img/pages/IMG_0173.3f2a9c1b4e5d.cache.jpg", which appengine-web.xml serves as immutable.
+ * The originals stay where they are and are still served, under the default expiration, for dev servers
+ * that haven't run the build and for cells compiled before there was a manifest.
+ * <p>
+ * Hashed copies that aren't in the new manifest are deleted, including ones older builds wrote next to
+ * the originals. Pages compiled against an older manifest need re-ingesting after a deploy.
+ * <p>
+ * Usage: AssetManifestGenerator war r.img/pages r.app/min.css r.app/min.js ...
+ */
+public class AssetManifestGenerator
+{
+	private static final String CACHE_DIRECTORY = "r.cache";
+	private static final String CACHE_MARKER = ".cache.";
+	private static final int HASH_LENGTH = 12;
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+	private static final Pattern HASHED_NAME = Pattern.compile("(.*)\\.[0-9a-f]{" + HASH_LENGTH + "}\\.cache(\\..*)?");
+
+	public static void main(String[] args) throws IOException
+	{
+		if( args.length < 2 )
+		{
+			System.err.println("Usage: AssetManifestGenerator <war directory> <asset file or directory, relative to war>...");
+			System.exit(1);
+		}
+
+		File war = new File(args[0]);
+		List<File> assets = new ArrayList<File>();
+
+		for( int i = 1; i < args.length; i++ )
+		{
+			File asset = new File(war, args[i]);
+
+			if( !asset.exists() )
+			{
+				System.err.println("Skipping " + asset + ", it doesn't exist.");
+
+				continue;
+			}
+
+			collect(asset, assets);
+		}
+
+		File cache = new File(war, CACHE_DIRECTORY);
+
+		//--- DRK > Sorted so the manifest only shows a diff when an asset actually changes.
+		Map<String, String> manifest = new TreeMap<String, String>();
+		Set<File> hashedFiles = new HashSet<File>();
+
+		for( int i = 0; i < assets.size(); i++ )
+		{
+			File asset = assets.get(i);
+			File directory = new File(cache, getUrlPath(war, asset.getParentFile()));
+			File hashed = new File(directory, createHashedName(asset.getName(), hash(asset)));
+
+			if( !hashed.exists() )
+			{
+				directory.mkdirs();
+
+				copy(asset, hashed);
+			}
+
+			manifest.put(getUrlPath(war, asset), getUrlPath(war, hashed));
+			hashedFiles.add(hashed.getCanonicalFile());
+		}
+
+		writeManifest(new File(war, "WEB-INF/asset-manifest.json"), manifest);
+
+		int deleted = deleteStaleCopies(cache, hashedFiles) + deleteInPlaceCopies(assets);
+
+		System.out.println("Wrote " + manifest.size() + " hashed asset path(s), deleted " + deleted + " stale one(s).");
+	}
+
+	/**
+	 * Deletes every file under the cache directory that isn't a current hashed copy, and any directories that leaves empty.
+	 */
+	private static int deleteStaleCopies(File file, Set<File> hashedFiles) throws IOException
+	{
+		if( file.isDirectory() )
+		{
+			int deleted = 0;
+			File[] children = file.listFiles();
+
+			for( int i = 0; i < children.length; i++ )
+			{
+				deleted += deleteStaleCopies(children[i], hashedFiles);
+			}
+
+			if( file.list().length == 0 )
+			{
+				file.delete();
+			}
+
+			return deleted;
+		}
+		else if( file.exists() && !hashedFiles.contains(file.getCanonicalFile()) )
+		{
+			return delete(file);
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Deletes hashed copies that older builds wrote next to the originals. Only names that decode to an asset
+	 * in the same directory are touched, so GWT's own *.cache.* output in r.app is left alone.
+	 */
+	private static int deleteInPlaceCopies(List<File> assets)
+	{
+		Map<File, Set<String>> namesByDirectory = new HashMap<File, Set<String>>();
+
+		for( int i = 0; i < assets.size(); i++ )
+		{
+			File asset = assets.get(i);
+			Set<String> names = namesByDirectory.get(asset.getParentFile());
+
+			if( names == null )
+			{
+				names = new HashSet<String>();
+				namesByDirectory.put(asset.getParentFile(), names);
+			}
+
+			names.add(asset.getName());
+		}
+
+		int deleted = 0;
+
+		for( Map.Entry<File, Set<String>> entry : namesByDirectory.entrySet() )
+		{
+			File[] children = entry.getKey().listFiles();
+
+			for( int i = 0; i < children.length; i++ )
+			{
+				String originalName = getOriginalName(children[i].getName());
+
+				if( originalName != null && entry.getValue().contains(originalName) )
+				{
+					deleted += delete(children[i]);
+				}
+			}
+		}
+
+		return deleted;
+	}
+
+	private static int delete(File file)
+	{
+		if( !file.delete() )
+		{
+			System.err.println("Couldn't delete stale copy " + file + ".");
+
+			return 0;
+		}
+
+		return 1;
+	}
+
+	private static void collect(File file, List<File> assets)
+	{
+		if( file.isDirectory() )
+		{
+			File[] children = file.listFiles();
+
+			for( int i = 0; i < children.length; i++ )
+			{
+				collect(children[i], assets);
+			}
+		}
+		else if( !file.getName().contains(CACHE_MARKER) && !file.getName().startsWith(".") )
+		{
+			assets.add(file);
+		}
+	}
+
+	static String createHashedName(String name, String hash)
+	{
+		int dot = name.lastIndexOf('.');
+
+		if( dot <= 0 )  return name + "." + hash + ".cache";
+
+		return name.substring(0, dot) + "." + hash + CACHE_MARKER + name.substring(dot + 1);
+	}
+
+	/**
+	 * Inverse of {@link #createHashedName(String, String)}, or null if the name isn't a hashed copy.
+	 */
+	static String getOriginalName(String hashedName)
+	{
+		Matcher matcher = HASHED_NAME.matcher(hashedName);
+
+		if( !matcher.matches() )  return null;
+
+		return matcher.group(2) == null ? matcher.group(1) : matcher.group(1) + matcher.group(2);
+	}
+
+	private static String getUrlPath(File war, File file) throws IOException
+	{
+		String warPath = war.getCanonicalPath();
+		String filePath = file.getCanonicalPath();
+
+		return filePath.substring(warPath.length()).replace(File.separatorChar, '/');
+	}
+
+	private static String hash(File file) throws IOException
+	{
+		MessageDigest digest;
+
+		try
+		{
+			digest = MessageDigest.getInstance("SHA-1");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException(e);
+		}
+
+		InputStream input = new FileInputStream(file);
+
+		try
+		{
+			byte[] buffer = new byte[8192];
+			int read;
+
+			while( (read = input.read(buffer)) != -1 )
+			{
+				digest.update(buffer, 0, read);
+			}
+		}
+		finally
+		{
+			input.close();
+		}
+
+		byte[] hash = digest.digest();
+		char[] hex = new char[HASH_LENGTH];
+
+		for( int i = 0; i < HASH_LENGTH; i++ )
+		{
+			int b = hash[i/2];
+			hex[i] = HEX_DIGITS[(i % 2 == 0 ? b >> 4 : b) & 0xf];
+		}
+
+		return new String(hex);
+	}
+
+	private static void copy(File from, File to) throws IOException
+	{
+		InputStream input = new FileInputStream(from);
+
+		try
+		{
+			OutputStream output = new FileOutputStream(to);
+
+			try
+			{
+				byte[] buffer = new byte[8192];
+				int read;
+
+				while( (read = input.read(buffer)) != -1 )
+				{
+					output.write(buffer, 0, read);
+				}
+			}
+			finally
+			{
+				output.close();
+			}
+		}
+		finally
+		{
+			input.close();
+		}
+	}
+
+	private static void writeManifest(File file, Map<String, String> manifest) throws IOException
+	{
+		//--- DRK > Written by hand rather than through JSONObject so key order stays sorted.
+		StringBuilder json = new StringBuilder("{\n");
+
+		for( Map.Entry<String, String> entry : manifest.entrySet() )
+		{
+			if( json.length() > 2 )
+			{
+				json.append(",\n");
+			}
+
+			json.append(' ').append(JSONObject.quote(entry.getKey())).append(": ").append(JSONObject.quote(entry.getValue()));
+		}
+
+		json.append("\n}\n");
+
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+
+		try
+		{
+			writer.write(json.toString());
+		}
+		finally
+		{
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package eagre.reader.tools;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import eagre.reader.shared.images.PageImagePyramid;
+
+/**
+ * Offline tool that writes the smaller levels of {@link PageImagePyramid} for every page image in a directory.
+ * Each level is scaled down from the one above it rather than from the original, which keeps bilinear
+ * filtering from skipping pixels. Levels that are already newer than their original are left alone.
+ * <p>
+ * Usage: PageImagePyramidGenerator war/r.img/pages
+ */
+public class PageImagePyramidGenerator
+{
+	private static final float JPEG_QUALITY = .85f;
+
+	public static void main(String[] args) throws IOException
+	{
+		if( args.length != 1 )
+		{
+			System.err.println("Usage: PageImagePyramidGenerator <page image directory>");
+			System.exit(1);
+		}
+
+		File directory = new File(args[0]);
+		File[] images = directory.listFiles(new FileFilter()
+		{
+			@Override
+			public boolean accept(File file)
+			{
+				String name = file.getName().toLowerCase();
+
+				//--- DRK > Content-hashed copies written by AssetManifestGenerator aren't originals.
+				if( name.contains(".cache.") )  return false;
+
+				return file.isFile() && (name.endsWith(".jpg") || name.endsWith(".jpeg"));
+			}
+		});
+
+		if( images == null )
+		{
+			System.err.println(directory + " isn't a directory.");
+			System.exit(1);
+		}
+
+		int generated = 0;
+
+		for( int i = 0; i < images.length; i++ )
+		{
+			generated += generate(images[i]);
+		}
+
+		System.out.println("Generated " + generated + " level(s) for " + images.length + " page image(s).");
+	}
+
+	private static int generate(File original) throws IOException
+	{
+		if( isUpToDate(original) )  return 0;
+
+		BufferedImage image = ImageIO.read(original);
+
+		if( image == null )
+		{
+			System.err.println("Skipping " + original + ", couldn't decode it.");
+
+			return 0;
+		}
+
+		int generated = 0;
+
+		for( int level = 1; level < PageImagePyramid.LEVEL_COUNT; level++ )
+		{
+			image = scale(image, PageImagePyramid.getWidth(level), PageImagePyramid.getHeight(level));
+
+			File levelDirectory = new File(original.getParentFile(), PageImagePyramid.getDirectory(level));
+			levelDirectory.mkdirs();
+
+			writeJpeg(image, new File(levelDirectory, original.getName()));
+			generated++;
+		}
+
+		return generated;
+	}
+
+	private static boolean isUpToDate(File original)
+	{
+		for( int level = 1; level < PageImagePyramid.LEVEL_COUNT; level++ )
+		{
+			File levelFile = new File(new File(original.getParentFile(), PageImagePyramid.getDirectory(level)), original.getName());
+
+			if( !levelFile.exists() || levelFile.lastModified() < original.lastModified() )  return false;
+		}
+
+		return true;
+	}
+
+	private static BufferedImage scale(BufferedImage source, int width, int height)
+	{
+		BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = scaled.createGraphics();
+
+		try
+		{
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			graphics.drawImage(source, 0, 0, width, height, null);
+		}
+		finally
+		{
+			graphics.dispose();
+		}
+
+		return scaled;
+	}
+
+	private static void writeJpeg(BufferedImage image, File file) throws IOException
+	{
+		Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+		ImageWriter writer = writers.next();
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		param.setCompressionQuality(JPEG_QUALITY);
+
+		file.delete();
+		ImageOutputStream output = ImageIO.createImageOutputStream(file);
+
+		try
+		{
+			writer.setOutput(output);
+			writer.write(null, new IIOImage(image, null, null), param);
+		}
+		finally
+		{
+			writer.dispose();
+			output.close();
+		}
+	}
+}
@@ -0,0 +1,660 @@
+package org.json.test;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Random;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+/**
+ * Documents generates the texts that JSONCheck runs through the readers and
+ * writers. The texts are random but repeatable: the same seed gives the same
+ * texts. They lean toward the corners of the grammar, such as escapes,
+ * unquoted and single quoted strings, number forms that overflow or only
+ * look like numbers, semicolons between values, and trailing commas, and
+ * some of them are damaged so that the errors get checked too.
+ * @author JSON.org
+ * @version 2026-10-18
+ */
+public class Documents {
+
+    /**
+     * A Reader that hands out its text a few characters at a time, so that
+     * readers with their own buffers have to refill them in the middle of
+     * tokens.
+     */
+    public static class ChunkReader extends Reader {
+        private final int chunk;
+        private int position;
+        private final String text;
+
+        public ChunkReader(String text, int chunk) {
+            this.chunk = chunk;
+            this.position = 0;
+            this.text = text;
+        }
+
+        public void close() {
+        }
+
+        public int read(char[] buffer, int offset, int length) {
+            if (this.position >= this.text.length()) {
+                return -1;
+            }
+            int count = Math.min(Math.min(length, this.chunk),
+                    this.text.length() - this.position);
+            this.text.getChars(this.position, this.position + count, buffer,
+                    offset);
+            this.position += count;
+            return count;
+        }
+    }
+
+    /**
+     * The source of every choice, public so that a check can make choices of
+     * its own that are repeatable too.
+     */
+    public final Random random;
+
+
+    /**
+     * Make a generator.
+     * @param seed The seed of the random choices.
+     */
+    public Documents(long seed) {
+        this.random = new Random(seed);
+    }
+
+
+    /**
+     * Make a text that shows a value's class and contents, with the keys of
+     * each object sorted, so that two values can be compared as strings. An
+     * error getting a value shows as its message.
+     * @param value A value, or null.
+     * @return The text.
+     */
+    public static String canonical(Object value) {
+        StringBuffer sb = new StringBuffer();
+        canonical(value, sb);
+        return sb.toString();
+    }
+
+
+    private static void canonical(Object value, StringBuffer sb) {
+        if (value instanceof JSONObject) {
+            JSONObject jo = (JSONObject)value;
+            ArrayList keys = new ArrayList();
+            Iterator iterator = jo.keys();
+            while (iterator.hasNext()) {
+                keys.add(iterator.next());
+            }
+            Collections.sort(keys);
+            sb.append('{');
+            for (int i = 0; i < keys.size(); i += 1) {
+                String key = (String)keys.get(i);
+                sb.append(key).append('=');
+                try {
+                    canonical(jo.get(key), sb);
+                } catch (Exception e) {
+                    sb.append('!').append(e.getMessage());
+                }
+                sb.append(',');
+            }
+            sb.append("}#").append(jo.length());
+        } else if (value instanceof JSONArray) {
+            JSONArray ja = (JSONArray)value;
+            sb.append('[');
+            for (int i = 0; i < ja.length(); i += 1) {
+                try {
+                    canonical(ja.get(i), sb);
+                } catch (Exception e) {
+                    sb.append('!').append(e.getMessage());
+                }
+                sb.append(',');
+            }
+            sb.append(']');
+        } else if (value == null) {
+            sb.append("null!");
+        } else {
+            sb.append(value.getClass().getName()).append(':').append(value);
+        }
+    }
+
+
+    /**
+     * Make a JSON text, an object or an array, that is damaged one time in
+     * four.
+     */
+    public String json() {
+        String text = this.random.nextBoolean()
+                ? this.object(0) : this.array(0);
+        return this.random.nextInt(4) == 0 ? this.damage(text) : text;
+    }
+
+
+    /**
+     * Make the text of an object, with up to five members.
+     */
+    public String object(int depth) {
+        StringBuffer sb = new StringBuffer("{").append(this.space());
+        int length = this.random.nextInt(6);
+        for (int i = 0; i < length; i += 1) {
+            if (i > 0) {
+                sb.append(this.random.nextInt(10) == 0 ? ";" : ",")
+                        .append(this.space());
+            }
+            String key;
+            if (this.random.nextInt(5) == 0) {
+                key = "k" + this.random.nextInt(4);
+            } else if (this.random.nextInt(8) == 0) {
+                key = "unquoted" + i;
+            } else {
+                key = "\"" + this.string() + i + "\"";
+            }
+            sb.append(key).append(this.space())
+                    .append(this.random.nextInt(15) == 0 ? "=>" : ":")
+                    .append(this.space()).append(this.value(depth))
+                    .append(this.space());
+        }
+        if (length > 0 && this.random.nextInt(10) == 0) {
+            sb.append(',');
+        }
+        return sb.append('}').toString();
+    }
+
+
+    /**
+     * Make the text of an array, with up to five elements. Half of the
+     * arrays hold numbers of only one kind.
+     */
+    public String array(int depth) {
+        StringBuffer sb = new StringBuffer("[").append(this.space());
+        int length = this.random.nextInt(6);
+        boolean numbers = this.random.nextBoolean();
+        int kind = this.random.nextInt(3);
+        for (int i = 0; i < length; i += 1) {
+            if (i > 0) {
+                sb.append(this.random.nextInt(10) == 0 ? ";" : ",")
+                        .append(this.space());
+            }
+            if (this.random.nextInt(12) == 0) {
+                sb.append(this.space());
+                continue;
+            }
+            if (!numbers) {
+                sb.append(this.value(depth));
+            } else if (kind == 0) {
+                sb.append(this.random.nextInt(1000));
+            } else if (kind == 1) {
+                sb.append(this.random.nextLong());
+            } else {
+                sb.append(this.random.nextInt(1000) / 8.0);
+            }
+            sb.append(this.space());
+        }
+        if (length > 0 && this.random.nextInt(10) == 0) {
+            sb.append(',');
+        }
+        return sb.append(']').toString();
+    }
+
+
+    /**
+     * Make a JSONObject or JSONArray whose values are all of the types that
+     * reading their text back gives: Integer, Long outside the int range,
+     * Double with a fraction or an exponent, Boolean, String, and NULL.
+     * Keys and strings are made with text.
+     */
+    public Object tree(int depth) throws JSONException {
+        int length = this.random.nextInt(6);
+        if (this.random.nextBoolean()) {
+            JSONObject jo = new JSONObject();
+            for (int i = 0; i < length; i += 1) {
+                jo.put(this.text(), this.treeValue(depth));
+            }
+            return jo;
+        }
+        JSONArray ja = new JSONArray();
+        for (int i = 0; i < length; i += 1) {
+            ja.put(this.treeValue(depth));
+        }
+        return ja;
+    }
+
+
+    /**
+     * Make a string of any characters, including control characters, "</",
+     * surrogate pairs, and lone surrogates. One in sixteen is thousands of
+     * characters long.
+     */
+    public String text() {
+        StringBuffer sb = new StringBuffer();
+        for (int i = this.random.nextInt(16) == 0
+                ? this.random.nextInt(10000)
+                : this.random.nextInt(12); i > 0; i -= 1) {
+            switch (this.random.nextInt(10)) {
+            case 0:
+            case 1:
+            case 2:
+            case 3:
+            case 4:
+                sb.append((char)(' ' + this.random.nextInt(95)));
+                break;
+            case 5:
+                sb.append("</");
+                break;
+            case 6:
+                sb.append((char)this.random.nextInt(0x200));
+                break;
+            case 7:
+                sb.append(Character.toChars(0x10000 +
+                        this.random.nextInt(0x1000)));
+                break;
+            default:
+                sb.append((char)this.random.nextInt(0x10000));
+            }
+        }
+        return sb.toString();
+    }
+
+
+    /**
+     * Make the text of an array of numbers of one kind: ints, longs, or
+     * decimals. One element in thirty is of another kind, a string, a null,
+     * or missing.
+     */
+    public String numbers() {
+        int kind = this.random.nextInt(4);
+        StringBuffer sb = new StringBuffer("[");
+        for (int i = this.random.nextInt(this.random.nextBoolean() ? 4 : 40);
+                i > 0; i -= 1) {
+            sb.append(this.numberOf(this.random.nextInt(30) == 0
+                    ? this.random.nextInt(5) : kind));
+            if (i > 1) {
+                sb.append(this.random.nextInt(10) == 0 ? ";" : ",");
+            }
+        }
+        if (this.random.nextInt(5) == 0) {
+            sb.append(',');
+        }
+        return sb.append(']').toString();
+    }
+
+
+    /**
+     * Make an XML element with attributes and content: elements, CDATA,
+     * entities, comments, numbers, and text.
+     */
+    public String xml(int depth) {
+        String tag = "t" + this.random.nextInt(4);
+        StringBuffer sb = new StringBuffer("<").append(tag);
+        for (int i = this.random.nextInt(3); i > 0; i -= 1) {
+            sb.append(" a").append(i).append("=\"")
+                    .append(this.random.nextBoolean()
+                    ? this.number() : this.plain()).append('"');
+        }
+        if (this.random.nextInt(6) == 0) {
+            return sb.append("/>").toString();
+        }
+        sb.append('>');
+        for (int i = this.random.nextInt(depth > 3 ? 2 : 4); i > 0; i -= 1) {
+            switch (this.random.nextInt(8)) {
+            case 0:
+            case 1:
+            case 2:
+                sb.append(this.xml(depth + 1));
+                break;
+            case 3:
+                sb.append("<![CDATA[").append(this.string())
+                        .append(" <x> ]]>");
+                break;
+            case 4:
+                sb.append("&amp;&lt;&#65;&#x42;&quot;&apos;&gt;");
+                break;
+            case 5:
+                sb.append("<!-- c ").append(this.string()).append(" -->");
+                break;
+            case 6:
+                sb.append(this.number());
+                break;
+            default:
+                sb.append(this.plain()).append(this.space());
+            }
+        }
+        return sb.append("</").append(tag).append('>').toString();
+    }
+
+
+    /**
+     * Make comma delimited text of up to five rows of up to four columns,
+     * with quoted, numeric, empty, and plain values, and "\n" or "\r\n"
+     * line endings.
+     */
+    public String csv() {
+        StringBuffer sb = new StringBuffer();
+        int columns = 1 + this.random.nextInt(4);
+        for (int i = this.random.nextInt(5); i > 0; i -= 1) {
+            for (int j = 0; j < columns; j += 1) {
+                if (j > 0) {
+                    sb.append(',');
+                }
+                switch (this.random.nextInt(5)) {
+                case 0:
+                    sb.append('"').append(this.plain().replace('"', '/'))
+                            .append(", q\"");
+                    break;
+                case 1:
+                    sb.append(' ').append(this.number()).append(' ');
+                    break;
+                case 2:
+                    break;
+                default:
+                    sb.append(this.plain().replace('"', '/'));
+                }
+            }
+            sb.append(this.random.nextBoolean() ? "\n" : "\r\n");
+        }
+        return sb.toString();
+    }
+
+
+    /**
+     * Make a cookie list of up to four pairs, made of the characters that
+     * matter in one: escapes, good and bad, and spaces. One pair in eight has
+     * no '='.
+     */
+    public String cookies() {
+        StringBuffer sb = new StringBuffer();
+        for (int i = this.random.nextInt(5); i > 0; i -= 1) {
+            sb.append(this.cookie(false));
+            if (this.random.nextInt(8) > 0) {
+                sb.append('=').append(this.cookie(true));
+            }
+            if (i > 1) {
+                sb.append(this.random.nextBoolean() ? ";" : "; ");
+            }
+        }
+        return sb.toString();
+    }
+
+
+    /**
+     * Make an HTTP request or response header, with "\n" line endings.
+     */
+    public String header() {
+        StringBuffer sb = new StringBuffer();
+        switch (this.random.nextInt(3)) {
+        case 0:
+            sb.append("HTTP/1.1 ").append(200 + this.random.nextInt(300))
+                    .append(" Reason ").append(this.plain());
+            break;
+        case 1:
+            sb.append("POST \"/quoted path\" HTTP/1.0");
+            break;
+        default:
+            sb.append("GET /book/").append(this.random.nextInt(1000))
+                    .append("?page=").append(this.random.nextInt(100))
+                    .append(" HTTP/1.1");
+        }
+        for (int i = this.random.nextInt(6); i > 0; i -= 1) {
+            sb.append('\n').append(this.random.nextBoolean() ? "Host" : "X-" +
+                    this.random.nextInt(4)).append(this.random.nextBoolean()
+                    ? ":" : " :  ").append(this.plain().replace('\r', ' ')
+                    .replace('\n', ' '));
+        }
+        if (this.random.nextBoolean()) {
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+
+    /**
+     * Make the text of a number, or of something that looks like one.
+     */
+    public String number() {
+        switch (this.random.nextInt(14)) {
+        case 0:
+            return "0";
+        case 1:
+            return "-" + this.random.nextInt(1000);
+        case 2:
+            return String.valueOf(this.random.nextLong());
+        case 3:
+            return String.valueOf(this.random.nextDouble());
+        case 4:
+            return "1e" + this.random.nextInt(20);
+        case 5:
+            return "12345678901234567890";
+        case 6:
+            return "0x1F";
+        case 7:
+            return "-0";
+        case 8:
+            return "2147483648";
+        case 9:
+            return "-2147483649";
+        case 10:
+            return "1.5E-3";
+        case 11:
+            return "007";
+        case 12:
+            return "9223372036854775807";
+        default:
+            return String.valueOf(this.random.nextInt(100000));
+        }
+    }
+
+
+    /**
+     * Make the text of an unquoted value: a number, something close to a
+     * number or to true, false, or null, or a run of the characters they are
+     * made of.
+     */
+    public String token() {
+        switch (this.random.nextInt(4)) {
+        case 0:
+            return this.number();
+        case 1:
+            String[] words = {"true", "False", "NULL", "nul", "truer", "-",
+                "+1", ".5", "5.", "1e", "1e+", "-0.0", "0x", "1 2", "Infinity",
+                "NaN", "9223372036854775808", "-9223372036854775808"};
+            return words[this.random.nextInt(words.length)];
+        default:
+            String characters = "0123456789+-.eE aflnrstux";
+            StringBuffer sb = new StringBuffer();
+            for (int i = 1 + this.random.nextInt(24); i > 0; i -= 1) {
+                sb.append(characters.charAt(this.random.nextInt(
+                        i > 8 ? 14 : characters.length())));
+            }
+            return sb.toString();
+        }
+    }
+
+
+    /**
+     * Make the inside of a quoted string, with escapes.
+     */
+    public String string() {
+        StringBuffer sb = new StringBuffer();
+        int length = this.random.nextInt(12);
+        for (int i = 0; i < length; i += 1) {
+            switch (this.random.nextInt(20)) {
+            case 0:
+                sb.append("\\n");
+                break;
+            case 1:
+                sb.append("\\\"");
+                break;
+            case 2:
+                sb.append("\\u00e9");
+                break;
+            case 3:
+                sb.append("\\/");
+                break;
+            case 4:
+                sb.append('\u4e2d');
+                break;
+            case 5:
+                sb.append("\\\\");
+                break;
+            default:
+                sb.append((char)('a' + this.random.nextInt(26)));
+            }
+        }
+        return sb.toString();
+    }
+
+
+    /**
+     * Damage a text by cutting it short, dropping or adding a character, or
+     * adding junk after it.
+     */
+    public String damage(String text) {
+        if (text.length() == 0) {
+            return text;
+        }
+        int at = this.random.nextInt(text.length());
+        switch (this.random.nextInt(4)) {
+        case 0:
+            return text.substring(0, at);
+        case 1:
+            return text.substring(0, at) + text.substring(at + 1);
+        case 2:
+            return text.substring(0, at) +
+                    "{[,:\"'\\\u0000x}]".charAt(this.random.nextInt(11)) +
+                    text.substring(at);
+        default:
+            return text + this.space() + "junk";
+        }
+    }
+
+
+    /**
+     * Make a string like string, but without backslashes.
+     */
+    private String plain() {
+        return this.string().replace('\\', '/');
+    }
+
+
+    private String cookie(boolean value) {
+        String characters = "ab+% %4 1%41%zzx\t=";
+        StringBuffer sb = new StringBuffer();
+        for (int i = this.random.nextInt(8); i > 0; i -= 1) {
+            sb.append(characters.charAt(this.random.nextInt(
+                    characters.length() - (value ? 0 : 1))));
+        }
+        return sb.toString();
+    }
+
+
+    private String space() {
+        StringBuffer sb = new StringBuffer();
+        for (int i = this.random.nextInt(4); i > 0; i -= 1) {
+            sb.append(" \t\n\r".charAt(this.random.nextInt(4)));
+        }
+        return sb.toString();
+    }
+
+
+    private String numberOf(int kind) {
+        switch (kind) {
+        case 0:
+            return String.valueOf(this.random.nextInt(2000) - 1000);
+        case 1:
+            return String.valueOf(this.random.nextLong());
+        case 2:
+            return (this.random.nextBoolean() ? "-" : "") +
+                    this.random.nextInt(100000) + "." +
+                    this.random.nextInt(1000) + (this.random.nextInt(4) == 0
+                    ? "e" + (this.random.nextInt(40) - 20) : "");
+        case 3:
+            return this.random.nextBoolean() ? "-0.0" : "0.50";
+        default:
+            return this.random.nextBoolean() ? "\"x\""
+                : this.random.nextBoolean() ? "null" : "";
+        }
+    }
+
+
+    private Object treeValue(int depth) throws JSONException {
+        switch (this.random.nextInt(depth > 4 ? 6 : 8)) {
+        case 0:
+            return this.text();
+        case 1:
+            return new Integer(this.random.nextInt());
+        case 2:
+            long l = this.random.nextBoolean()
+                ? Long.MIN_VALUE + this.random.nextInt(3)
+                : this.random.nextLong();
+            return new Long(l == (int)l ? l + (1L << 40) : l);
+        case 3:
+            double d = this.random.nextDouble() *
+                    Math.pow(10, this.random.nextInt(40) - 20);
+
+// A whole number below 10^7 is written without a fraction or an exponent, and
+// so reads back as an Integer.
+
+            return new Double(d == Math.floor(d) && d < 1e7 ? d + 0.5 : d);
+        case 4:
+            return Boolean.valueOf(this.random.nextBoolean());
+        case 5:
+            return JSONObject.NULL;
+        default:
+            return this.tree(depth + 1);
+        }
+    }
+
+
+    private String value(int depth) {
+        switch (this.random.nextInt(depth > 3 ? 6 : 9)) {
+        case 0:
+            return "\"" + this.string() + "\"";
+        case 1:
+            return this.number();
+        case 2:
+            return this.random.nextBoolean() ? "true" : "false";
+        case 3:
+            return "null";
+        case 4:
+            return "'" + this.string().replace("\\\"", "x") + "'";
+        case 5:
+            return this.random.nextBoolean()
+                    ? "bareword" + this.random.nextInt(9) : "True";
+        case 6:
+        case 7:
+            return this.object(depth + 1);
+        default:
+            return this.array(depth + 1);
+        }
+    }
+}
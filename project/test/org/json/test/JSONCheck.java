@@ -0,0 +1,1324 @@
+package org.json.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Random;
+
+import org.json.CDL;
+import org.json.CDLReader;
+import org.json.CookieList;
+import org.json.HTTP;
+import org.json.HTTPReader;
+import org.json.JSONArray;
+import org.json.JSONBinary;
+import org.json.JSONException;
+import org.json.JSONML;
+import org.json.JSONObject;
+import org.json.JSONReader;
+import org.json.JSONSerializer;
+import org.json.JSONSymbolTable;
+import org.json.JSONTokener;
+import org.json.XML;
+import org.json.XMLReader;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+/**
+ * JSONCheck runs generated texts through the readers and writers of
+ * org.json and compares each result with what an independent route to the
+ * same result gives, such as building the same tree with JSONTokener, or
+ * writing a tree out and reading it back. It is run as <pre>
+ * java org.json.test.JSONCheck [-count n] [-seed s] [name...]</pre>
+ * Each check runs <code>-count</code> cases (default 100000) from
+ * Documents made with <code>-seed</code> (default 1). Only the checks whose
+ * names begin with one of the given names are run. The first few failures
+ * of each check are shown, and if any case failed the program exits with
+ * status 1.
+ * @author JSON.org
+ * @version 2026-10-18
+ */
+public class JSONCheck {
+
+    /**
+     * A Check compares two ways of doing the same thing on one generated
+     * case.
+     */
+    static abstract class Check {
+        final String name;
+
+        Check(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Check one case.
+         * @param documents The generator to make the case with.
+         * @return null if the case passed, or else a description of how it
+         *  failed.
+         */
+        abstract String run(Documents documents) throws Exception;
+    }
+
+    /**
+     * The number of failures of each check that are shown.
+     */
+    private static final int SHOWN = 5;
+
+    private final ArrayList checks = new ArrayList();
+
+
+    JSONCheck() {
+
+// A JSONTokener reads the same characters and tokens, and reports the same
+// positions and errors, whether it reads a String, a char array, or a Reader
+// that returns a few characters at a time.
+
+        this.add(new Check("tokener") {
+            String run(Documents documents) throws Exception {
+                String text = documents.json();
+                int[] steps = new int[1 + documents.random.nextInt(30)];
+                for (int i = 0; i < steps.length; i += 1) {
+                    steps[i] = documents.random.nextInt(12);
+                }
+                String expected = tokens(new JSONTokener(text), steps);
+                String actual = tokens(new JSONTokener(text.toCharArray()),
+                        steps);
+                if (!expected.equals(actual)) {
+                    return differ(text, expected, actual);
+                }
+                actual = tokens(new JSONTokener(new Documents.ChunkReader(
+                        text, 1 + documents.random.nextInt(5))), steps);
+                if (!expected.equals(actual)) {
+                    return differ(text, expected, actual);
+                }
+                return null;
+            }
+        });
+
+// An unquoted value reads as JSONObject.stringToValue makes it from the
+// trimmed token, whether the token ends the text, is followed by a comma, or
+// is in an array.
+
+        this.add(new Check("numbers") {
+            String run(Documents documents) throws Exception {
+                String token = documents.token();
+                String expected = token.trim().length() == 0
+                    ? "error"
+                    : Documents.canonical(JSONObject.stringToValue(
+                            token.trim()));
+                String[] texts = {token, token + ",", "[" + token + "]"};
+
+// A blank token in an array is no element at all, not a missing value.
+
+                int length = expected.equals("error") ? 2 : 3;
+                for (int i = 0; i < length; i += 1) {
+                    String actual = tryCanonical(new JSONTokener(texts[i]));
+                    if (i == 2) {
+                        actual = actual.substring(1, actual.length() - 2);
+                    }
+                    if (!actual.startsWith(expected)) {
+                        return differ(texts[i], expected, actual);
+                    }
+                    actual = tryCanonical(new JSONTokener(
+                            new Documents.ChunkReader(texts[i],
+                                    1 + documents.random.nextInt(5))));
+                    if (i == 2) {
+                        actual = actual.substring(1, actual.length() - 2);
+                    }
+                    if (!actual.startsWith(expected)) {
+                        return differ(texts[i], expected, actual);
+                    }
+                }
+                return null;
+            }
+        });
+
+// A quoted string reads as its characters with the escapes replaced, and a
+// bad escape or a missing close quote is an error.
+
+        this.add(new Check("strings") {
+            String run(Documents documents) throws Exception {
+                String string = documents.string();
+                if (documents.random.nextInt(4) == 0) {
+                    string = documents.damage(string);
+                }
+                String text = "\"" + string + "\"";
+                String expected = unescape(string);
+                String actual = tryCanonical(new JSONTokener(text));
+                if (!actual.startsWith(expected)) {
+                    return differ(text, expected, actual);
+                }
+                actual = tryCanonical(new JSONTokener(
+                        new Documents.ChunkReader(text,
+                                1 + documents.random.nextInt(5))));
+                if (!actual.startsWith(expected)) {
+                    return differ(text, expected, actual);
+                }
+                return null;
+            }
+        });
+
+// JSONReader builds the same tree as JSONTokener, or fails with the same
+// message, on text from a String or from a Reader with a small buffer. On
+// good text, skipping and reading values whole leaves it where it should.
+
+        this.add(new Check("reader") {
+            String run(Documents documents) throws Exception {
+                String text = documents.json();
+                String expected = tryCanonical(new JSONTokener(text));
+                String actual;
+                try {
+                    JSONReader reader = documents.random.nextBoolean()
+                            ? new JSONReader(text)
+                            : new JSONReader(new Documents.ChunkReader(text,
+                                    1 + documents.random.nextInt(5)));
+                    actual = Documents.canonical(build(reader,
+                            reader.next()));
+                    if (reader.next() != JSONReader.END_DOCUMENT ||
+                            reader.next() != JSONReader.END_DOCUMENT) {
+                        actual += " not at the end";
+                    }
+                } catch (RuntimeException e) {
+                    actual = error(e);
+                } catch (JSONException e) {
+                    actual = error(e);
+                }
+                if (!expected.equals(actual)) {
+                    return differ(text, expected, actual);
+                }
+                if (expected.startsWith("error ")) {
+                    return null;
+                }
+                return skip(text, new JSONTokener(text).nextValue());
+            }
+        });
+
+// A tree written with toString, with each indentation, or with write reads
+// back as the same tree. Through an OutputStream it is the same text encoded
+// as UTF-8, and a string quoted on its own reads back as the same string.
+
+        this.add(new Check("writer") {
+            String run(Documents documents) throws Exception {
+                Object tree = documents.tree(0);
+                String expected = Documents.canonical(tree);
+                String text = tree.toString();
+                for (int indent = 0; indent < 4; indent += 1) {
+                    String written = indent == 0 ? text
+                        : tree instanceof JSONObject
+                        ? ((JSONObject)tree).toString(indent)
+                        : ((JSONArray)tree).toString(indent);
+                    String actual = tryCanonical(new JSONTokener(written));
+                    if (!expected.equals(actual)) {
+                        return differ(written, expected, actual);
+                    }
+                }
+                StringWriter sw = new StringWriter();
+                if (tree instanceof JSONObject) {
+                    ((JSONObject)tree).write(sw);
+                } else {
+                    ((JSONArray)tree).write(sw);
+                }
+                if (!text.equals(sw.toString())) {
+                    return differ(text, text, sw.toString());
+                }
+                ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                new JSONSerializer(stream).value(tree).flush();
+                if (!Arrays.equals(text.getBytes("UTF-8"),
+                        stream.toByteArray())) {
+                    return "UTF-8 differs for " + text;
+                }
+                String string = documents.text();
+                String quoted = JSONObject.quote(string);
+                Object actual = new JSONTokener(quoted).nextValue();
+                if (!string.equals(actual)) {
+                    return differ(quoted, string, String.valueOf(actual));
+                }
+                return null;
+            }
+        });
+
+// A JSONObject keeps its members like a LinkedHashMap through any mix of
+// puts, removes, and removes through its keys iterator, including when it is
+// written in the middle of iterating, and when it was read lazily.
+
+        this.add(new Check("members") {
+            String run(Documents documents) throws Exception {
+                Random random = documents.random;
+                int keys = 1 + random.nextInt(200);
+                LinkedHashMap map = new LinkedHashMap();
+                StringBuffer sb = new StringBuffer("{");
+                for (int i = random.nextInt(keys); i > 0; i -= 1) {
+                    String key = "k" + random.nextInt(keys);
+                    if (map.isEmpty() || !map.containsKey(key)) {
+                        sb.append(map.isEmpty() ? "" : ",").append(key)
+                                .append(':').append(i);
+                        map.put(key, new Integer(i));
+                    }
+                }
+                JSONTokener x = new JSONTokener(sb.append('}').toString());
+                x.setLazy(random.nextBoolean());
+                JSONObject jo = new JSONObject(x);
+                for (int step = 0; step < 100; step += 1) {
+                    String key = "k" + random.nextInt(keys);
+                    switch (random.nextInt(10)) {
+                    case 0:
+                    case 1:
+                    case 2:
+                    case 3:
+                        jo.put(key, step);
+                        map.put(key, new Integer(step));
+                        break;
+                    case 4:
+                    case 5:
+                    case 6:
+                        Object removed = jo.remove(key);
+                        if (!String.valueOf(map.remove(key)).equals(
+                                String.valueOf(removed))) {
+                            return "remove " + key + " gave " + removed;
+                        }
+                        break;
+                    case 7:
+                    case 8:
+                        Iterator i = jo.keys();
+                        Iterator j = map.keySet().iterator();
+                        while (j.hasNext()) {
+                            if (!i.hasNext() || !i.next().equals(j.next())) {
+                                return "keys out of order at step " + step;
+                            }
+                            if (random.nextInt(4) == 0) {
+                                i.remove();
+                                j.remove();
+                            }
+                            if (random.nextInt(8) == 0 && !jo.toString()
+                                    .equals(new JSONObject(map).toString())) {
+                                return "written differently at step " + step;
+                            }
+                        }
+                        if (i.hasNext()) {
+                            return "keys left over at step " + step;
+                        }
+                        break;
+                    default:
+                        Iterator k = map.keySet().iterator();
+                        while (k.hasNext()) {
+                            Object name = k.next();
+                            if (!map.get(name).equals(jo.opt((String)name))) {
+                                return "wrong value of " + name + " at step " +
+                                        step;
+                            }
+                        }
+                    }
+                    if (jo.length() != map.size() ||
+                            jo.has(key) != map.containsKey(key)) {
+                        return "length or has wrong at step " + step;
+                    }
+                }
+                if (!jo.toString().equals(new JSONObject(map).toString())) {
+                    return "written differently at the end";
+                }
+                return null;
+            }
+        });
+
+// A JSONArray read from a text of numbers of one kind, which keeps them in an
+// array of primitives, answers every method the same as one built up with put,
+// which keeps them as objects, before and after changes. A remove that fails
+// leaves the numbers packed.
+
+        this.add(new Check("packed") {
+            String run(Documents documents) throws Exception {
+                Random random = documents.random;
+                String text = documents.numbers();
+                JSONArray packed;
+                try {
+                    packed = new JSONArray(text);
+                } catch (JSONException e) {
+                    return null;
+                }
+                JSONReader reader = new JSONReader(text);
+                JSONArray objects = (JSONArray)build(reader, reader.next());
+                for (int step = 0; step < 12; step += 1) {
+                    int length = packed.length();
+                    int index = random.nextInt(length + 3) - 1;
+                    int operation = random.nextInt(11);
+                    long seed = random.nextLong();
+                    byte[] bytes = operation == 4 &&
+                            (index < 0 || index >= length)
+                        ? JSONBinary.toBytes(packed)
+                        : null;
+                    String expected = elements(objects, operation, index,
+                            new Random(seed));
+                    String actual = elements(packed, operation, index,
+                            new Random(seed));
+                    if (!expected.equals(actual)) {
+                        return differ(text + " step " + step, expected,
+                                actual);
+                    }
+
+// The binary form shows whether the numbers are still packed.
+
+                    if (bytes != null &&
+                            !Arrays.equals(bytes, JSONBinary.toBytes(packed))) {
+                        return "a failed remove unpacked " + text +
+                                " at step " + step;
+                    }
+                }
+                return null;
+            }
+        });
+
+// Getting keys from a small symbol table, where keys keep replacing each
+// other, reads the same trees as making a new string for every key, and a
+// key got from the table is equal to its characters.
+
+        this.add(new Check("symbols") {
+            private final JSONSymbolTable symbols = new JSONSymbolTable(16);
+
+            String run(Documents documents) throws Exception {
+                String text = documents.json();
+                JSONTokener x = new JSONTokener(text);
+                x.setSymbolTable(null);
+                String expected = tryCanonical(x);
+                x = new JSONTokener(text);
+                x.setSymbolTable(this.symbols);
+                String actual = tryCanonical(x);
+                if (!expected.equals(actual)) {
+                    return differ(text, expected, actual);
+                }
+                StringBuffer sb = new StringBuffer("--");
+                for (int i = documents.random.nextInt(80); i > 0; i -= 1) {
+                    sb.append((char)('a' + documents.random.nextInt(3)));
+                }
+                String key = sb.substring(2);
+                char[] chars = sb.append("--").toString().toCharArray();
+                String symbol = this.symbols.intern(chars, 2,
+                        chars.length - 2);
+                if (!key.equals(symbol)) {
+                    return differ(sb.toString(), key, symbol);
+                }
+                return null;
+            }
+        });
+
+// A tree, read from text or made of every value type, comes back from its
+// binary form the same, with its number classes and packed arrays. Damaged
+// binary is refused with a JSONException and nothing else, and so is nesting
+// deeper than 1000 levels, both ways.
+
+        this.add(new Check("binary") {
+            String run(Documents documents) throws Exception {
+                Random random = documents.random;
+                Object tree;
+                if (random.nextBoolean()) {
+                    tree = documents.tree(0);
+                } else {
+                    try {
+                        tree = new JSONTokener(random.nextBoolean()
+                                ? documents.object(0)
+                                : documents.numbers()).nextValue();
+                    } catch (JSONException e) {
+                        return null;
+                    }
+                }
+                String expected = Documents.canonical(tree);
+                byte[] bytes = JSONBinary.toBytes(tree, random.nextBoolean());
+                String actual = Documents.canonical(JSONBinary.toValue(bytes));
+                if (!expected.equals(actual)) {
+                    return differ(tree.toString(), expected, actual);
+                }
+                for (int i = 0; i < 3; i += 1) {
+                    byte[] damaged;
+                    if (random.nextBoolean()) {
+                        damaged = new byte[random.nextInt(bytes.length)];
+                        System.arraycopy(bytes, 0, damaged, 0, damaged.length);
+                    } else {
+                        damaged = (byte[])bytes.clone();
+                        for (int j = random.nextInt(3); j >= 0; j -= 1) {
+                            damaged[random.nextInt(damaged.length)] =
+                                    (byte)random.nextInt(256);
+                        }
+                    }
+                    try {
+                        JSONBinary.toValue(damaged);
+                    } catch (JSONException ignore) {
+                    } catch (Throwable e) {
+                        return "damaged " + tree + " threw " + e;
+                    }
+                }
+                if (random.nextInt(1000) == 0) {
+                    return nesting(1000 + random.nextInt(2));
+                }
+                return null;
+            }
+
+
+            /**
+             * Encode and decode arrays nested to a depth.
+             * @return null if only more than 1000 levels were refused.
+             */
+            private String nesting(int depth) throws JSONException {
+                JSONArray outer = new JSONArray();
+                JSONArray inner = outer;
+                byte[] bytes = new byte[2 + depth * 2 + 1];
+                bytes[0] = 'J';
+                for (int i = 1; i < depth; i += 1) {
+                    JSONArray ja = new JSONArray();
+                    inner.put(ja);
+                    inner = ja;
+                }
+                for (int i = 0; i < depth; i += 1) {
+
+// The tag of an array and a count of one element.
+
+                    bytes[2 + i * 2] = 9;
+                    bytes[3 + i * 2] = 1;
+                }
+                boolean encoded;
+                boolean decoded;
+                try {
+                    JSONBinary.toBytes(outer);
+                    encoded = true;
+                } catch (JSONException e) {
+                    encoded = false;
+                }
+                try {
+                    JSONBinary.toValue(bytes);
+                    decoded = true;
+                } catch (JSONException e) {
+                    decoded = false;
+                }
+                if (encoded != depth <= 1000 || decoded != depth <= 1000) {
+                    return depth + " levels encoded " + encoded +
+                            " and decoded " + decoded;
+                }
+                return null;
+            }
+        });
+
+// A JSONObject read lazily gives the same values as one read eagerly, through
+// any mix of gets, removes, and puts, and is written the same. Text that the
+// eager read refuses is refused by the lazy read, or by writing what it read.
+
+        this.add(new Check("lazy") {
+            String run(Documents documents) throws Exception {
+                Random random = documents.random;
+                String text = documents.object(0);
+                if (random.nextInt(3) == 0) {
+                    text = documents.damage(text);
+                }
+                JSONObject eager;
+                try {
+                    eager = new JSONObject(text);
+                } catch (RuntimeException e) {
+                    eager = null;
+                } catch (JSONException e) {
+                    eager = null;
+                }
+                JSONTokener x = new JSONTokener(text);
+                x.setLazy(true);
+                JSONObject lazy = null;
+                String refused = null;
+                try {
+                    lazy = new JSONObject(x);
+                    if (eager == null) {
+                        return differ(text, "error", lazy.toString(0));
+                    }
+                } catch (RuntimeException e) {
+                    refused = error(e);
+                } catch (JSONException e) {
+                    refused = error(e);
+                }
+                if (eager == null) {
+                    return null;
+                }
+                if (refused != null) {
+                    return differ(text, Documents.canonical(eager), refused);
+                }
+                ArrayList keys = new ArrayList();
+                Iterator i = eager.keys();
+                while (i.hasNext()) {
+                    keys.add(i.next());
+                }
+                for (int step = 0; step < 5 && !keys.isEmpty(); step += 1) {
+                    String key = (String)keys.get(random.nextInt(keys.size()));
+                    switch (random.nextInt(3)) {
+                    case 0:
+                        String expected = Documents.canonical(eager.opt(key));
+                        String actual = Documents.canonical(lazy.opt(key));
+                        if (!expected.equals(actual)) {
+                            return differ(text + " at " + key, expected,
+                                    actual);
+                        }
+                        break;
+                    case 1:
+                        eager.remove(key);
+                        lazy.remove(key);
+                        break;
+                    default:
+                        eager.put("put" + step, step);
+                        lazy.put("put" + step, step);
+                    }
+                }
+                String expected = Documents.canonical(eager);
+                String actual = Documents.canonical(lazy);
+                if (!expected.equals(actual)) {
+                    return differ(text, expected, actual);
+                }
+                if (!eager.toString().equals(lazy.toString())) {
+                    return differ(text, eager.toString(), lazy.toString());
+                }
+                return null;
+            }
+        });
+
+// XMLReader refuses the same XML as XML.toJSONObject, and reads the same
+// events from a String as from a Reader that returns a few characters at a
+// time. It writes the same JSONML text as JSONML.toJSONArray makes, except
+// after a "<!-" that does not begin a comment, which the two read
+// differently.
+
+        this.add(new Check("xmlreader") {
+            String run(Documents documents) throws Exception {
+                String text = documents.random.nextInt(4) == 0
+                    ? documents.damage(documents.xml(0))
+                    : "<?xml version='1.0'?>" + documents.xml(0);
+                int chunk = 1 + documents.random.nextInt(5);
+                boolean refused;
+                try {
+                    XML.toJSONObject(text);
+                    refused = false;
+                } catch (JSONException e) {
+                    refused = true;
+                }
+                String expected = events(new XMLReader(text));
+                if (refused != expected.endsWith("error")) {
+                    return differ(text, refused ? "error" : "events",
+                            expected);
+                }
+                String actual = events(new XMLReader(
+                        new Documents.ChunkReader(text, chunk)));
+                if (!expected.equals(actual)) {
+                    return differ(text, expected, actual);
+                }
+                expected = writeJSONML(new XMLReader(text));
+                actual = writeJSONML(new XMLReader(
+                        new Documents.ChunkReader(text, chunk)));
+                if (!expected.equals(actual)) {
+                    return differ(text, expected, actual);
+                }
+                String jsonml;
+                try {
+                    jsonml = JSONML.toJSONArray(text).toString();
+                } catch (RuntimeException e) {
+                    jsonml = "error";
+                } catch (JSONException e) {
+                    jsonml = "error";
+                }
+                if (!refused && !jsonml.equals("error") &&
+                        !jsonml.equals(expected) &&
+                        !text.matches("(?s).*<!-([^-].*)?")) {
+                    return differ(text, jsonml, expected);
+                }
+                return null;
+            }
+        });
+
+// XML.toJSONObject makes the same tree as is built by recursion from the
+// events of an XMLReader, and JSONML.toJSONObject the same as is made by
+// recursion from JSONML.toJSONArray. Elements nested 1000 deep are read, and
+// 1001 deep are refused, by all of them. So are JSON objects and arrays, read
+// eagerly or lazily, and what is read is written again.
+
+        this.add(new Check("xml") {
+            String run(Documents documents) throws Exception {
+                String text = documents.xml(0);
+                String expected;
+                String actual;
+                try {
+                    XMLReader reader = new XMLReader(text);
+                    JSONObject jo = new JSONObject();
+                    while (reader.next() == XMLReader.START_ELEMENT) {
+                        jo.accumulate(reader.getName(), element(reader));
+                    }
+                    expected = Documents.canonical(jo);
+                    actual = Documents.canonical(XML.toJSONObject(text));
+                } catch (JSONException e) {
+                    return null;
+                }
+                if (!expected.equals(actual)) {
+                    return differ(text, expected, actual);
+                }
+                try {
+                    expected = Documents.canonical(jsonmlObject(
+                            JSONML.toJSONArray(text)));
+                    actual = Documents.canonical(JSONML.toJSONObject(text));
+                } catch (JSONException e) {
+                    return null;
+                }
+                if (!expected.equals(actual)) {
+                    return differ(text, expected, actual);
+                }
+                if (documents.random.nextInt(1000) == 0) {
+                    return nesting(1000 + documents.random.nextInt(2));
+                }
+                return null;
+            }
+
+
+            /**
+             * Build the value of an element the way XML.toJSONObject does,
+             * just after its START_ELEMENT.
+             */
+            private Object element(XMLReader reader) throws JSONException {
+                JSONObject jo = new JSONObject();
+                for (;;) {
+                    switch (reader.next()) {
+                    case XMLReader.ATTRIBUTE:
+                        jo.accumulate(reader.getName(), reader.getValue());
+                        break;
+                    case XMLReader.TEXT:
+                        jo.accumulate("content", reader.getValue());
+                        break;
+                    case XMLReader.START_ELEMENT:
+                        jo.accumulate(reader.getName(), element(reader));
+                        break;
+                    default:
+                        if (jo.length() == 0) {
+                            return "";
+                        }
+                        if (jo.length() == 1 && jo.has("content")) {
+                            return jo.opt("content");
+                        }
+                        return jo;
+                    }
+                }
+            }
+
+
+            /**
+             * Convert a JSONML array to the JSONML object form.
+             */
+            private JSONObject jsonmlObject(JSONArray ja) throws JSONException {
+                JSONObject jo = new JSONObject();
+                jo.put("tagName", ja.getString(0));
+                int i = 1;
+                JSONObject attributes = ja.optJSONObject(1);
+                if (attributes != null) {
+                    Iterator keys = attributes.keys();
+                    while (keys.hasNext()) {
+                        String key = (String)keys.next();
+                        jo.put(key, attributes.get(key));
+                    }
+                    i = 2;
+                }
+                if (i < ja.length()) {
+                    JSONArray nodes = new JSONArray();
+                    for (; i < ja.length(); i += 1) {
+                        Object node = ja.get(i);
+                        nodes.put(node instanceof JSONArray
+                                ? jsonmlObject((JSONArray)node) : node);
+                    }
+                    jo.put("childNodes", nodes);
+                }
+                return jo;
+            }
+
+
+            /**
+             * Read elements, and JSON objects and arrays, nested to a depth.
+             * @return null if only more than 1000 levels were refused.
+             */
+            private String nesting(int depth) {
+                StringBuffer sb = new StringBuffer();
+                for (int i = 0; i < depth; i += 1) {
+                    sb.append("<a>");
+                }
+                for (int i = 0; i < depth; i += 1) {
+                    sb.append("</a>");
+                }
+                String text = sb.toString();
+                sb.setLength(0);
+                for (int i = 0; i < depth; i += 1) {
+                    sb.append(i % 2 == 0 ? "{\"a\":" : "[");
+                }
+                sb.append('0');
+                for (int i = depth - 1; i >= 0; i -= 1) {
+                    sb.append(i % 2 == 0 ? '}' : ']');
+                }
+                String json = sb.toString();
+                String read = "";
+                for (int i = 0; i < 6; i += 1) {
+                    try {
+                        switch (i) {
+                        case 0:
+                            XML.toJSONObject(text);
+                            break;
+                        case 1:
+                            JSONML.toJSONArray(text);
+                            break;
+                        case 2:
+                            JSONML.toJSONObject(text);
+                            break;
+                        case 3:
+                            new XMLReader(text).write(new StringWriter());
+                            break;
+                        default:
+                            JSONTokener x = new JSONTokener(json);
+                            x.setLazy(i == 5);
+                            if (x.nextValue().toString() == null) {
+                                throw new JSONException("Not written");
+                            }
+                        }
+                        read += depth <= 1000 ? "" : " " + i;
+                    } catch (JSONException e) {
+                        read += depth <= 1000 ? " " + i : "";
+                    }
+                }
+                return read.length() == 0 ? null
+                    : depth + " levels read wrongly by" + read;
+            }
+        });
+
+// CDLReader reads the same rows as CDL.toJSONArray, or refuses the same text,
+// whether it reads a String or a Reader that returns a few characters at a
+// time. CDL does not take "\r\n" line endings or doubled quotes, so it only
+// reads texts without them.
+
+        this.add(new Check("cdl") {
+            String run(Documents documents) throws Exception {
+                String text = documents.csv();
+                if (documents.random.nextInt(5) == 0) {
+                    text = documents.damage(text);
+                }
+                if (documents.random.nextBoolean()) {
+                    text = text.replaceAll("\r\n", "\n");
+                }
+                String expected = rows(text, 0);
+                String actual = rows(text,
+                        1 + documents.random.nextInt(5));
+                if (!expected.equals(actual)) {
+                    return differ(text, expected, actual);
+                }
+                if (text.indexOf('\r') >= 0 || text.indexOf("\"\"") >= 0) {
+                    return null;
+                }
+                try {
+                    JSONArray ja = CDL.toJSONArray(text);
+                    actual = ja == null ? "null" : Documents.canonical(ja);
+                } catch (JSONException e) {
+                    actual = error(e);
+                }
+                if (!expected.equals(actual)) {
+                    return differ(text, expected, actual);
+                }
+                return null;
+            }
+        });
+
+// HTTPReader reads the same fields as HTTP.toJSONObject, with "\n" or "\r\n"
+// line endings, and the same pairs as CookieList.toJSONObject where each pair
+// has an '='. Each reader is reset for every text.
+
+        this.add(new Check("http") {
+            private final HTTPReader cookies =
+                new HTTPReader(HTTPReader.COOKIES);
+            private final HTTPReader header =
+                new HTTPReader(HTTPReader.HEADER);
+
+            String run(Documents documents) throws Exception {
+                String text = documents.cookies();
+                JSONObject expected;
+                try {
+                    expected = CookieList.toJSONObject(text);
+                } catch (JSONException e) {
+                    expected = null;
+                }
+
+// CookieList reads a pair without '=' as part of the name of the next pair.
+
+                if (expected != null && !text.matches("(.*;)?[^=]*(;.*)?")) {
+                    JSONObject actual = new JSONObject();
+                    this.cookies.reset(text);
+                    while (this.cookies.next()) {
+                        String name = this.cookies.getName().toString();
+                        if (!this.cookies.isName(name)) {
+                            return "isName(" + name + ") false in " + text;
+                        }
+                        CharSequence value = this.cookies.getValue();
+                        actual.put(name, value == null ? "" : value.toString());
+                    }
+                    if (!expected.toString().equals(actual.toString())) {
+                        return differ(text, expected.toString(),
+                                actual.toString());
+                    }
+                }
+                text = documents.header();
+                expected = HTTP.toJSONObject(text);
+                String[] names = expected.has("Method")
+                    ? new String[] {"Method", "Request-URI", "HTTP-Version"}
+                    : new String[] {"HTTP-Version", "Status-Code",
+                        "Reason-Phrase"};
+                for (int i = 0; i < 2; i += 1) {
+                    JSONObject actual = new JSONObject();
+                    this.header.reset(i == 0 ? text
+                        : text.replaceAll("\n", "\r\n"));
+                    for (int j = 0; j < 3; j += 1) {
+                        actual.put(names[j],
+                                this.header.getStartLine(j).toString());
+                    }
+                    while (this.header.next()) {
+                        String name = this.header.getName().toString();
+                        if (!this.header.isName(name.toUpperCase())) {
+                            return "isName(" + name + ") false in " + text;
+                        }
+                        actual.put(name, this.header.getValue().toString());
+                    }
+                    if (!expected.toString().equals(actual.toString())) {
+                        return differ(text, expected.toString(),
+                                actual.toString());
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+
+    private void add(Check check) {
+        this.checks.add(check);
+    }
+
+
+    /**
+     * Build a tree from the events of a JSONReader, the way the JSONObject
+     * and JSONArray constructors would.
+     * @param event The event that begins the value.
+     */
+    private static Object build(JSONReader reader, int event)
+            throws JSONException {
+        switch (event) {
+        case JSONReader.START_OBJECT:
+            JSONObject jo = new JSONObject();
+            int depth = reader.getDepth();
+            while ((event = reader.next()) == JSONReader.KEY) {
+                String key = reader.getKey();
+                Object value = build(reader, reader.next());
+                if (jo.has(key)) {
+                    throw new JSONException("Duplicate key \"" + key + "\"");
+                }
+                jo.put(key, value);
+            }
+            if (event != JSONReader.END_OBJECT ||
+                    reader.getDepth() != depth - 1) {
+                throw new IllegalStateException("Object ended by " + event);
+            }
+            return jo;
+        case JSONReader.START_ARRAY:
+            JSONArray ja = new JSONArray();
+            while ((event = reader.next()) != JSONReader.END_ARRAY) {
+                ja.put(build(reader, event));
+            }
+            return ja;
+        case JSONReader.VALUE:
+            return reader.getValue();
+        default:
+            throw new IllegalStateException("Value begun by " + event);
+        }
+    }
+
+
+    /**
+     * Call a method of a JSONArray.
+     * @param operation Which method.
+     * @param index The index to give it.
+     * @param random The source of values to put.
+     * @return What the method returned or threw, and what the array looks
+     *  like after it.
+     */
+    private static String elements(JSONArray ja, int operation, int index,
+            Random random) {
+        StringBuffer sb = new StringBuffer();
+        try {
+            switch (operation) {
+            case 0:
+                ja.put(random.nextInt(50));
+                break;
+            case 1:
+                ja.put(random.nextLong());
+                break;
+            case 2:
+                ja.put(random.nextInt(100) / 8.0);
+                break;
+            case 3:
+                ja.put(index, random.nextInt(3) == 0
+                        ? (Object)"s" : new Integer(7));
+                break;
+            case 4:
+                sb.append(Documents.canonical(ja.remove(index)));
+                break;
+            case 5:
+                sb.append(Documents.canonical(ja.opt(index))).append(' ')
+                        .append(ja.optInt(index)).append(' ')
+                        .append(ja.optLong(index)).append(' ')
+                        .append(ja.optDouble(index)).append(' ')
+                        .append(ja.isNull(index));
+                break;
+            case 6:
+                sb.append(ja.getInt(index)).append(' ')
+                        .append(ja.getLong(index)).append(' ')
+                        .append(ja.getDouble(index));
+                break;
+            case 7:
+                sb.append(ja.toString(random.nextInt(3))).append(' ')
+                        .append(ja.join("|"));
+                break;
+            case 8:
+                StringWriter sw = new StringWriter();
+                ja.write(sw);
+                sb.append(sw);
+                break;
+            case 9:
+                sb.append(Arrays.toString(ja.toIntArray()));
+                break;
+            default:
+                sb.append(Arrays.toString(ja.toLongArray())).append(' ')
+                        .append(Arrays.toString(ja.toDoubleArray()));
+            }
+        } catch (IndexOutOfBoundsException e) {
+
+// ArrayList words this differently from one Java version to another.
+
+            sb.append("error index out of bounds");
+        } catch (RuntimeException e) {
+            sb.append(error(e));
+        } catch (JSONException e) {
+            sb.append(error(e));
+        }
+        return sb.append(' ').append(Documents.canonical(ja)).toString();
+    }
+
+
+    /**
+     * Read the outermost object or array of a good text again, skipping
+     * every other member or every nested element, and reading the rest
+     * whole.
+     * @return null if that matched the tree, or else how it did not.
+     */
+    private static String skip(String text, Object tree)
+            throws JSONException {
+        JSONReader reader = new JSONReader(text);
+        int event = reader.next();
+        if (tree instanceof JSONObject) {
+            JSONObject jo = (JSONObject)tree;
+            int count = 0;
+            while (reader.next() == JSONReader.KEY) {
+                String key = reader.getKey();
+                count += 1;
+                if (count % 2 == 0) {
+                    reader.skip();
+                } else if (!Documents.canonical(reader.nextValue()).equals(
+                        Documents.canonical(jo.get(key)))) {
+                    return "nextValue of " + key + " differs in " + text;
+                }
+            }
+            if (reader.getEvent() != JSONReader.END_OBJECT ||
+                    count != jo.length()) {
+                return "skipping members ends wrong in " + text;
+            }
+        } else if (tree instanceof JSONArray) {
+            int count = 0;
+            while ((event = reader.next()) != JSONReader.END_ARRAY) {
+                if (event == JSONReader.START_OBJECT ||
+                        event == JSONReader.START_ARRAY) {
+                    reader.skip();
+                }
+                count += 1;
+            }
+            if (count != ((JSONArray)tree).length() ||
+                    reader.getDepth() != 0) {
+                return "skipping elements ends wrong in " + text;
+            }
+        }
+        if (reader.next() != JSONReader.END_DOCUMENT) {
+            return "not at the end after skipping in " + text;
+        }
+        return null;
+    }
+
+
+    /**
+     * Take steps through a text with a JSONTokener, stopping at the first
+     * error.
+     * @param steps The methods to call, in order.
+     * @return What each step returned, and where the tokener was after it.
+     */
+    private static String tokens(JSONTokener x, int[] steps) {
+        StringBuffer sb = new StringBuffer();
+        try {
+            for (int i = 0; i < steps.length; i += 1) {
+                switch (steps[i]) {
+                case 0:
+                    sb.append((int)x.next());
+                    break;
+                case 1:
+                    sb.append(x.next(i % 6));
+                    break;
+                case 2:
+                    sb.append((int)x.nextClean());
+                    break;
+                case 3:
+                    x.back();
+                    break;
+                case 4:
+                    sb.append(x.nextTo(','));
+                    break;
+                case 5:
+                    sb.append(x.nextTo(",:]}"));
+                    break;
+                case 6:
+                    sb.append((int)x.skipTo(':'));
+                    break;
+                case 7:
+                    sb.append(Documents.canonical(x.nextValue()));
+                    break;
+                case 8:
+                    sb.append(x.more());
+                    break;
+                case 9:
+                    sb.append(x.nextString('"'));
+                    break;
+                case 10:
+                    sb.append(x.end());
+                    break;
+                default:
+                    sb.append(x.next('"'));
+                }
+                sb.append(x).append('|');
+            }
+        } catch (RuntimeException e) {
+            sb.append(error(e));
+        } catch (JSONException e) {
+            sb.append(error(e));
+        }
+        return sb.toString();
+    }
+
+
+    /**
+     * Replace the escapes in the inside of a quoted string, one character at
+     * a time, up to the first quote that is not escaped.
+     * @return The canonical text of the string, or "error" if it is not a
+     *  whole string.
+     */
+    private static String unescape(String string) {
+        StringBuffer sb = new StringBuffer();
+        for (int i = 0; i < string.length(); i += 1) {
+            char c = string.charAt(i);
+            if (c == '"') {
+                break;
+            }
+            if (c == 0 || c == '\n' || c == '\r') {
+                return "error";
+            }
+            if (c == '\\') {
+                i += 1;
+                c = i < string.length() ? string.charAt(i) : 0;
+                int at = "btnfr\"'\\/".indexOf(c);
+                if (c == 'u' && i + 4 < string.length()) {
+                    try {
+                        c = (char)Integer.parseInt(
+                                string.substring(i + 1, i + 5), 16);
+                    } catch (NumberFormatException e) {
+                        return "error";
+                    }
+                    i += 4;
+                } else if (c != 0 && at >= 0) {
+                    c = "\b\t\n\f\r\"'\\/".charAt(at);
+                } else {
+                    return "error";
+                }
+            }
+            sb.append(c);
+        }
+        return Documents.canonical(sb.toString());
+    }
+
+
+    /**
+     * Read all of the rows of a text with a CDLReader.
+     * @param chunk The number of characters to read at a time from a Reader,
+     *  or 0 to read from the String.
+     * @return The canonical text of a JSONArray of the rows, as
+     *  CDL.toJSONArray makes it, or a description of the error.
+     */
+    private static String rows(String text, int chunk) {
+        try {
+            CDLReader reader = chunk == 0 ? new CDLReader(text)
+                : new CDLReader(new Documents.ChunkReader(text, chunk));
+            if (reader.getNames() == null) {
+                return "null";
+            }
+            JSONArray ja = new JSONArray();
+            while (reader.next()) {
+                ja.put(new JSONObject(reader.getJSONObject().toString()));
+            }
+            return ja.length() == 0 ? "null" : Documents.canonical(ja);
+        } catch (JSONException e) {
+            return error(e);
+        }
+    }
+
+
+    /**
+     * Read all of the events of an XMLReader.
+     * @return The events with their names and values, ending in "error" if
+     *  the reader refused the text.
+     */
+    private static String events(XMLReader reader) {
+        StringBuffer sb = new StringBuffer();
+        try {
+            while (reader.next() != XMLReader.END_DOCUMENT) {
+                sb.append(reader.getEvent()).append(' ')
+                        .append(reader.getName()).append(' ')
+                        .append(Documents.canonical(reader.getValue()))
+                        .append('|');
+            }
+        } catch (JSONException e) {
+            sb.append("error");
+        }
+        return sb.toString();
+    }
+
+
+    /**
+     * Write what an XMLReader reads as JSONML text.
+     * @return The text, or "error". XMLReader finds errors in other words
+     *  than JSONML does, and sometimes a character sooner.
+     */
+    private static String writeJSONML(XMLReader reader) {
+        try {
+            return reader.write(new StringWriter()).toString();
+        } catch (JSONException e) {
+            return "error";
+        }
+    }
+
+
+    /**
+     * Read a value with a JSONTokener.
+     * @return The canonical text of the value, or a description of the error.
+     */
+    private static String tryCanonical(JSONTokener x) {
+        try {
+            return Documents.canonical(x.nextValue());
+        } catch (RuntimeException e) {
+            return error(e);
+        } catch (JSONException e) {
+            return error(e);
+        }
+    }
+
+
+    /**
+     * Describe an exception thrown while reading. Bad text is not only
+     * reported with JSONException: a bad unicode escape gets a
+     * NumberFormatException, so the class is part of the description.
+     */
+    private static String error(Exception e) {
+        return "error " + e.getClass().getName() + " " + e.getMessage();
+    }
+
+
+    private static String differ(String text, String expected,
+            String actual) {
+        return text + "\n    expected " + expected + "\n    actual   " +
+                actual;
+    }
+
+
+    /**
+     * Run the checks.
+     * @param args See the class comment.
+     */
+    public static void main(String[] args) throws Exception {
+        int count = 100000;
+        long seed = 1;
+        ArrayList names = new ArrayList();
+        for (int i = 0; i < args.length; i += 1) {
+            if (args[i].equals("-count")) {
+                i += 1;
+                count = Integer.parseInt(args[i]);
+            } else if (args[i].equals("-seed")) {
+                i += 1;
+                seed = Long.parseLong(args[i]);
+            } else {
+                names.add(args[i]);
+            }
+        }
+        JSONCheck check = new JSONCheck();
+        int failed = 0;
+        for (int i = 0; i < check.checks.size(); i += 1) {
+            Check c = (Check)check.checks.get(i);
+            boolean wanted = names.isEmpty();
+            for (int j = 0; j < names.size(); j += 1) {
+                if (c.name.startsWith((String)names.get(j))) {
+                    wanted = true;
+                }
+            }
+            if (!wanted) {
+                continue;
+            }
+            Documents documents = new Documents(seed);
+            int failures = 0;
+            for (int n = 0; n < count; n += 1) {
+                String failure;
+                try {
+                    failure = c.run(documents);
+                } catch (Exception e) {
+                    failure = "case " + n + " threw " + e;
+                }
+                if (failure != null) {
+                    failures += 1;
+                    if (failures <= SHOWN) {
+                        System.out.println(c.name + ": " + failure);
+                    }
+                }
+            }
+            System.out.println(c.name + ": " + count + " cases, " +
+                    failures + " failed");
+            if (failures > 0) {
+                failed += 1;
+            }
+        }
+        if (failed > 0) {
+            System.out.println(failed + " check(s) failed");
+            System.exit(1);
+        }
+    }
+}
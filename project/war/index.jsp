@@ -1,7 +1,9 @@
 <!doctype html>
 
 <%@page import="swarm.server.transaction.*"%>
+<%@page import="eagre.reader.server.app.AssetManifest"%>
 <%@ page session="false"%>
+<% AssetManifest assets = AssetManifest.get(application); %>
 
 <html>
   <head>
@@ -9,7 +11,7 @@
 	<meta name="description" content="Welcome to b33hive, a totally new way to create and share online.">
 	<meta name="viewport" content="initial-scale=1.0, user-scalable=no">
 
-    <link type="text/css" rel="stylesheet" href="/r.app/min.css?v=1391409042">
+    <link type="text/css" rel="stylesheet" href="<%= assets.resolve("/r.app/min.css") %>">
 
     <title>Eagre Reader</title>
     
@@ -53,6 +55,6 @@
 	</div>
 	
 	<script type="text/javascript" src="http://www.google.com/recaptcha/api/challenge?k=6LdrmOUSAAAAAJakkVeEWYa6iatpT3YA6tNemg5I"></script>
-	 <script type="text/javascript" language="javascript" src="/r.app/min.js?v=1391409042"></script>
+	 <script type="text/javascript" language="javascript" src="<%= assets.resolve("/r.app/min.js") %>"></script>
   </body>
 </html>